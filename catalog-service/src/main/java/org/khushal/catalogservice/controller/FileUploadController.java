@@ -1,13 +1,19 @@
 package org.khushal.catalogservice.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.khushal.catalogservice.model.Category;
+import org.khushal.catalogservice.model.UploadResult;
 import org.khushal.catalogservice.repository.CategoryRepository;
+import org.khushal.catalogservice.service.MediaRecordService;
+import org.khushal.catalogservice.service.MultipartStreamReader;
 import org.khushal.catalogservice.service.TtsService;
+import org.khushal.catalogservice.service.UploadStorageService;
 import org.khushal.catalogservice.service.VideoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
 import java.nio.file.*;
@@ -25,6 +31,12 @@ public class FileUploadController {
     
     @Autowired
     private VideoService videoService;
+
+    @Autowired
+    private UploadStorageService uploadStorageService;
+
+    @Autowired
+    private MediaRecordService mediaRecordService;
     
     /**
      * Get all categories - matches Node.js endpoint GET /allCategories
@@ -40,10 +52,14 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * Upload images with unique names. The "files" parts are streamed straight to disk as they arrive.
+     * All or nothing: if any file is rejected or fails to commit, none of the batch stays in the folder.
+     */
     @PostMapping("/{categoryId}/folders/{folderName}/upload")
     public ResponseEntity<?> uploadFiles(@PathVariable String categoryId,
                                          @PathVariable String folderName,
-                                         @RequestParam("files") MultipartFile[] files) {
+                                         HttpServletRequest request) {
         Optional<Category> categoryOpt = categoryRepository.findById(categoryId); // Fetch the category by ID
 
         if (categoryOpt.isEmpty()) {
@@ -55,27 +71,57 @@ public class FileUploadController {
         // Base path: public/images/<category-name>/<folderName>
         Path folderPath = Paths.get("public", "images", category.getName(), folderName);
 
+        List<UploadStorageService.StagedFile> staged = new ArrayList<>();
+        List<Path> committed = new ArrayList<>();
         try {
             Files.createDirectories(folderPath); // create if doesn't exist
 
-            List<String> uploadedFiles = new ArrayList<>();
-            for (MultipartFile file : files) {
-                String originalName = file.getOriginalFilename();
+            MultipartStreamReader parts = MultipartStreamReader.of(request);
+            MultipartStreamReader.Part part;
+            while ((part = parts.nextPart()) != null) {
+                if (!part.isFile() || !"files".equals(part.getName())) {
+                    continue;
+                }
+                String originalName = part.getFileName();
 
                 if (!originalName.matches(".*\\.(jpg|jpeg|png|gif)$")) {
+                    staged.forEach(uploadStorageService::discard);
                     return ResponseEntity.badRequest().body("Only image files (.jpg, .jpeg, .png, .gif) are allowed");
                 }
 
+                staged.add(uploadStorageService.stage(folderPath, part.getInputStream(), originalName));
+            }
+
+            // All or nothing: check every file's content before the first one is moved into place,
+            // and take back the files already committed if a later commit fails
+            for (UploadStorageService.StagedFile file : staged) {
+                uploadStorageService.probe(file);
+            }
+
+            List<String> uploadedFiles = new ArrayList<>();
+            List<UploadResult> results = new ArrayList<>();
+            while (!staged.isEmpty()) {
+                UploadStorageService.StagedFile file = staged.get(0);
+                String originalName = file.getOriginalName();
                 String filename = System.currentTimeMillis() + "-" + UUID.randomUUID() +
                         originalName.substring(originalName.lastIndexOf("."));
 
                 Path destination = folderPath.resolve(filename);
-                Files.copy(file.getInputStream(), destination, StandardCopyOption.REPLACE_EXISTING);
+                results.add(UploadResult.stored(uploadStorageService.commit(file, destination)));
+                committed.add(destination);
+                staged.remove(0);
                 uploadedFiles.add(filename);
             }
+            mediaRecordService.record(category.getName(), folderName, results);
 
             return ResponseEntity.ok(uploadedFiles.size() + " file(s) uploaded successfully: " + uploadedFiles);
+        } catch (IllegalArgumentException e) {
+            staged.forEach(uploadStorageService::discard);
+            committed.forEach(uploadStorageService::uncommit);
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IOException e) {
+            staged.forEach(uploadStorageService::discard);
+            committed.forEach(uploadStorageService::uncommit);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("File upload failed: " + e.getMessage());
         }
     }
@@ -132,7 +178,9 @@ public class FileUploadController {
      */
     @PostMapping("/{categoryId}/folders/{folderName}/generateVideo")
     public ResponseEntity<?> generateVideo(@PathVariable String categoryId,
-                                          @PathVariable String folderName) {
+                                          @PathVariable String folderName,
+                                          @RequestParam(defaultValue = "standard") String profile,
+                                          @RequestParam(defaultValue = "false") boolean preview) {
         // Check if category exists
         Optional<Category> categoryOpt = categoryRepository.findById(categoryId);
         if (categoryOpt.isEmpty()) {
@@ -154,7 +202,7 @@ public class FileUploadController {
         }
         
         try {
-            // Call video-service to generate video
+            // Queue the render on video-service; it answers 202 with a job id right away
             // Using Node.js defaults: fps 1/5 (which is 5 seconds per image), height 720
             String audioPathStr = audioPath.toString().replace("\\", "/");
             ResponseEntity<?> result = videoService.generateVideo(
@@ -165,19 +213,26 @@ public class FileUploadController {
                     720, // height
                     "uploads", // outputDir
                     true, // cleanupImages (Node.js deletes images after generation)
-                    true  // cleanupAudio (Node.js deletes audio after generation)
+                    true, // cleanupAudio (Node.js deletes audio after generation)
+                    profile, // encode profile: standard or slideshow
+                    preview // also render a quick low-resolution draft
             );
             
-            // Parse response and increment videoCounter
             if (result.getStatusCode().is2xxSuccessful() && result.getBody() instanceof Map) {
                 @SuppressWarnings("unchecked")
                 Map<String, Object> responseBody = (Map<String, Object>) result.getBody();
-                String outputPath = (String) responseBody.get("outputPath");
+                String jobId = (String) responseBody.get("jobId");
                 
                 Map<String, Object> response = new HashMap<>();
-                response.put("message", "Video generated successfully: " + outputPath);
-                response.put("outputPath", outputPath);
-                return ResponseEntity.ok(response);
+                response.put("message", "Video generation started");
+                response.put("jobId", jobId);
+                response.put("status", responseBody.get("status"));
+                if (responseBody.containsKey("preview")) {
+                    response.put("preview", responseBody.get("preview"));
+                }
+                response.put("statusUrl", "/allCategories/" + categoryId + "/folders/" + folderName + "/generateVideo/" + jobId);
+                response.put("eventsUrl", "/allCategories/" + categoryId + "/folders/" + folderName + "/generateVideo/" + jobId + "/events");
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
             }
             
             return result;
@@ -187,4 +242,32 @@ public class FileUploadController {
                     .body("Error generating video: " + e.getMessage());
         }
     }
+
+    /**
+     * Get the status of a video generation job started by generateVideo
+     * GET /allCategories/:categoryId/folders/:folderName/generateVideo/:jobId
+     */
+    @GetMapping("/{categoryId}/folders/{folderName}/generateVideo/{jobId}")
+    public ResponseEntity<?> getVideoJobStatus(@PathVariable String categoryId,
+                                               @PathVariable String folderName,
+                                               @PathVariable String jobId) {
+        try {
+            return videoService.getJobStatus(jobId);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error getting video job status: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stream progress of a video generation job as Server-Sent Events (relayed from video-service)
+     * GET /allCategories/:categoryId/folders/:folderName/generateVideo/:jobId/events
+     */
+    @GetMapping(value = "/{categoryId}/folders/{folderName}/generateVideo/{jobId}/events",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamVideoJobEvents(@PathVariable String categoryId,
+                                                              @PathVariable String folderName,
+                                                              @PathVariable String jobId) {
+        return videoService.streamJobEvents(jobId);
+    }
 }
@@ -1,13 +1,29 @@
 package org.khushal.catalogservice.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.khushal.catalogservice.exception.UploadOffsetMismatchException;
 import org.khushal.catalogservice.model.Media;
+import org.khushal.catalogservice.model.StoredFile;
+import org.khushal.catalogservice.model.UploadResult;
+import org.khushal.catalogservice.model.UploadSession;
+import org.khushal.catalogservice.service.ArchiveExportService;
+import org.khushal.catalogservice.service.ArchiveStreamReader;
 import org.khushal.catalogservice.service.MediaService;
+import org.khushal.catalogservice.service.MultipartStreamReader;
+import org.khushal.catalogservice.service.UploadSessionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
@@ -20,34 +36,36 @@ public class MediaController {
     @Autowired
     private MediaService mediaService;
 
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private ArchiveExportService archiveExportService;
+
     /**
      * Upload images to a specific category and folder
      * Images will be saved with sequential numbering (001.jpg, 002.jpg, etc.)
+     * The "files" parts are streamed straight to disk, so the request is read once and never buffered.
      */
     @PostMapping("/{categoryName}/{folderName}/images")
     public ResponseEntity<?> uploadImages(@PathVariable String categoryName,
                                          @PathVariable String folderName,
-                                         @RequestParam("files") MultipartFile[] files) {
+                                         HttpServletRequest request) {
         try {
-            if (files == null || files.length == 0) {
-                return ResponseEntity.badRequest().body("No files provided");
-            }
-
-            // Validate all files are images
-            for (MultipartFile file : files) {
-                mediaService.validateFile(file, Media.MediaType.IMAGE);
-            }
-
-            List<String> uploadedFiles = mediaService.uploadImages(categoryName, folderName, files);
+            List<UploadResult> results = mediaService.uploadImages(categoryName, folderName,
+                    MultipartStreamReader.of(request), "files");
+            List<String> uploadedFiles = storedNames(results);
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Images uploaded successfully");
             response.put("uploadedCount", uploadedFiles.size());
+            response.put("failedCount", results.size() - uploadedFiles.size());
             response.put("files", uploadedFiles);
+            response.put("details", results);
             response.put("category", categoryName);
             response.put("folder", folderName);
             
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return ResponseEntity.status(uploadStatus(uploadedFiles.size(), results.size())).body(response);
             
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -59,31 +77,27 @@ public class MediaController {
 
     /**
      * Upload videos to a specific category and folder
+     * The "files" parts are streamed straight to disk, so the request is read once and never buffered.
      */
     @PostMapping("/{categoryName}/{folderName}/videos")
     public ResponseEntity<?> uploadVideos(@PathVariable String categoryName,
                                          @PathVariable String folderName,
-                                         @RequestParam("files") MultipartFile[] files) {
+                                         HttpServletRequest request) {
         try {
-            if (files == null || files.length == 0) {
-                return ResponseEntity.badRequest().body("No files provided");
-            }
-
-            // Validate all files are videos
-            for (MultipartFile file : files) {
-                mediaService.validateFile(file, Media.MediaType.VIDEO);
-            }
-
-            List<String> uploadedFiles = mediaService.uploadVideos(categoryName, folderName, files);
+            List<UploadResult> results = mediaService.uploadVideos(categoryName, folderName,
+                    MultipartStreamReader.of(request), "files");
+            List<String> uploadedFiles = storedNames(results);
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Videos uploaded successfully");
             response.put("uploadedCount", uploadedFiles.size());
+            response.put("failedCount", results.size() - uploadedFiles.size());
             response.put("files", uploadedFiles);
+            response.put("details", results);
             response.put("category", categoryName);
             response.put("folder", folderName);
             
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return ResponseEntity.status(uploadStatus(uploadedFiles.size(), results.size())).body(response);
             
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -93,6 +107,92 @@ public class MediaController {
         }
     }
 
+    /**
+     * Import a whole deck from a ZIP, TAR or .tar.gz archive, sent as the raw request body or as an "archive"
+     * file part. Images are numbered in archive order.
+     */
+    @PostMapping("/{categoryName}/{folderName}/import")
+    public ResponseEntity<?> importArchive(@PathVariable String categoryName,
+                                           @PathVariable String folderName,
+                                           HttpServletRequest request) {
+        try {
+            String contentType = request.getContentType();
+            InputStream body = null;
+            if (contentType != null && contentType.toLowerCase().startsWith("multipart/form-data")) {
+                MultipartStreamReader parts = MultipartStreamReader.of(request);
+                MultipartStreamReader.Part part;
+                while (body == null && (part = parts.nextPart()) != null) {
+                    if (part.isFile() && "archive".equals(part.getName())) {
+                        body = part.getInputStream();
+                    }
+                }
+                if (body == null) {
+                    throw new IllegalArgumentException("No archive provided");
+                }
+            } else {
+                body = request.getInputStream();
+            }
+
+            List<UploadResult> results = mediaService.importArchive(categoryName, folderName,
+                    ArchiveStreamReader.open(body));
+            List<String> importedFiles = storedNames(results);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Archive imported successfully");
+            response.put("uploadedCount", importedFiles.size());
+            response.put("failedCount", results.size() - importedFiles.size());
+            response.put("files", importedFiles);
+            response.put("details", results);
+            response.put("category", categoryName);
+            response.put("folder", folderName);
+
+            return ResponseEntity.status(uploadStatus(importedFiles.size(), results.size())).body(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Import failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Add a file that was already uploaded somewhere, by its SHA-256, without sending the bytes again.
+     * Returns 404 when the content is unknown; the client then uploads the file normally.
+     */
+    @PostMapping("/{categoryName}/{folderName}/link")
+    public ResponseEntity<?> linkExisting(@PathVariable String categoryName,
+                                          @PathVariable String folderName,
+                                          @RequestParam String sha256,
+                                          @RequestParam String fileName) {
+        try {
+            UploadResult result = mediaService.linkExisting(categoryName, folderName,
+                    sha256.toLowerCase(), fileName);
+            if (result == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "No stored content with SHA-256 " + sha256));
+            }
+            if (!result.isSuccess()) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", result.getError()));
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "File linked successfully");
+            response.put("file", result);
+            response.put("category", categoryName);
+            response.put("folder", folderName);
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Link failed: " + e.getMessage()));
+        }
+    }
+
     /**
      * List all images in a specific category and folder
      */
@@ -116,6 +216,226 @@ public class MediaController {
         }
     }
 
+    /**
+     * Download a folder as a ZIP, streamed as it is built
+     */
+    @GetMapping("/{categoryName}/{folderName}/export")
+    public void exportFolder(@PathVariable String categoryName,
+                             @PathVariable String folderName,
+                             HttpServletResponse response) throws IOException {
+        Path folder;
+        try {
+            folder = archiveExportService.findFolder(categoryName, folderName);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        if (folder == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Folder not found");
+            return;
+        }
+
+        startZipResponse(response, categoryName + "-" + folderName + ".zip");
+        archiveExportService.exportFolder(folder, response.getOutputStream());
+    }
+
+    /**
+     * Download every folder of a category as one ZIP, streamed as it is built
+     */
+    @GetMapping("/{categoryName}/export")
+    public void exportCategory(@PathVariable String categoryName,
+                               HttpServletResponse response) throws IOException {
+        Path category;
+        try {
+            category = archiveExportService.findCategory(categoryName);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        }
+        if (category == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Category not found");
+            return;
+        }
+
+        startZipResponse(response, categoryName + ".zip");
+        archiveExportService.exportCategory(category, response.getOutputStream());
+    }
+
+    /**
+     * Page through a folder's media records (file name, size, MIME type, sequence number)
+     * Images come in sequence order, videos in upload order.
+     */
+    @GetMapping("/{categoryName}/{folderName}/media")
+    public ResponseEntity<?> listMedia(@PathVariable String categoryName,
+                                       @PathVariable String folderName,
+                                       @RequestParam(defaultValue = "image") String type,
+                                       @RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "50") int size) {
+        try {
+            Page<Media> media = mediaService.listMedia(categoryName, folderName, type, page, size);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("category", categoryName);
+            response.put("folder", folderName);
+            response.put("type", type);
+            response.put("page", media.getNumber());
+            response.put("size", media.getSize());
+            response.put("totalElements", media.getTotalElements());
+            response.put("totalPages", media.getTotalPages());
+            response.put("media", media.getContent());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to list media: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Start a resumable video upload. Chunks are then sent to PATCH /uploads/{uploadId}?offset=N as raw bytes.
+     */
+    @PostMapping("/{categoryName}/{folderName}/uploads")
+    public ResponseEntity<?> createUploadSession(@PathVariable String categoryName,
+                                                 @PathVariable String folderName,
+                                                 @RequestParam String fileName,
+                                                 @RequestParam long size) {
+        try {
+            UploadSession session = uploadSessionService.create(categoryName, folderName, fileName, size);
+            return ResponseEntity.status(HttpStatus.CREATED).body(toSessionResponse(session));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to start upload: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Current offset of a resumable upload; resume by sending the next chunk from there
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getUploadSession(@PathVariable String uploadId) {
+        UploadSession session = uploadSessionService.get(uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(toSessionResponse(session));
+    }
+
+    /**
+     * Append a chunk (request body) at the given offset, which must be the upload's current offset
+     */
+    @PatchMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> appendUploadChunk(@PathVariable String uploadId,
+                                               @RequestParam long offset,
+                                               HttpServletRequest request) {
+        UploadSession session = uploadSessionService.get(uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            uploadSessionService.appendChunk(session, offset, request.getInputStream());
+            return ResponseEntity.ok(toSessionResponse(session));
+
+        } catch (UploadOffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "offset", e.getExpectedOffset()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to write chunk: " + e.getMessage(), "offset", session.getOffset()));
+        }
+    }
+
+    /**
+     * Finish a resumable upload once every byte has arrived
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeUploadSession(@PathVariable String uploadId) {
+        UploadSession session = uploadSessionService.get(uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            StoredFile stored = uploadSessionService.complete(session);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Video uploaded successfully");
+            response.put("category", session.getCategoryName());
+            response.put("folder", session.getFolderName());
+            response.put("file", stored);
+
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (UploadOffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage(), "offset", e.getExpectedOffset()));
+        } catch (IllegalArgumentException e) {
+            // Content is not the video its name says; the received bytes are gone
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to finish upload: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Abandon a resumable upload
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> abortUploadSession(@PathVariable String uploadId) {
+        UploadSession session = uploadSessionService.get(uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        uploadSessionService.abort(session);
+        return ResponseEntity.noContent().build();
+    }
+
+    private Map<String, Object> toSessionResponse(UploadSession session) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("uploadId", session.getId());
+        response.put("category", session.getCategoryName());
+        response.put("folder", session.getFolderName());
+        response.put("fileName", session.getOriginalName());
+        response.put("size", session.getTotalSize());
+        response.put("offset", session.getOffset());
+        response.put("expiresAt", uploadSessionService.getExpiresAt(session));
+        return response;
+    }
+
+    /**
+     * Reorder the slides of a folder; the body lists image names in their new order.
+     * Images left out keep following in sequence-number order. No file is renamed.
+     */
+    @PutMapping("/{categoryName}/{folderName}/images/order")
+    public ResponseEntity<?> reorderImages(@PathVariable String categoryName,
+                                           @PathVariable String folderName,
+                                           @RequestBody List<String> order) {
+        try {
+            List<String> images = mediaService.reorderImages(categoryName, folderName, order);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("category", categoryName);
+            response.put("folder", folderName);
+            response.put("imageCount", images.size());
+            response.put("images", images);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to reorder images: " + e.getMessage()));
+        }
+    }
+
     /**
      * List all videos in a specific category and folder
      */
@@ -251,38 +571,26 @@ public class MediaController {
             response.put("category", categoryName);
             response.put("folder", folderName);
             
-            int totalUploaded = 0;
-            
-            // Upload images if provided
-            if (imageFiles != null && imageFiles.length > 0) {
-                for (MultipartFile file : imageFiles) {
-                    mediaService.validateFile(file, Media.MediaType.IMAGE);
-                }
-                List<String> uploadedImages = mediaService.uploadImages(categoryName, folderName, imageFiles);
-                response.put("uploadedImages", uploadedImages);
-                response.put("imageCount", uploadedImages.size());
-                totalUploaded += uploadedImages.size();
-            }
-            
-            // Upload videos if provided
-            if (videoFiles != null && videoFiles.length > 0) {
-                for (MultipartFile file : videoFiles) {
-                    mediaService.validateFile(file, Media.MediaType.VIDEO);
-                }
-                List<String> uploadedVideos = mediaService.uploadVideos(categoryName, folderName, videoFiles);
-                response.put("uploadedVideos", uploadedVideos);
-                response.put("videoCount", uploadedVideos.size());
-                totalUploaded += uploadedVideos.size();
-            }
-            
-            if (totalUploaded == 0) {
-                return ResponseEntity.badRequest().body("No files provided");
-            }
+            // Images and videos are written together, so a large video does not hold up the slides
+            Map<String, List<UploadResult>> results = mediaService.uploadMixed(categoryName, folderName,
+                    imageFiles, videoFiles);
+            List<String> uploadedImages = storedNames(results.get("images"));
+            List<String> uploadedVideos = storedNames(results.get("videos"));
+            int totalUploaded = uploadedImages.size() + uploadedVideos.size();
+            int totalFiles = results.get("images").size() + results.get("videos").size();
+
+            response.put("uploadedImages", uploadedImages);
+            response.put("imageDetails", results.get("images"));
+            response.put("imageCount", uploadedImages.size());
+            response.put("uploadedVideos", uploadedVideos);
+            response.put("videoDetails", results.get("videos"));
+            response.put("videoCount", uploadedVideos.size());
             
             response.put("message", "Mixed media uploaded successfully");
             response.put("totalUploaded", totalUploaded);
+            response.put("failedCount", totalFiles - totalUploaded);
             
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return ResponseEntity.status(uploadStatus(totalUploaded, totalFiles)).body(response);
             
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -291,4 +599,28 @@ public class MediaController {
                     .body(Map.of("error", "Upload failed: " + e.getMessage()));
         }
     }
+
+    private List<String> storedNames(List<UploadResult> results) {
+        return results.stream().filter(UploadResult::isSuccess).map(UploadResult::getFileName).toList();
+    }
+
+    /**
+     * 201 when every file was stored, 207 when only some were, 400 when none were
+     */
+    private HttpStatus uploadStatus(int stored, int total) {
+        if (stored == total) {
+            return HttpStatus.CREATED;
+        }
+        return stored == 0 ? HttpStatus.BAD_REQUEST : HttpStatus.MULTI_STATUS;
+    }
+
+    /**
+     * Headers for a ZIP download; the length is unknown up front, so the body is sent chunked
+     */
+    private void startZipResponse(HttpServletResponse response, String fileName) {
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+    }
 }
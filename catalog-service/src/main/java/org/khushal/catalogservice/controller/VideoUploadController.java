@@ -1,5 +1,15 @@
 package org.khushal.catalogservice.controller;
 
+import org.khushal.catalogservice.exception.FfmpegQueueFullException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.khushal.catalogservice.service.FfmpegScheduler;
+import org.khushal.catalogservice.service.MediaCacheService;
+import org.khushal.catalogservice.service.VideoStreamService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +25,17 @@ import java.util.regex.Pattern;
 @RestController
 public class VideoUploadController {
 
+    private static final Logger log = LoggerFactory.getLogger(VideoUploadController.class);
+
+    @Autowired
+    private FfmpegScheduler ffmpegScheduler;
+
+    @Autowired
+    private VideoStreamService videoStreamService;
+
+    @Autowired
+    private MediaCacheService mediaCacheService;
+
     private final Path uploadDir = Paths.get("uploads");
     private final Path videosDir = Paths.get("videos");
     private final Path audioDir = Paths.get("audio");
@@ -55,6 +76,7 @@ public class VideoUploadController {
     /**
      * Merge/concatenate all videos from uploads folder with background music
      * Matches Node.js endpoint: POST /convert_videos
+     * Runs on the request thread; FfmpegScheduler bounds how many requests can wait, rejecting the rest with 503.
      */
     @PostMapping("/convert_videos")
     public ResponseEntity<?> convertVideos() {
@@ -91,8 +113,8 @@ public class VideoUploadController {
                 return 0;
             });
 
-            // Create file list for ffmpeg concat
-            Path fileListPath = uploadDir.resolve("filelist.txt");
+            // Create file list for ffmpeg concat (unique per request so concurrent conversions don't collide)
+            Path fileListPath = Files.createTempFile(uploadDir, "filelist-", ".txt");
             StringBuilder fileListContent = new StringBuilder();
             for (Path videoFile : videoFiles) {
                 fileListContent.append("file '").append(videoFile.toAbsolutePath().toString().replace("\\", "/")).append("'\n");
@@ -128,22 +150,15 @@ public class VideoUploadController {
                     outputFilePath.toString()
             );
 
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-
-            // Read process output
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    System.out.println("[FFmpeg] " + line);
-                }
+            // Run through the shared scheduler and read process output
+            int exitCode;
+            try {
+                exitCode = ffmpegScheduler.run(pb, line -> log.debug("[FFmpeg] {}", line));
+            } finally {
+                // Clean up file list
+                Files.deleteIfExists(fileListPath);
             }
 
-            int exitCode = process.waitFor();
-
-            // Clean up file list
-            Files.deleteIfExists(fileListPath);
-
             if (exitCode == 0) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("message", "Videos in " + uploadDir + " have been concatenated successfully.");
@@ -154,12 +169,32 @@ public class VideoUploadController {
                         .body("An error occurred while concatenating the videos.");
             }
 
+        } catch (FfmpegQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage(), "retryAfterSeconds", e.getRetryAfterSeconds()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error converting videos: " + e.getMessage());
         }
     }
 
+    /**
+     * ffmpeg scheduler queue depth and wait times
+     */
+    @GetMapping("/ffmpeg/stats")
+    public ResponseEntity<?> getFfmpegStats() {
+        return ResponseEntity.ok(ffmpegScheduler.getStats());
+    }
+
+    /**
+     * Local tier of videos fetched from storage-service: size, hit ratio and evictions
+     */
+    @GetMapping("/storage/cache")
+    public ResponseEntity<?> getMediaCacheStats() {
+        return ResponseEntity.ok(mediaCacheService.getStats());
+    }
+
     /**
      * List all videos in uploads folder
      * Matches Node.js endpoint: GET /videos
@@ -197,6 +232,45 @@ public class VideoUploadController {
         }
     }
 
+    /**
+     * Stream a rendered or merged video with HTTP Range support (206), ETag and Last-Modified
+     * GET /stream/uploads/{fileName} for renders, GET /stream/videos/{fileName} for merged output
+     */
+    @RequestMapping(value = "/stream/{directory}/{fileName:.+}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void streamVideo(@PathVariable String directory,
+                            @PathVariable String fileName,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        Path baseDir;
+        if ("uploads".equals(directory)) {
+            baseDir = uploadDir;
+        } else if ("videos".equals(directory)) {
+            baseDir = videosDir;
+        } else {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Unknown video directory");
+            return;
+        }
+
+        // Only plain file names directly inside the directory
+        Path videoPath = baseDir.resolve(fileName).normalize();
+        if (!videoPath.getParent().equals(baseDir) || !fileName.toLowerCase().endsWith(".mp4")) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Video not found");
+            return;
+        }
+        // Rendered on another node: video-service stores its output in storage-service
+        if (!mediaCacheService.acquire(videoPath)) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Video not found");
+            return;
+        }
+        try {
+            // A fetched file can be evicted once unpinned, so it is written inside the pin instead of by sendfile
+            boolean allowSendfile = !mediaCacheService.isTracked(videoPath);
+            videoStreamService.stream(videoPath, "video/mp4", request, response, allowSendfile);
+        } finally {
+            mediaCacheService.release(videoPath);
+        }
+    }
+
     /**
      * Delete a specific video
      * Matches Node.js endpoint: DELETE /videos/:videoName
@@ -0,0 +1,19 @@
+package org.khushal.catalogservice.exception;
+
+/**
+ * Thrown when the ffmpeg scheduler cannot accept more work.
+ * Carries a Retry-After hint (in seconds) for the HTTP response.
+ */
+public class FfmpegQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public FfmpegQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package org.khushal.catalogservice.exception;
+
+/**
+ * Thrown when a resumable upload chunk does not start at the session's current offset.
+ * Carries the offset the client should resume from.
+ */
+public class UploadOffsetMismatchException extends RuntimeException {
+
+    private final long expectedOffset;
+
+    public UploadOffsetMismatchException(String message, long expectedOffset) {
+        super(message);
+        this.expectedOffset = expectedOffset;
+    }
+
+    public long getExpectedOffset() {
+        return expectedOffset;
+    }
+}
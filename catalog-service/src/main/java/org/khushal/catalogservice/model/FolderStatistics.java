@@ -0,0 +1,49 @@
+package org.khushal.catalogservice.model;
+
+/**
+ * Snapshot of a folder's media totals, as kept by the folder index
+ */
+public class FolderStatistics {
+    private final int imageCount;
+    private final int videoCount;
+    private final long imageBytes;
+    private final long videoBytes;
+    // Epoch millis of the most recently modified media file, or null for an empty folder
+    private final Long lastModified;
+
+    public FolderStatistics(int imageCount, int videoCount, long imageBytes, long videoBytes, Long lastModified) {
+        this.imageCount = imageCount;
+        this.videoCount = videoCount;
+        this.imageBytes = imageBytes;
+        this.videoBytes = videoBytes;
+        this.lastModified = lastModified;
+    }
+
+    public int getImageCount() {
+        return imageCount;
+    }
+
+    public int getVideoCount() {
+        return videoCount;
+    }
+
+    public int getTotalMedia() {
+        return imageCount + videoCount;
+    }
+
+    public long getImageBytes() {
+        return imageBytes;
+    }
+
+    public long getVideoBytes() {
+        return videoBytes;
+    }
+
+    public long getTotalBytes() {
+        return imageBytes + videoBytes;
+    }
+
+    public Long getLastModified() {
+        return lastModified;
+    }
+}
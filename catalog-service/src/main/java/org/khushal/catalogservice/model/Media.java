@@ -1,12 +1,18 @@
 package org.khushal.catalogservice.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "media")
+// Paged listings in sequence order and per-type counts of a folder
+@CompoundIndex(name = "folder_type_sequence",
+        def = "{'category_id': 1, 'folder_name': 1, 'media_type': 1, 'sequence_number': 1}")
+// One record per file; existence checks and deletes by name
+@CompoundIndex(name = "folder_file", def = "{'category_id': 1, 'folder_name': 1, 'file_name': 1}", unique = true)
 public class Media {
     @Id
     private String id;  
@@ -41,6 +47,12 @@ public class Media {
     @Field("sequence_number")
     private Integer sequenceNumber; // For ordering images in series
     
+    @Field("width")
+    private Integer width; // Pixels, read from the file headers; null if unknown
+    
+    @Field("height")
+    private Integer height;
+    
     // Constructors
     public Media() {
         this.uploadDate = LocalDateTime.now();
@@ -149,6 +161,22 @@ public class Media {
         this.sequenceNumber = sequenceNumber;
     }
     
+    public Integer getWidth() {
+        return width;
+    }
+    
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+    
+    public Integer getHeight() {
+        return height;
+    }
+    
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+    
     // Media Type Enum - Limited to Images and Videos only
     public enum MediaType {
         IMAGE("image"),
@@ -0,0 +1,35 @@
+package org.khushal.catalogservice.model;
+
+/**
+ * What the content of a media file turned out to be, read from its headers without decoding it
+ */
+public class MediaInfo {
+
+    private final String format;
+    private final Integer width;
+    private final Integer height;
+
+    public MediaInfo(String format, Integer width, Integer height) {
+        this.format = format;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Container format: jpeg, png, gif, webp, bmp, isobmff (MP4/MOV), ebml (MKV/WebM), avi, flv or asf (WMV)
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Pixel width, or null when the format's headers do not give it cheaply
+     */
+    public Integer getWidth() {
+        return width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,45 @@
+package org.khushal.catalogservice.model;
+
+/**
+ * A file written by an upload, with the size and SHA-256 computed while it was streamed to disk, and what
+ * its headers say it is
+ */
+public class StoredFile {
+
+    private final String fileName;
+    private final String originalName;
+    private final long size;
+    private final String sha256;
+    private final MediaInfo mediaInfo;
+
+    public StoredFile(String fileName, String originalName, long size, String sha256, MediaInfo mediaInfo) {
+        this.fileName = fileName;
+        this.originalName = originalName;
+        this.size = size;
+        this.sha256 = sha256;
+        this.mediaInfo = mediaInfo;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getOriginalName() {
+        return originalName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * Detected format and pixel size, or null if the content was not probed
+     */
+    public MediaInfo getMediaInfo() {
+        return mediaInfo;
+    }
+}
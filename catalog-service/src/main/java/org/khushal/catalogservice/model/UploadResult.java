@@ -0,0 +1,71 @@
+package org.khushal.catalogservice.model;
+
+/**
+ * Outcome of one file in an upload batch: the stored file, or why it was rejected
+ */
+public class UploadResult {
+
+    private final String originalName;
+    private final StoredFile file;
+    private final String error;
+
+    private UploadResult(String originalName, StoredFile file, String error) {
+        this.originalName = originalName;
+        this.file = file;
+        this.error = error;
+    }
+
+    public static UploadResult stored(StoredFile file) {
+        return new UploadResult(file.getOriginalName(), file, null);
+    }
+
+    public static UploadResult failed(String originalName, String error) {
+        return new UploadResult(originalName, null, error);
+    }
+
+    public String getOriginalName() {
+        return originalName;
+    }
+
+    /**
+     * Name the file was stored under, or null if it failed
+     */
+    public String getFileName() {
+        return file == null ? null : file.getFileName();
+    }
+
+    public Long getSize() {
+        return file == null ? null : file.getSize();
+    }
+
+    public String getSha256() {
+        return file == null ? null : file.getSha256();
+    }
+
+    /**
+     * Container format detected from the content, or null if it failed or was not probed
+     */
+    public String getFormat() {
+        return mediaInfo() == null ? null : mediaInfo().getFormat();
+    }
+
+    public Integer getWidth() {
+        return mediaInfo() == null ? null : mediaInfo().getWidth();
+    }
+
+    public Integer getHeight() {
+        return mediaInfo() == null ? null : mediaInfo().getHeight();
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return file != null;
+    }
+
+    private MediaInfo mediaInfo() {
+        return file == null ? null : file.getMediaInfo();
+    }
+}
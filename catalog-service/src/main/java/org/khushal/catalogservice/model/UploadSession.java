@@ -0,0 +1,115 @@
+package org.khushal.catalogservice.model;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * State of a resumable upload: where it goes, how much has arrived and the running SHA-256 of those bytes.
+ * One chunk write or completion runs at a time (tryBegin/end). Closing never waits for it: the running
+ * operation sees the session closed and stops, and whoever finishes last deletes the part file.
+ */
+public class UploadSession {
+
+    private final String id;
+    private final String categoryName;
+    private final String folderName;
+    private final String originalName;
+    private final long totalSize;
+    private final Path partFile;
+    private final MessageDigest digest;
+    private final long createdAt;
+    private volatile long offset;
+    private volatile long lastActivity;
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private volatile boolean closed;
+
+    public UploadSession(String id, String categoryName, String folderName, String originalName,
+                         long totalSize, Path partFile, MessageDigest digest) {
+        this.id = id;
+        this.categoryName = categoryName;
+        this.folderName = folderName;
+        this.originalName = originalName;
+        this.totalSize = totalSize;
+        this.partFile = partFile;
+        this.digest = digest;
+        this.createdAt = System.currentTimeMillis();
+        this.lastActivity = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public String getFolderName() {
+        return folderName;
+    }
+
+    public String getOriginalName() {
+        return originalName;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public Path getPartFile() {
+        return partFile;
+    }
+
+    public MessageDigest getDigest() {
+        return digest;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    public void touch() {
+        this.lastActivity = System.currentTimeMillis();
+    }
+
+    public boolean isComplete() {
+        return offset == totalSize;
+    }
+
+    /**
+     * Claim the session for one chunk write or completion
+     * @return false if another one is running
+     */
+    public boolean tryBegin() {
+        return busy.compareAndSet(false, true);
+    }
+
+    public void end() {
+        busy.set(false);
+    }
+
+    public boolean isBusy() {
+        return busy.get();
+    }
+
+    public void close() {
+        this.closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
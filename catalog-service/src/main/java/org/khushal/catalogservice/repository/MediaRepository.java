@@ -0,0 +1,21 @@
+package org.khushal.catalogservice.repository;
+
+import org.khushal.catalogservice.model.Media;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface MediaRepository extends MongoRepository<Media, String> {
+    Page<Media> findByCategoryIdAndFolderNameAndMediaType(String categoryId, String folderName,
+                                                          Media.MediaType mediaType, Pageable pageable);
+
+    List<Media> findByCategoryIdAndFolderName(String categoryId, String folderName);
+
+    boolean existsByCategoryIdAndFolderNameAndFileName(String categoryId, String folderName, String fileName);
+
+    long deleteByCategoryIdAndFolderNameAndFileName(String categoryId, String folderName, String fileName);
+
+    long deleteByCategoryIdAndFolderName(String categoryId, String folderName);
+}
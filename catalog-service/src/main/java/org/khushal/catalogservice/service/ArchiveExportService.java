@@ -0,0 +1,185 @@
+package org.khushal.catalogservice.service;
+
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a folder, or every folder of a category, as a ZIP archive straight to an output stream.
+ * Nothing is staged: entries are written as the files are read, through fixed-size buffers, so each export
+ * holds the same small amount of memory however large the folder is, and exports run side by side on their
+ * request threads. Media that is already compressed (JPEG, PNG, MP4, MP3, ...) is STORED rather than
+ * deflated; a STORED entry needs its CRC-32 up front, which costs one extra read of the file, so CRCs are
+ * remembered per file (by inode, size and modification time) for the next export.
+ * Hidden files (manifest, sequence mark, staged uploads) are left out.
+ */
+@Service
+public class ArchiveExportService {
+
+    private static final Path BASE_DIR = Paths.get("public", "images");
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp",
+            "mp4", "avi", "mov", "wmv", "mkv", "flv", "webm",
+            "mp3", "aac", "m4a", "ogg", "zip");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CRC_CACHE_SIZE = 10_000;
+
+    // File identity (inode where available, else path) with size and mtime -> CRC-32 of its contents
+    private final Map<String, Long> crcCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > CRC_CACHE_SIZE;
+                }
+            });
+
+    /**
+     * Folder of a category, or null if it does not exist
+     */
+    public Path findFolder(String categoryName, String folderName) {
+        Path category = findCategory(categoryName);
+        return category == null ? null : child(category, folderName);
+    }
+
+    /**
+     * Category directory, or null if it does not exist
+     */
+    public Path findCategory(String categoryName) {
+        return child(BASE_DIR, categoryName);
+    }
+
+    /**
+     * Write one folder as a ZIP; entries are named folder/file
+     */
+    public void exportFolder(Path folder, OutputStream output) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        writeFolder(zip, folder, folder.getFileName().toString() + "/", buffer);
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * Write every folder of a category as one ZIP; entries are named category/folder/file
+     */
+    public void exportCategory(Path category, OutputStream output) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        String prefix = category.getFileName().toString() + "/";
+        for (Path folder : sortedChildren(category, Files::isDirectory)) {
+            writeFolder(zip, folder, prefix + folder.getFileName() + "/", buffer);
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeFolder(ZipOutputStream zip, Path folder, String prefix, byte[] buffer) throws IOException {
+        for (Path file : sortedChildren(folder, Files::isRegularFile)) {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                // Deleted since the listing
+                continue;
+            }
+
+            String fileName = file.getFileName().toString();
+            ZipEntry entry = new ZipEntry(prefix + fileName);
+            entry.setLastModifiedTime(attributes.lastModifiedTime());
+            if (COMPRESSED_EXTENSIONS.contains(extension(fileName))) {
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(attributes.size());
+                entry.setCompressedSize(attributes.size());
+                entry.setCrc(crc(file, attributes, buffer));
+            }
+
+            zip.putNextEntry(entry);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+                long remaining = attributes.size();
+                // Exactly the size announced in the entry, even if the file grows meanwhile
+                while (remaining > 0) {
+                    wrapped.clear().limit((int) Math.min(buffer.length, remaining));
+                    int read = channel.read(wrapped);
+                    if (read == -1) {
+                        throw new IOException("File shrank during export: " + file);
+                    }
+                    zip.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+            zip.closeEntry();
+        }
+    }
+
+    private long crc(Path file, BasicFileAttributes attributes, byte[] buffer) throws IOException {
+        Object identity = attributes.fileKey() != null ? attributes.fileKey() : file.toAbsolutePath();
+        String key = identity + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+        Long cached = crcCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            long remaining = attributes.size();
+            while (remaining > 0) {
+                wrapped.clear().limit((int) Math.min(buffer.length, remaining));
+                int read = channel.read(wrapped);
+                if (read == -1) {
+                    throw new IOException("File shrank during export: " + file);
+                }
+                crc.update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        crcCache.put(key, crc.getValue());
+        return crc.getValue();
+    }
+
+    /**
+     * Non-hidden entries of a directory matching the filter, by name
+     */
+    private List<Path> sortedChildren(Path directory, DirectoryStream.Filter<Path> filter) throws IOException {
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                path -> !path.getFileName().toString().startsWith(".") && filter.accept(path))) {
+            stream.forEach(children::add);
+        }
+        children.sort(Comparator.comparing(path -> path.getFileName().toString()));
+        return children;
+    }
+
+    /**
+     * Existing directory directly under the parent; names that would leave it are rejected
+     */
+    private Path child(Path parent, String name) {
+        Path child = parent.resolve(name).normalize();
+        if (name.startsWith(".") || !parent.normalize().equals(child.getParent())) {
+            throw new IllegalArgumentException("Invalid name: " + name);
+        }
+        return Files.isDirectory(child) ? child : null;
+    }
+
+    private String extension(String fileName) {
+        int lastDotIndex = fileName.lastIndexOf('.');
+        if (lastDotIndex > 0 && lastDotIndex < fileName.length() - 1) {
+            return fileName.substring(lastDotIndex + 1).toLowerCase();
+        }
+        return "";
+    }
+}
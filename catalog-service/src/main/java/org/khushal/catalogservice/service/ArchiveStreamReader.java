@@ -0,0 +1,279 @@
+package org.khushal.catalogservice.service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the file entries of a ZIP, TAR or gzip-compressed TAR archive one after another, straight from a
+ * stream. Nothing is buffered beyond the current entry's header, so an entry can be written to its
+ * destination while the archive is still arriving. The format is recognised from the leading bytes.
+ */
+public abstract class ArchiveStreamReader {
+
+    /**
+     * Reader over the archive, whose format is detected from its first bytes
+     */
+    public static ArchiveStreamReader open(InputStream in) throws IOException {
+        BufferedInputStream input = new BufferedInputStream(in, 64 * 1024);
+        input.mark(4);
+        int first = input.read();
+        int second = input.read();
+        input.reset();
+        if (first == 'P' && second == 'K') {
+            return new Zip(input);
+        }
+        if (first == 0x1f && second == 0x8b) {
+            return new Tar(new BufferedInputStream(new GZIPInputStream(input, 64 * 1024), 64 * 1024));
+        }
+        if (first == -1) {
+            throw new IllegalArgumentException("Archive is empty");
+        }
+        // TAR has no magic at its start (the "ustar" mark is at offset 257); its headers are checked as read
+        return new Tar(input);
+    }
+
+    /**
+     * Advance to the next regular file, skipping directories and whatever is left of the current entry
+     * @return the entry, or null at the end of the archive
+     */
+    public abstract Entry nextEntry() throws IOException;
+
+    /**
+     * One file in the archive; its stream ends with the file's data
+     */
+    public static class Entry {
+        private final String name;
+        private final InputStream inputStream;
+
+        Entry(String name, InputStream inputStream) {
+            this.name = name;
+            this.inputStream = inputStream;
+        }
+
+        /**
+         * Path of the file inside the archive, with forward slashes
+         */
+        public String getName() {
+            return name;
+        }
+
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+    }
+
+    private static class Zip extends ArchiveStreamReader {
+        private final ZipInputStream zip;
+
+        Zip(InputStream input) {
+            this.zip = new ZipInputStream(input);
+        }
+
+        @Override
+        public Entry nextEntry() throws IOException {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!entry.isDirectory()) {
+                    // Closing an entry's stream must not close the archive
+                    return new Entry(entry.getName(), new FilterInputStream(zip) {
+                        @Override
+                        public void close() {
+                        }
+                    });
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * POSIX ustar with the GNU long-name and pax path extensions
+     */
+    private static class Tar extends ArchiveStreamReader {
+        private static final int BLOCK = 512;
+        // Largest long-name or pax header read into memory; real ones are a few hundred bytes
+        private static final int MAX_HEADER_DATA = 64 * 1024;
+
+        private final InputStream input;
+        private final byte[] header = new byte[BLOCK];
+        private BoundedInputStream current;
+        private long padding;
+
+        Tar(InputStream input) {
+            this.input = input;
+        }
+
+        @Override
+        public Entry nextEntry() throws IOException {
+            String longName = null;
+            while (true) {
+                skipCurrent();
+                if (input.readNBytes(header, 0, BLOCK) < BLOCK || isZeroBlock()) {
+                    // Two zero blocks (or a truncated tail) end the archive
+                    return null;
+                }
+                if (!checksumMatches()) {
+                    throw new IllegalArgumentException("Not a ZIP or TAR archive");
+                }
+
+                long size = parseNumber(124, 12);
+                if (size < 0) {
+                    throw new IllegalArgumentException("Malformed TAR header");
+                }
+                char type = (char) header[156];
+                current = new BoundedInputStream(input, size);
+                padding = (BLOCK - size % BLOCK) % BLOCK;
+
+                if (type == 'L') {
+                    // GNU: the data is the next entry's full name
+                    longName = trimNul(readHeaderData(size));
+                } else if (type == 'x') {
+                    // pax: "length key=value\n" records; only the path matters here
+                    String path = paxPath(readHeaderData(size));
+                    if (path != null) {
+                        longName = path;
+                    }
+                } else if (type == '0' || type == '\0' || type == '7') {
+                    String name = longName != null ? longName : headerName();
+                    return new Entry(name, current);
+                } else {
+                    // Directory, link, device or other extension header
+                    longName = null;
+                }
+            }
+        }
+
+        /**
+         * Data of a long-name or pax header, refused before reading when its declared size is implausible
+         */
+        private String readHeaderData(long size) throws IOException {
+            if (size > MAX_HEADER_DATA) {
+                throw new IllegalArgumentException("TAR extension header too large: " + size + " bytes");
+            }
+            return new String(current.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        private void skipCurrent() throws IOException {
+            if (current != null) {
+                current.transferTo(OutputStream.nullOutputStream());
+                input.skipNBytes(padding);
+                current = null;
+            }
+        }
+
+        private String headerName() {
+            String name = field(0, 100);
+            String prefix = new String(header, 257, 6, StandardCharsets.US_ASCII).startsWith("ustar")
+                    ? field(345, 155) : "";
+            return prefix.isEmpty() ? name : prefix + "/" + name;
+        }
+
+        private boolean isZeroBlock() {
+            for (byte b : header) {
+                if (b != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean checksumMatches() {
+            long expected;
+            try {
+                expected = parseNumber(148, 8);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            long sum = 0;
+            for (int i = 0; i < BLOCK; i++) {
+                // The checksum field itself counts as spaces
+                sum += (i >= 148 && i < 156) ? ' ' : header[i] & 0xff;
+            }
+            return sum == expected;
+        }
+
+        /**
+         * Octal number, or GNU base-256 when the high bit of the first byte is set
+         */
+        private long parseNumber(int offset, int length) {
+            if ((header[offset] & 0x80) != 0) {
+                long value = header[offset] & 0x7f;
+                for (int i = 1; i < length; i++) {
+                    value = (value << 8) | (header[offset + i] & 0xff);
+                }
+                return value;
+            }
+            String text = field(offset, length).trim();
+            if (text.isEmpty()) {
+                return 0;
+            }
+            try {
+                return Long.parseLong(text, 8);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed TAR header");
+            }
+        }
+
+        private String field(int offset, int length) {
+            return trimNul(new String(header, offset, length, StandardCharsets.UTF_8));
+        }
+
+        private static String trimNul(String value) {
+            int nul = value.indexOf('\0');
+            return nul >= 0 ? value.substring(0, nul) : value;
+        }
+
+        private static String paxPath(String records) {
+            for (String record : records.split("\n")) {
+                int space = record.indexOf(' ');
+                if (space > 0 && record.startsWith("path=", space + 1)) {
+                    return record.substring(space + 1 + "path=".length());
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The next {@code remaining} bytes of the archive; closing it leaves the archive open
+     */
+    private static class BoundedInputStream extends InputStream {
+        private final InputStream input;
+        private long remaining;
+
+        BoundedInputStream(InputStream input, long remaining) {
+            this.input = input;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = input.read(target, offset, (int) Math.min(length, remaining));
+            if (read == -1) {
+                throw new IOException("Unexpected end of TAR archive");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
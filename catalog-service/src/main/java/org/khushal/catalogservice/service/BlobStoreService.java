@@ -0,0 +1,306 @@
+package org.khushal.catalogservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for uploaded media: one file per distinct SHA-256 under {dir}/ab/cd/{hash}, with every
+ * folder entry a hard link to it. Uploading the same logo into ten folders stores its bytes once.
+ * The file system's link count is the reference count: a blob whose only link is the store itself is
+ * unreferenced. deleteFile frees the blob as soon as its last folder entry goes, and a periodic sweep frees
+ * blobs whose entries were removed by other means (video-service cleanup, manual deletes).
+ * Blobs are made read-only so an in-place write can never change the other folders' copies. Every folder
+ * entry shares the blob's inode, so media files in public/images are read-only too: deleting, renaming and
+ * replacing them (write a new file, move it over) work as usual, only opening one for writing fails.
+ * The store must be on the same file system as public/images. If it is not, deduplication is turned off at
+ * startup and uploads are stored as plain files.
+ */
+@Service
+public class BlobStoreService {
+
+    // Folders whose entries link to the blobs
+    private static final Path MEDIA_ROOT = Paths.get("public", "images");
+
+    private static final Pattern SHA256_PATTERN = Pattern.compile("^[0-9a-f]{64}$");
+
+    // Extended attribute holding the hash, shared by every link to the inode
+    private static final String HASH_ATTRIBUTE = "sha256";
+
+    private static final int STRIPES = 64;
+
+    private final Object[] locks = new Object[STRIPES];
+    private final AtomicLong linkedBytes = new AtomicLong();
+    private final AtomicLong freedBlobs = new AtomicLong();
+
+    private ScheduledExecutorService sweeper;
+
+    @Value("${catalog.blobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.blobs.dir:blobs}")
+    private String blobsDir;
+
+    @Value("${catalog.blobs.sweep-minutes:30}")
+    private long sweepMinutes;
+
+    public BlobStoreService() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(Paths.get(blobsDir));
+        Files.createDirectories(MEDIA_ROOT);
+        if (!Files.getFileStore(Paths.get(blobsDir)).equals(Files.getFileStore(MEDIA_ROOT))) {
+            // Staged uploads could not be moved into the store atomically, nor linked back out of it
+            System.err.println("Blob store " + blobsDir + " is not on the same file system as " + MEDIA_ROOT
+                    + "; storing uploads as plain files");
+            enabled = false;
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blob-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::sweep, sweepMinutes, sweepMinutes, TimeUnit.MINUTES);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean exists(String sha256) {
+        return Files.isRegularFile(blobPath(sha256));
+    }
+
+    /**
+     * Put staged content into the store (or drop it if the store already has those bytes) and link the
+     * destination to the blob. The staged file is always consumed.
+     * @throws FileAlreadyExistsException if the destination exists
+     */
+    public void storeAndLink(Path staged, String sha256, Path destination) throws IOException {
+        Path blob = blobPath(sha256);
+        synchronized (lock(sha256)) {
+            if (Files.isRegularFile(blob)) {
+                Files.delete(staged);
+                linkedBytes.addAndGet(Files.size(blob));
+            } else {
+                Files.createDirectories(blob.getParent());
+                moveIntoStore(staged, blob);
+                protect(blob, sha256);
+            }
+            linkOrCopy(blob, destination);
+        }
+    }
+
+    /**
+     * Add a folder entry for content already in the store
+     * @return false if the store does not have it
+     */
+    public boolean link(String sha256, Path destination) throws IOException {
+        Path blob = blobPath(sha256);
+        synchronized (lock(sha256)) {
+            if (!Files.isRegularFile(blob)) {
+                return false;
+            }
+            linkOrCopy(blob, destination);
+            linkedBytes.addAndGet(Files.size(blob));
+            return true;
+        }
+    }
+
+    /**
+     * Delete a folder entry, and its blob if this was the last entry pointing at it
+     */
+    public boolean delete(Path file) throws IOException {
+        if (!enabled || linkCount(file) < 2) {
+            // Not linked into the store (plain file, or store disabled)
+            return Files.deleteIfExists(file);
+        }
+        String sha256 = hashOf(file);
+        synchronized (lock(sha256)) {
+            boolean deleted = Files.deleteIfExists(file);
+            freeIfUnreferenced(blobPath(sha256));
+            return deleted;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "enabled", enabled,
+                "dir", blobsDir,
+                "dedupedBytes", linkedBytes.get(),
+                "freedBlobs", freedBlobs.get());
+    }
+
+    /**
+     * Free every blob that no folder links to any more
+     */
+    public void sweep() {
+        try {
+            Files.walkFileTree(Paths.get(blobsDir), new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path blob, BasicFileAttributes attributes) {
+                    String sha256 = blob.getFileName().toString();
+                    if (SHA256_PATTERN.matcher(sha256).matches()) {
+                        synchronized (lock(sha256)) {
+                            freeIfUnreferenced(blob);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            // Runs on a fixed-rate schedule; an exception would cancel it
+            System.err.println("Blob sweep failed: " + e.getMessage());
+        }
+    }
+
+    private void freeIfUnreferenced(Path blob) {
+        try {
+            if (Files.isRegularFile(blob) && linkCount(blob) == 1) {
+                Files.delete(blob);
+                freedBlobs.incrementAndGet();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to free blob " + blob + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rename the staged file into the store. Across file systems (a mount changed since startup), copy it into
+     * the store's directory first, so the blob still appears complete or not at all.
+     */
+    private void moveIntoStore(Path staged, Path blob) throws IOException {
+        try {
+            Files.move(staged, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Path temp = Files.createTempFile(blob.getParent(), ".blob-", ".part");
+            try {
+                Files.copy(staged, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            Files.delete(staged);
+        }
+    }
+
+    private void linkOrCopy(Path blob, Path destination) throws IOException {
+        try {
+            Files.createLink(destination, blob);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            // No hard links between the store and this folder; keep a private copy instead
+            Files.copy(blob, destination);
+        }
+    }
+
+    /**
+     * Record the hash on the inode and make it read-only
+     */
+    private void protect(Path blob, String sha256) {
+        try {
+            UserDefinedFileAttributeView view = Files.getFileAttributeView(blob, UserDefinedFileAttributeView.class);
+            if (view != null) {
+                view.write(HASH_ATTRIBUTE, StandardCharsets.US_ASCII.encode(sha256));
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            // Without the attribute, deletes hash the file instead
+        }
+        try {
+            Files.setPosixFilePermissions(blob, PosixFilePermissions.fromString("r--r--r--"));
+        } catch (IOException | UnsupportedOperationException e) {
+            // Not a POSIX file system
+        }
+    }
+
+    /**
+     * Hash of a linked file: from the inode's attribute when present, else by reading it
+     */
+    private String hashOf(Path file) throws IOException {
+        try {
+            UserDefinedFileAttributeView view = Files.getFileAttributeView(file, UserDefinedFileAttributeView.class);
+            if (view != null && view.list().contains(HASH_ATTRIBUTE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(view.size(HASH_ATTRIBUTE));
+                view.read(HASH_ATTRIBUTE, buffer);
+                buffer.flip();
+                String sha256 = StandardCharsets.US_ASCII.decode(buffer).toString();
+                if (SHA256_PATTERN.matcher(sha256).matches()) {
+                    return sha256;
+                }
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            // Fall back to hashing
+        }
+
+        MessageDigest digest = sha256Digest();
+        try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private int linkCount(Path file) {
+        try {
+            return (Integer) Files.getAttribute(file, "unix:nlink");
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return 1;
+        }
+    }
+
+    private Path blobPath(String sha256) {
+        if (!SHA256_PATTERN.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("Invalid SHA-256: " + sha256);
+        }
+        return Paths.get(blobsDir, sha256.substring(0, 2), sha256.substring(2, 4), sha256);
+    }
+
+    private Object lock(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), STRIPES)];
+    }
+
+    private MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.khushal.catalogservice.service;
+
+import org.khushal.catalogservice.exception.FfmpegQueueFullException;
+import org.khushal.ffmpeg.ProcessLane;
+import org.khushal.ffmpeg.ProcessLaneFullException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Caps the number of ffmpeg processes catalog-service runs at once (e.g. /convert_videos).
+ * Callers beyond the limit wait in a bounded queue; when that is full they are rejected
+ * with a Retry-After hint instead of piling more encoders onto the box.
+ * Callers wait on their request thread, so the queue capacity also bounds how many servlet threads
+ * ffmpeg work can hold (max-concurrent + queue-capacity, well below Tomcat's pool).
+ */
+@Service
+public class FfmpegScheduler {
+
+    // Retry-After used before any process has finished and we have no timing history
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 30;
+
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final ProcessLane lane;
+
+    @Autowired
+    public FfmpegScheduler(@Value("${ffmpeg.max-concurrent:0}") int configuredMaxConcurrent,
+                           @Value("${ffmpeg.queue-capacity:8}") int queueCapacity) {
+        // libx264 already spreads one encode over several threads, so by default allow one process per two cores
+        this.maxConcurrent = configuredMaxConcurrent > 0
+                ? configuredMaxConcurrent
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.lane = new ProcessLane(maxConcurrent, this.queueCapacity);
+    }
+
+    /**
+     * Run an ffmpeg process once a permit is free, feeding each output line to the handler
+     * @return process exit code
+     * @throws FfmpegQueueFullException if the wait queue is full
+     */
+    public int run(ProcessBuilder processBuilder, Consumer<String> outputHandler)
+            throws IOException, InterruptedException {
+        try {
+            return lane.run(processBuilder, outputHandler);
+        } catch (ProcessLaneFullException e) {
+            throw new FfmpegQueueFullException(e.getMessage(), estimateRetryAfterSeconds());
+        }
+    }
+
+    /**
+     * Rough time until a slot frees up, based on the average ffmpeg run time so far
+     */
+    public long estimateRetryAfterSeconds() {
+        if (lane.getCompleted() == 0) {
+            return DEFAULT_RETRY_AFTER_SECONDS;
+        }
+        long estimateMillis = lane.getAvgRunMillis() * (lane.getWaiting() + 1) / maxConcurrent;
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(estimateMillis));
+    }
+
+    /**
+     * Queue depth and wait times for sizing nodes
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("running", lane.getRunning());
+        stats.put("waiting", lane.getWaiting());
+        stats.put("completed", lane.getCompleted());
+        stats.put("rejected", lane.getRejected());
+        stats.put("avgWaitMillis", lane.getAvgWaitMillis());
+        stats.put("maxWaitMillis", lane.getMaxWaitMillis());
+        stats.put("avgRunMillis", lane.getAvgRunMillis());
+        return stats;
+    }
+}
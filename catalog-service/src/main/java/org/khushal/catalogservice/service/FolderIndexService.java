@@ -0,0 +1,445 @@
+package org.khushal.catalogservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.khushal.catalogservice.model.FolderStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * In-memory index of media folders (public/images/<category>/<folder>).
+ * A folder is scanned once on first use; after that a WatchService and the service's own write paths keep
+ * its image and video entries, sizes, slide manifest, highest image sequence and running statistics
+ * current, so listings and statistics are memory reads. Images are listed in slide order: the folder's
+ * manifest first, then unlisted images by sequence number.
+ * A folder is rescanned when the watcher overflows or cannot watch it, and after a configurable interval
+ * as a safety net against missed events.
+ */
+@Service
+public class FolderIndexService {
+
+    public static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp", "bmp");
+    public static final Set<String> VIDEO_EXTENSIONS = Set.of("mp4", "avi", "mov", "wmv", "mkv", "flv", "webm");
+
+    // Slide order override, one image name per line; written by MediaService.reorderImages
+    public static final String MANIFEST_FILE = ".manifest";
+
+    // Numbered images (001.jpg, ..., 999.jpg, 1000.jpg, ...) that take part in sequence numbering
+    private static final Pattern NUMBERED_IMAGE_PATTERN = Pattern.compile("^(\\d{3,9})\\.(jpg|jpeg|png|gif|webp|bmp)$");
+
+    // Numbered images by sequence number, then everything else by name
+    private static final Comparator<String> SEQUENCE_ORDER = Comparator
+            .comparing((String name) -> Optional.ofNullable(sequenceNumber(name)).orElse(Integer.MAX_VALUE))
+            .thenComparing(Comparator.naturalOrder());
+
+    private final Map<Path, FolderEntry> folders = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedFolders = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    // Full rescan interval per folder, as a fallback for events the watcher may have missed
+    @Value("${catalog.index.rescan-minutes:10}")
+    private long rescanMinutes;
+
+    /**
+     * Sequence number of a numbered image (42 for 042.jpg), or null for any other name
+     */
+    public static Integer sequenceNumber(String fileName) {
+        Matcher matcher = NUMBERED_IMAGE_PATTERN.matcher(fileName);
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : null;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Folder watching unavailable, folder index falls back to rescans: " + e.getMessage());
+            return;
+        }
+        watchThread = new Thread(this::watchLoop, "folder-index-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Image file names in the folder in slide order (empty when the folder does not exist)
+     */
+    public List<String> listImages(Path folder) {
+        FolderEntry entry = entry(folder);
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        synchronized (entry) {
+            return new ArrayList<>(entry.orderedImages());
+        }
+    }
+
+    /**
+     * Video file names in the folder, sorted by name (empty when the folder does not exist)
+     */
+    public List<String> listVideos(Path folder) {
+        FolderEntry entry = entry(folder);
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        synchronized (entry) {
+            return new ArrayList<>(entry.videos.keySet());
+        }
+    }
+
+    /**
+     * Size in bytes of an indexed file, or -1 when unknown
+     */
+    public long getSize(Path folder, String fileName) {
+        FolderEntry entry = entry(folder);
+        if (entry == null) {
+            return -1;
+        }
+        synchronized (entry) {
+            Long size = entry.images.getOrDefault(fileName, entry.videos.get(fileName));
+            return size == null ? -1 : size;
+        }
+    }
+
+    /**
+     * Counts, byte totals and newest modification time of the folder's media, kept up to date as files
+     * come and go (null when the folder does not exist)
+     */
+    public FolderStatistics getStatistics(Path folder) {
+        FolderEntry entry = entry(folder);
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            return new FolderStatistics(entry.images.size(), entry.videos.size(), entry.imageBytes,
+                    entry.videoBytes, entry.modifiedTimes.isEmpty() ? null : entry.modifiedTimes.lastKey());
+        }
+    }
+
+    /**
+     * Highest sequence number among the folder's numbered images (0 when there are none)
+     */
+    public int getMaxImageSequence(Path folder) {
+        FolderEntry entry = entry(folder);
+        if (entry == null) {
+            return 0;
+        }
+        synchronized (entry) {
+            return entry.sequences.isEmpty() ? 0 : entry.sequences.lastKey();
+        }
+    }
+
+    /**
+     * Record a file written by this service, without waiting for the watcher
+     */
+    public void recordFile(Path folder, String fileName, long size) {
+        Path key = key(folder);
+        FolderEntry entry = folders.get(key);
+        if (entry != null) {
+            long modified;
+            try {
+                modified = Files.getLastModifiedTime(key.resolve(fileName)).toMillis();
+            } catch (IOException e) {
+                modified = System.currentTimeMillis();
+            }
+            synchronized (entry) {
+                entry.put(fileName, size, modified);
+            }
+        }
+    }
+
+    /**
+     * Re-read the folder's manifest after this service rewrote it, without waiting for the watcher
+     */
+    public void reloadManifest(Path folder) {
+        Path key = key(folder);
+        FolderEntry entry = folders.get(key);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.setManifest(readManifest(key));
+            }
+        }
+    }
+
+    /**
+     * Record a file deleted by this service, without waiting for the watcher
+     */
+    public void removeFile(Path folder, String fileName) {
+        FolderEntry entry = folders.get(key(folder));
+        if (entry != null) {
+            synchronized (entry) {
+                entry.remove(fileName);
+            }
+        }
+    }
+
+    /**
+     * Indexed entry for the folder, scanning it if it is new, stale or due for a rescan
+     */
+    private FolderEntry entry(Path folder) {
+        Path key = key(folder);
+        FolderEntry entry = folders.get(key);
+        if (entry != null && !entry.needsRescan(rescanMinutes)) {
+            return entry;
+        }
+        if (!Files.isDirectory(key)) {
+            folders.remove(key);
+            return null;
+        }
+
+        FolderEntry fresh = folders.computeIfAbsent(key, k -> new FolderEntry());
+        synchronized (fresh) {
+            if (fresh.needsRescan(rescanMinutes)) {
+                // Watch before scanning so nothing written during the scan is missed
+                fresh.watched = fresh.watched || watch(key);
+                scan(key, fresh);
+            }
+        }
+        return fresh;
+    }
+
+    private boolean watch(Path folder) {
+        if (watchService == null) {
+            return false;
+        }
+        try {
+            watchedFolders.put(folder.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), folder);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Cannot watch " + folder + ", relying on rescans: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void scan(Path folder, FolderEntry entry) {
+        entry.clear();
+        entry.setManifest(readManifest(folder));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (Path file : stream) {
+                try {
+                    // One stat per file gives type, size and modification time together
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        entry.put(file.getFileName().toString(), attributes.size(),
+                                attributes.lastModifiedTime().toMillis());
+                    }
+                } catch (IOException e) {
+                    // Deleted between listing and stat
+                }
+            }
+            entry.scannedAt = System.currentTimeMillis();
+            entry.stale = false;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to scan folder " + folder + ": " + e.getMessage());
+        }
+    }
+
+    private List<String> readManifest(Path folder) {
+        Path manifest = folder.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return List.of();
+        }
+        try {
+            List<String> names = new ArrayList<>();
+            for (String line : Files.readAllLines(manifest)) {
+                if (!line.isBlank()) {
+                    names.add(line.trim());
+                }
+            }
+            return names;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable manifest " + manifest + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void watchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path folder = watchedFolders.get(watchKey);
+            FolderEntry entry = folder == null ? null : folders.get(folder);
+            if (entry != null) {
+                synchronized (entry) {
+                    for (WatchEvent<?> event : watchKey.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            entry.stale = true;
+                            continue;
+                        }
+                        String fileName = ((Path) event.context()).getFileName().toString();
+                        Path file = folder.resolve(fileName);
+                        if (fileName.equals(MANIFEST_FILE)) {
+                            entry.setManifest(readManifest(folder));
+                        } else if (event.kind() == ENTRY_DELETE) {
+                            entry.remove(fileName);
+                        } else {
+                            try {
+                                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                                if (attributes.isRegularFile()) {
+                                    entry.put(fileName, attributes.size(), attributes.lastModifiedTime().toMillis());
+                                }
+                            } catch (IOException e) {
+                                entry.remove(fileName);
+                            }
+                        }
+                    }
+                }
+            } else {
+                watchKey.pollEvents();
+            }
+
+            if (!watchKey.reset()) {
+                // Folder deleted or unmounted; drop it so the next access rescans or reports it missing
+                watchedFolders.remove(watchKey);
+                if (folder != null) {
+                    folders.remove(folder);
+                }
+            }
+        }
+    }
+
+    private Path key(Path folder) {
+        return folder.toAbsolutePath().normalize();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+
+    /**
+     * Indexed contents of one folder; guarded by its own monitor
+     */
+    private static class FolderEntry {
+        private final TreeMap<String, Long> images = new TreeMap<>(SEQUENCE_ORDER);
+        private final TreeMap<String, Long> videos = new TreeMap<>();
+        // Sequence number -> how many numbered images use it (001.jpg and 001.png may coexist)
+        private final TreeMap<Integer, Integer> sequences = new TreeMap<>();
+        // Running statistics: modification time per media file, and how many files have each time
+        private final Map<String, Long> modified = new HashMap<>();
+        private final TreeMap<Long, Integer> modifiedTimes = new TreeMap<>();
+        private long imageBytes;
+        private long videoBytes;
+        private List<String> manifest = List.of();
+        // Slide order, rebuilt on the first read after an image or manifest change
+        private List<String> ordered;
+        private volatile long scannedAt;
+        private volatile boolean stale = true;
+        private boolean watched;
+
+        boolean needsRescan(long rescanMinutes) {
+            return stale || System.currentTimeMillis() - scannedAt > TimeUnit.MINUTES.toMillis(rescanMinutes);
+        }
+
+        void put(String fileName, long size, long modifiedTime) {
+            String extension = extension(fileName);
+            if (IMAGE_EXTENSIONS.contains(extension)) {
+                Long previous = images.put(fileName, size);
+                if (previous == null) {
+                    ordered = null;
+                    Integer sequence = sequenceNumber(fileName);
+                    if (sequence != null) {
+                        sequences.merge(sequence, 1, Integer::sum);
+                    }
+                } else {
+                    imageBytes -= previous;
+                }
+                imageBytes += size;
+            } else if (VIDEO_EXTENSIONS.contains(extension)) {
+                Long previous = videos.put(fileName, size);
+                videoBytes += size - (previous == null ? 0 : previous);
+            } else {
+                return;
+            }
+            untrackModified(modified.put(fileName, modifiedTime));
+            modifiedTimes.merge(modifiedTime, 1, Integer::sum);
+        }
+
+        void remove(String fileName) {
+            Long size = images.remove(fileName);
+            if (size != null) {
+                imageBytes -= size;
+                ordered = null;
+                Integer sequence = sequenceNumber(fileName);
+                if (sequence != null) {
+                    sequences.computeIfPresent(sequence, (k, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+            size = videos.remove(fileName);
+            if (size != null) {
+                videoBytes -= size;
+            }
+            untrackModified(modified.remove(fileName));
+        }
+
+        void clear() {
+            images.clear();
+            videos.clear();
+            sequences.clear();
+            modified.clear();
+            modifiedTimes.clear();
+            imageBytes = 0;
+            videoBytes = 0;
+            ordered = null;
+        }
+
+        private void untrackModified(Long modifiedTime) {
+            if (modifiedTime != null) {
+                modifiedTimes.computeIfPresent(modifiedTime, (k, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+
+        void setManifest(List<String> names) {
+            manifest = names;
+            ordered = null;
+        }
+
+        /**
+         * Manifest entries that still exist, then the remaining images by sequence number
+         */
+        List<String> orderedImages() {
+            if (ordered == null) {
+                LinkedHashSet<String> result = new LinkedHashSet<>(images.size());
+                for (String name : manifest) {
+                    if (images.containsKey(name)) {
+                        result.add(name);
+                    }
+                }
+                result.addAll(images.keySet());
+                ordered = new ArrayList<>(result);
+            }
+            return ordered;
+        }
+
+        private static String extension(String fileName) {
+            int lastDotIndex = fileName.lastIndexOf('.');
+            if (lastDotIndex > 0 && lastDotIndex < fileName.length() - 1) {
+                return fileName.substring(lastDotIndex + 1).toLowerCase();
+            }
+            return "";
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.khushal.catalogservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot tier of files this node fetched from storage-service (rendered videos streamed from another node),
+ * kept on local disk up to a size bound and evicted least-recently-used. Files being streamed are pinned.
+ * Only fetched files are tracked, so media created on this node is never evicted. The tracked files are
+ * listed in an index file, least recently used first, so the bound holds across restarts. The index is
+ * rewritten when a file is fetched or evicted and on shutdown, not on every hit.
+ * Only used with catalog.storage.enabled; a max size of 0 keeps everything that was fetched.
+ */
+@Service
+public class MediaCacheService {
+
+    private final StorageService storageService;
+
+    @Value("${catalog.storage.cache.max-size-mb:0}")
+    private long maxSizeMb;
+
+    @Value("${catalog.storage.cache.index:cache/fetched-media.tsv}")
+    private String indexFile;
+
+    // fetched file -> size in bytes, in access order (eldest = least recently used)
+    private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // hits reordered the entries since the index was last written
+    private boolean indexStale;
+
+    // file -> requests currently streaming it; pinned files are never evicted
+    private final Map<Path, Integer> pins = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+
+    @Autowired
+    public MediaCacheService(StorageService storageService) {
+        this.storageService = storageService;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (storageService.isEnabled()) {
+            loadIndex();
+        }
+    }
+
+    /**
+     * Make sure the file is on local disk, fetching it from storage-service if needed, and pin it until
+     * {@link #release(Path)}. A file already here counts as a hit, a fetch as a miss.
+     * @return false if the file is neither here nor stored
+     */
+    public boolean acquire(Path file) throws IOException {
+        Path key = file.normalize();
+        synchronized (this) {
+            pins.merge(key, 1, Integer::sum);
+        }
+        try {
+            if (Files.isRegularFile(key)) {
+                hits.incrementAndGet();
+                touch(key, false);
+                return true;
+            }
+            if (storageService.isEnabled()) {
+                misses.incrementAndGet();
+                if (storageService.fetch(key)) {
+                    touch(key, true);
+                    return true;
+                }
+            }
+            release(key);
+            return false;
+        } catch (IOException | RuntimeException e) {
+            release(key);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (indexStale) {
+            persistIndexQuietly();
+        }
+    }
+
+    /**
+     * Whether the file was fetched and may be evicted once unpinned
+     */
+    public synchronized boolean isTracked(Path file) {
+        return entries.containsKey(file.normalize());
+    }
+
+    /**
+     * Unpin a file once its response is written
+     */
+    public synchronized void release(Path file) {
+        pins.computeIfPresent(file.normalize(), (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Hit ratio, evictions and current size of the local tier
+     */
+    public synchronized Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", storageService.isEnabled());
+        stats.put("entries", entries.size());
+        stats.put("pinnedEntries", pins.size());
+        stats.put("totalBytes", totalBytes);
+        stats.put("maxBytes", maxSizeMb * 1024 * 1024);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.get());
+        stats.put("evictedBytes", evictedBytes.get());
+        return stats;
+    }
+
+    /**
+     * Mark a file most recently used and evict over the bound. Files that were not fetched are left
+     * untracked.
+     */
+    private synchronized void touch(Path key, boolean fetched) throws IOException {
+        if (!fetched && entries.get(key) == null) {
+            return;
+        }
+        long size = Files.size(key);
+        Long previous = entries.put(key, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        int evicted = evictOverLimit();
+        if (previous == null || evicted > 0) {
+            persistIndexQuietly();
+        } else {
+            indexStale = true;
+        }
+    }
+
+    /**
+     * @return how many entries were evicted
+     */
+    private int evictOverLimit() {
+        if (maxSizeMb <= 0) {
+            return 0;
+        }
+        int evicted = 0;
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<Path, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Path, Long> eldest = iterator.next();
+            if (pins.containsKey(eldest.getKey())) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            evictions.incrementAndGet();
+            evictedBytes.addAndGet(eldest.getValue());
+            evicted++;
+            try {
+                Files.deleteIfExists(eldest.getKey());
+            } catch (IOException e) {
+                System.err.println("Failed to evict fetched file " + eldest.getKey() + ": " + e.getMessage());
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Index format: one "path<TAB>size" line per fetched file, least recently used first
+     */
+    private synchronized void loadIndex() throws IOException {
+        Path indexPath = Paths.get(indexFile);
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        for (String line : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t");
+            if (parts.length != 2) {
+                continue;
+            }
+            Path file = Paths.get(parts[0]).normalize();
+            if (Files.isRegularFile(file)) {
+                long size = Files.size(file);
+                entries.put(file, size);
+                totalBytes += size;
+            }
+        }
+        evictOverLimit();
+    }
+
+    private void persistIndexQuietly() {
+        indexStale = false;
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<Path, Long> entry : entries.entrySet()) {
+            content.append(entry.getKey().toString().replace('\\', '/')).append('\t')
+                    .append(entry.getValue()).append('\n');
+        }
+        try {
+            // Write to a temp file and move it over the index so a crash never leaves it half-written
+            Path indexPath = Paths.get(indexFile).toAbsolutePath();
+            Files.createDirectories(indexPath.getParent());
+            Path tempIndex = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+            Files.writeString(tempIndex, content.toString(), StandardCharsets.UTF_8);
+            Files.move(tempIndex, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to persist fetched media index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package org.khushal.catalogservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.khushal.catalogservice.model.Media;
+import org.khushal.catalogservice.model.MediaInfo;
+import org.khushal.catalogservice.model.UploadResult;
+import org.khushal.catalogservice.repository.MediaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Media metadata in MongoDB: one Media record per file under public/images/<category>/<folder>, written on
+ * upload and delete. Paged listings and existence checks are answered by indexed queries instead
+ * of the file system. Files can still change behind the service's back (renders clean up their images,
+ * files are copied in by hand), so a reconciler periodically compares every folder on disk with its records
+ * and repairs the difference.
+ * The category is stored in category_id by name, as it appears in the folder path.
+ */
+@Service
+public class MediaRecordService {
+
+    private static final Path BASE_DIR = Paths.get("public", "images");
+
+    private final MediaRepository mediaRepository;
+    private final MongoTemplate mongoTemplate;
+    private final FolderIndexService folderIndexService;
+
+    private ScheduledExecutorService reconciler;
+
+    @Value("${catalog.media.reconcile-minutes:15}")
+    private long reconcileMinutes;
+
+    @Autowired
+    public MediaRecordService(MediaRepository mediaRepository, MongoTemplate mongoTemplate,
+                              FolderIndexService folderIndexService) {
+        this.mediaRepository = mediaRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.folderIndexService = folderIndexService;
+    }
+
+    @PostConstruct
+    public void init() {
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "media-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // First pass at startup picks up whatever changed while the service was down
+        reconciler.scheduleWithFixedDelay(this::reconcile, 0, reconcileMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Write a record for every stored file of an upload, replacing the record of a file stored under the
+     * same name before. A failure is logged, not thrown: the files are on disk, and the next reconcile adds
+     * the missing records.
+     */
+    public void record(String categoryName, String folderName, List<UploadResult> results) {
+        List<Media> records = new ArrayList<>();
+        for (UploadResult result : results) {
+            if (result != null && result.isSuccess()) {
+                Media media = toMedia(categoryName, folderName, result.getFileName(), result.getOriginalName(),
+                        result.getSize());
+                media.setWidth(result.getWidth());
+                media.setHeight(result.getHeight());
+                records.add(media);
+            }
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            // Upsert by the folder_file key: an insert of a name that already has a record would break the
+            // unique index, and with it the whole batch. Unordered, so one bad record does not stop the rest.
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Media.class);
+            for (Media media : records) {
+                Query query = new Query(Criteria.where("category_id").is(media.getCategoryId())
+                        .and("folder_name").is(media.getFolderName())
+                        .and("file_name").is(media.getFileName()));
+                Document document = new Document();
+                mongoTemplate.getConverter().write(media, document);
+                document.remove("_id");
+                Update update = new Update();
+                document.forEach(update::set);
+                bulk.upsert(query, update);
+            }
+            bulk.execute();
+        } catch (DataAccessException e) {
+            System.err.println("Failed to record media in " + categoryName + "/" + folderName + ": " + e.getMessage());
+        }
+    }
+
+    public void remove(String categoryName, String folderName, String fileName) {
+        try {
+            mediaRepository.deleteByCategoryIdAndFolderNameAndFileName(categoryName, folderName, fileName);
+        } catch (DataAccessException e) {
+            System.err.println("Failed to remove media record " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * One page of a folder's images (in sequence order) or videos (in upload order)
+     */
+    public Page<Media> page(String categoryName, String folderName, Media.MediaType type, int page, int size) {
+        Sort sort = type == Media.MediaType.IMAGE
+                ? Sort.by("sequenceNumber", "fileName")
+                : Sort.by("uploadDate", "fileName");
+        return mediaRepository.findByCategoryIdAndFolderNameAndMediaType(categoryName, folderName, type,
+                PageRequest.of(page, size, sort));
+    }
+
+    public boolean exists(String categoryName, String folderName, String fileName) {
+        return mediaRepository.existsByCategoryIdAndFolderNameAndFileName(categoryName, folderName, fileName);
+    }
+
+    /**
+     * Bring the records in line with the files on disk
+     */
+    public void reconcile() {
+        try {
+            Set<String> onDisk = new HashSet<>();
+            if (!Files.isDirectory(BASE_DIR)) {
+                removeMissingFolders(onDisk);
+                return;
+            }
+            try (DirectoryStream<Path> categories = Files.newDirectoryStream(BASE_DIR, Files::isDirectory)) {
+                for (Path category : categories) {
+                    try (DirectoryStream<Path> folders = Files.newDirectoryStream(category, Files::isDirectory)) {
+                        for (Path folder : folders) {
+                            String categoryName = category.getFileName().toString();
+                            String folderName = folder.getFileName().toString();
+                            onDisk.add(categoryName + "/" + folderName);
+                            reconcileFolder(categoryName, folderName, folder);
+                        }
+                    }
+                }
+            }
+            removeMissingFolders(onDisk);
+        } catch (IOException | RuntimeException e) {
+            // Runs on a fixed-delay schedule; an exception would cancel it
+            System.err.println("Media reconcile failed: " + e.getMessage());
+        }
+    }
+
+    private void reconcileFolder(String categoryName, String folderName, Path folder) {
+        Map<String, Long> files = new HashMap<>();
+        for (String name : folderIndexService.listImages(folder)) {
+            files.put(name, folderIndexService.getSize(folder, name));
+        }
+        for (String name : folderIndexService.listVideos(folder)) {
+            files.put(name, folderIndexService.getSize(folder, name));
+        }
+
+        List<Media> stale = new ArrayList<>();
+        List<Media> changed = new ArrayList<>();
+        for (Media media : mediaRepository.findByCategoryIdAndFolderName(categoryName, folderName)) {
+            Long size = files.remove(media.getFileName());
+            if (size == null) {
+                stale.add(media);
+            } else if (!size.equals(media.getFileSize())) {
+                media.setFileSize(size);
+                readDimensions(media, folder);
+                changed.add(media);
+            }
+        }
+        // What is left exists on disk without a record
+        List<Media> missing = new ArrayList<>();
+        files.forEach((name, size) -> {
+            Media media = toMedia(categoryName, folderName, name, null, size);
+            readDimensions(media, folder);
+            missing.add(media);
+        });
+
+        if (!stale.isEmpty()) {
+            mediaRepository.deleteAll(stale);
+        }
+        changed.addAll(missing);
+        if (!changed.isEmpty()) {
+            mediaRepository.saveAll(changed);
+        }
+        if (!stale.isEmpty() || !changed.isEmpty()) {
+            System.out.println("Reconciled media in " + categoryName + "/" + folderName + ": " + missing.size()
+                    + " added, " + stale.size() + " removed, " + (changed.size() - missing.size()) + " updated");
+        }
+    }
+
+    /**
+     * Drop the records of folders that no longer exist
+     */
+    private void removeMissingFolders(Set<String> onDisk) {
+        for (String categoryName : mongoTemplate.findDistinct(new Query(), "category_id", Media.class, String.class)) {
+            Query query = new Query(Criteria.where("category_id").is(categoryName));
+            for (String folderName : mongoTemplate.findDistinct(query, "folder_name", Media.class, String.class)) {
+                if (!onDisk.contains(categoryName + "/" + folderName)) {
+                    long removed = mediaRepository.deleteByCategoryIdAndFolderName(categoryName, folderName);
+                    System.out.println("Removed " + removed + " media records of deleted folder "
+                            + categoryName + "/" + folderName);
+                }
+            }
+        }
+    }
+
+    private Media toMedia(String categoryName, String folderName, String fileName, String originalName, Long size) {
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
+        Media media = new Media(categoryName, folderName, Media.MediaType.fromFileExtension(extension), fileName,
+                originalName, BASE_DIR.resolve(categoryName).resolve(folderName).resolve(fileName).toString()
+                        .replace("\\", "/"),
+                size, MediaTypeFactory.getMediaType(fileName).map(Object::toString).orElse("application/octet-stream"));
+        media.setSequenceNumber(FolderIndexService.sequenceNumber(fileName));
+        return media;
+    }
+
+    /**
+     * Fill in the pixel size of a file that arrived without an upload (copied in, or replaced on disk)
+     */
+    private void readDimensions(Media media, Path folder) {
+        try {
+            MediaInfo info = MediaSniffer.probe(folder.resolve(media.getFileName()), media.getFileName());
+            media.setWidth(info.getWidth());
+            media.setHeight(info.getHeight());
+        } catch (IllegalArgumentException | IOException e) {
+            // Recorded without a size; the file itself is left for its owner to deal with
+            System.err.println("Cannot read dimensions of " + folder.resolve(media.getFileName()) + ": "
+                    + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconciler.shutdownNow();
+    }
+}
@@ -1,12 +1,27 @@
 package org.khushal.catalogservice.service;
 
+import jakarta.annotation.PreDestroy;
+import org.khushal.catalogservice.model.FolderStatistics;
 import org.khushal.catalogservice.model.Media;
+import org.khushal.catalogservice.model.MediaInfo;
+import org.khushal.catalogservice.model.StoredFile;
+import org.khushal.catalogservice.model.UploadResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
@@ -16,176 +31,591 @@ public class MediaService {
     private static final Path BASE_DIR = Paths.get("public", "images");
     
     // Supported file extensions
-    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "webp", "bmp");
-    private static final Set<String> VIDEO_EXTENSIONS = Set.of("mp4", "avi", "mov", "wmv", "mkv", "flv", "webm");
+    private static final Set<String> IMAGE_EXTENSIONS = FolderIndexService.IMAGE_EXTENSIONS;
+    private static final Set<String> VIDEO_EXTENSIONS = FolderIndexService.VIDEO_EXTENSIONS;
     
     // Counter for video files
     private final AtomicInteger videoCounter = new AtomicInteger(1);
 
+    // Upload writes run on virtual threads; each request is capped separately by uploadParallelism
+    private final ExecutorService uploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${catalog.upload.parallelism:4}")
+    private int uploadParallelism;
+
+    @Value("${catalog.import.max-entries:5000}")
+    private int maxImportEntries;
+
+    private final MediaWorkerService mediaWorkerService;
+    private final FolderIndexService folderIndexService;
+    private final SequenceAllocatorService sequenceAllocatorService;
+    private final UploadStorageService uploadStorageService;
+    private final BlobStoreService blobStoreService;
+    private final MediaRecordService mediaRecordService;
+
+    @Autowired
+    public MediaService(MediaWorkerService mediaWorkerService, FolderIndexService folderIndexService,
+                        SequenceAllocatorService sequenceAllocatorService,
+                        UploadStorageService uploadStorageService, BlobStoreService blobStoreService,
+                        MediaRecordService mediaRecordService) {
+        this.mediaWorkerService = mediaWorkerService;
+        this.folderIndexService = folderIndexService;
+        this.sequenceAllocatorService = sequenceAllocatorService;
+        this.uploadStorageService = uploadStorageService;
+        this.blobStoreService = blobStoreService;
+        this.mediaRecordService = mediaRecordService;
+    }
+
     /**
-     * Upload images and save them with sequential numbering (001.jpg, 002.jpg, etc.)
-     * This ensures proper ordering for video generation
+     * Upload images and videos in one batch. Every file is persisted concurrently on virtual threads, at most
+     * catalog.upload.parallelism at a time for this request. Image sequence numbers are assigned up front in
+     * request order, so the outcome does not depend on which write finishes first.
+     * @return results under "images" and "videos", each in request order
      */
-    public List<String> uploadImages(String categoryName, String folderName, MultipartFile[] files) {
-        if (files == null || files.length == 0) {
+    public Map<String, List<UploadResult>> uploadMixed(String categoryName, String folderName,
+                                                       MultipartFile[] imageFiles, MultipartFile[] videoFiles) {
+        int imageCount = imageFiles == null ? 0 : imageFiles.length;
+        int videoCount = videoFiles == null ? 0 : videoFiles.length;
+        if (imageCount + videoCount == 0) {
             throw new IllegalArgumentException("No files provided");
         }
 
-        Path categoryDir = BASE_DIR.resolve(categoryName);
-        Path folderPath = categoryDir.resolve(folderName);
-        
+        Path folderPath = createFolder(categoryName, folderName);
+        UploadResult[] imageResults = new UploadResult[imageCount];
+        UploadResult[] videoResults = new UploadResult[videoCount];
+
+        List<Runnable> tasks = new ArrayList<>();
+        if (imageCount > 0) {
+            tasks.addAll(planImages(folderPath, imageFiles, imageResults));
+        }
+        if (videoCount > 0) {
+            tasks.addAll(planVideos(folderPath, videoFiles, videoResults));
+        }
+        runUploads(tasks);
+
+        List<UploadResult> images = Arrays.asList(imageResults);
+        List<UploadResult> videos = Arrays.asList(videoResults);
+        requestNormalization(categoryName, folderName, images);
+        mediaRecordService.record(categoryName, folderName, images);
+        mediaRecordService.record(categoryName, folderName, videos);
+
+        Map<String, List<UploadResult>> results = new HashMap<>();
+        results.put("images", images);
+        results.put("videos", videos);
+        return results;
+    }
+
+    /**
+     * Upload images and save them with sequential numbering (001.jpg, 002.jpg, etc.)
+     * This ensures proper ordering for video generation. Each file part of the request is written to disk
+     * as it arrives, hashed and counted on the way. Parts arrive one after another on a single connection,
+     * so they are persisted in order; numbers follow arrival order.
+     * @param fieldName form field holding the files; other parts are skipped
+     * @return one result per file, in request order; a rejected file does not abort the others
+     */
+    public List<UploadResult> uploadImages(String categoryName, String folderName, MultipartStreamReader parts,
+                                           String fieldName) {
+        Path folderPath = createFolder(categoryName, folderName);
+        List<Object> staged = stageParts(folderPath, parts, fieldName, IMAGE_EXTENSIONS, "image");
+
+        // Reserve a contiguous block of sequence numbers; concurrent uploads to this folder get other blocks
+        long accepted = staged.stream().filter(UploadStorageService.StagedFile.class::isInstance).count();
+        int nextSequence = accepted == 0 ? 0 : sequenceAllocatorService.allocate(folderPath, (int) accepted);
+
+        List<UploadResult> results = new ArrayList<>();
+        for (Object entry : staged) {
+            if (entry instanceof UploadStorageService.StagedFile file) {
+                String extension = getFileExtension(file.getOriginalName()).toLowerCase();
+                results.add(commit(folderPath, file, String.format("%03d.%s", nextSequence++, extension)));
+            } else {
+                results.add((UploadResult) entry);
+            }
+        }
+
+        requestNormalization(categoryName, folderName, results);
+        mediaRecordService.record(categoryName, folderName, results);
+        return results;
+    }
+
+    /**
+     * Upload videos and save them with unique names, each written to disk as it arrives
+     * @param fieldName form field holding the files; other parts are skipped
+     * @return one result per file, in request order; a rejected file does not abort the others
+     */
+    public List<UploadResult> uploadVideos(String categoryName, String folderName, MultipartStreamReader parts,
+                                           String fieldName) {
+        Path folderPath = createFolder(categoryName, folderName);
+        List<UploadResult> results = new ArrayList<>();
+        for (Object entry : stageParts(folderPath, parts, fieldName, VIDEO_EXTENSIONS, "video")) {
+            if (entry instanceof UploadStorageService.StagedFile file) {
+                results.add(commit(folderPath, file, nextVideoName(file.getOriginalName())));
+            } else {
+                results.add((UploadResult) entry);
+            }
+        }
+        mediaRecordService.record(categoryName, folderName, results);
+        return results;
+    }
+
+    /**
+     * Reject a video file name with an unsupported extension
+     */
+    public void checkVideoName(String fileName) {
+        checkExtension(fileName, VIDEO_EXTENSIONS, "video");
+    }
+
+    /**
+     * Move a video that arrived through a resumable upload session into its folder
+     */
+    public StoredFile commitUploadedVideo(String categoryName, String folderName,
+                                          UploadStorageService.StagedFile staged) {
+        Path folderPath = createFolder(categoryName, folderName);
+        MediaInfo mediaInfo;
         try {
-            Files.createDirectories(folderPath);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to create directory: " + e.getMessage());
+            mediaInfo = uploadStorageService.probe(staged);
+        } catch (IllegalArgumentException | IOException e) {
+            uploadStorageService.discard(staged);
+            throw new IllegalArgumentException(e.getMessage());
+        }
+        UploadResult result = commit(folderPath, staged, nextVideoName(staged.getOriginalName()));
+        if (!result.isSuccess()) {
+            throw new RuntimeException("Failed to upload file: " + staged.getOriginalName() +
+                                     ". Error: " + result.getError());
         }
+        mediaRecordService.record(categoryName, folderName, List.of(result));
+        return new StoredFile(result.getFileName(), staged.getOriginalName(), staged.getSize(), staged.getSha256(),
+                mediaInfo);
+    }
 
-        // Get next sequence number for this folder
-        int nextSequence = getNextImageSequence(folderPath);
-        
-        List<String> uploadedFiles = new ArrayList<>();
-        
-        for (MultipartFile file : files) {
+    /**
+     * Add a file to the folder by content hash, without transferring it again. Clients hash the file first
+     * and upload only when this returns null.
+     * @param originalName name the content was uploaded as; decides image or video and the extension
+     * @return the stored file, or null if no upload has that content
+     */
+    public UploadResult linkExisting(String categoryName, String folderName, String sha256, String originalName) {
+        Media.MediaType type = getMediaType(originalName);
+        if (!blobStoreService.isEnabled() || !blobStoreService.exists(sha256)) {
+            return null;
+        }
+
+        Path folderPath = createFolder(categoryName, folderName);
+        String fileName = type == Media.MediaType.IMAGE
+                ? String.format("%03d.%s", sequenceAllocatorService.allocate(folderPath, 1),
+                        getFileExtension(originalName).toLowerCase())
+                : nextVideoName(originalName);
+        Path destination = folderPath.resolve(fileName);
+        try {
+            if (!blobStoreService.link(sha256, destination)) {
+                // Freed since the check above
+                return null;
+            }
+            MediaInfo mediaInfo;
             try {
-                String originalName = file.getOriginalFilename();
-                if (originalName == null) {
-                    throw new IllegalArgumentException("File name cannot be null");
-                }
+                // The hash was uploaded under another name; it must still be what this name says
+                mediaInfo = MediaSniffer.probe(destination, originalName);
+            } catch (IllegalArgumentException e) {
+                blobStoreService.delete(destination);
+                return UploadResult.failed(originalName, e.getMessage());
+            }
+            long size = Files.size(destination);
+            folderIndexService.recordFile(folderPath, fileName, size);
+            UploadResult result = UploadResult.stored(new StoredFile(fileName, originalName, size, sha256, mediaInfo));
+            if (type == Media.MediaType.IMAGE) {
+                requestNormalization(categoryName, folderName, List.of(result));
+            }
+            mediaRecordService.record(categoryName, folderName, List.of(result));
+            return result;
+        } catch (IOException e) {
+            return UploadResult.failed(originalName, "Failed to store file: " + e.getMessage());
+        }
+    }
 
-                String extension = getFileExtension(originalName).toLowerCase();
-                if (!IMAGE_EXTENSIONS.contains(extension)) {
-                    throw new IllegalArgumentException("Unsupported image format: " + extension + 
-                                                     ". Supported: " + IMAGE_EXTENSIONS);
+    /**
+     * Extract the images and videos of a ZIP or TAR archive into the folder in one pass over the stream.
+     * Each entry is written to disk as it is read; its content check then runs on the upload workers while
+     * the next entry is extracted, at most uploadParallelism at a time (extraction waits for a free worker).
+     * Once the archive is read, images are numbered in archive order and all entries are committed in parallel.
+     * Directories, hidden files and __MACOSX metadata are skipped; other entries become failed results.
+     * @return one result per media entry, in archive order
+     */
+    public List<UploadResult> importArchive(String categoryName, String folderName, ArchiveStreamReader archive) {
+        Path folderPath = createFolder(categoryName, folderName);
+        Semaphore permits = new Semaphore(uploadParallelism);
+        List<ImportEntry> entries = new ArrayList<>();
+        try {
+            ArchiveStreamReader.Entry entry;
+            while ((entry = archive.nextEntry()) != null) {
+                String name = entry.getName();
+                String baseName = name.substring(name.lastIndexOf('/') + 1);
+                if (baseName.isEmpty() || baseName.startsWith(".") || name.startsWith("__MACOSX/")) {
+                    continue;
+                }
+                if (entries.size() == maxImportEntries) {
+                    throw new IllegalArgumentException("Archive has more than " + maxImportEntries + " files");
                 }
+                entries.add(extract(folderPath, entry.getInputStream(), baseName, permits));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Let running checks finish before their files go away
+            permits.acquireUninterruptibly(uploadParallelism);
+            entries.stream()
+                    .filter(ImportEntry::isStaged)
+                    .forEach(staged -> uploadStorageService.discard(staged.file()));
+            if (e instanceof IllegalArgumentException illegalArgument) {
+                throw illegalArgument;
+            }
+            throw new RuntimeException("Failed to import archive. Error: " + e.getMessage());
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("No files in archive");
+        }
 
-                // Create sequential filename: 001.jpg, 002.jpg, etc.
-                String fileName = String.format("%03d.%s", nextSequence++, extension);
-                Path destination = folderPath.resolve(fileName);
-                
-                Files.copy(file.getInputStream(), destination, StandardCopyOption.REPLACE_EXISTING);
-                uploadedFiles.add(fileName);
-                
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to upload file: " + file.getOriginalFilename() + 
-                                         ". Error: " + e.getMessage());
+        UploadResult[] results = new UploadResult[entries.size()];
+        List<Integer> images = new ArrayList<>();
+        List<Integer> videos = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            ImportEntry entry = entries.get(i);
+            String error = entry.error() != null ? entry.error() : awaitCheck(entry.check());
+            if (error != null) {
+                if (entry.isStaged()) {
+                    uploadStorageService.discard(entry.file());
+                }
+                results[i] = UploadResult.failed(entry.name(), error);
+            } else if (getMediaType(entry.name()) == Media.MediaType.IMAGE) {
+                images.add(i);
+            } else {
+                videos.add(i);
             }
         }
 
-        return uploadedFiles;
+        // Numbers in archive order, reserved as one block so concurrent uploads to the folder get others
+        List<Runnable> tasks = new ArrayList<>();
+        int nextSequence = images.isEmpty() ? 0 : sequenceAllocatorService.allocate(folderPath, images.size());
+        for (int index : images) {
+            UploadStorageService.StagedFile file = entries.get(index).file();
+            String extension = getFileExtension(file.getOriginalName()).toLowerCase();
+            String fileName = String.format("%03d.%s", nextSequence++, extension);
+            tasks.add(() -> results[index] = commit(folderPath, file, fileName));
+        }
+        for (int index : videos) {
+            UploadStorageService.StagedFile file = entries.get(index).file();
+            String fileName = nextVideoName(file.getOriginalName());
+            tasks.add(() -> results[index] = commit(folderPath, file, fileName));
+        }
+        runUploads(tasks);
+
+        List<UploadResult> resultList = Arrays.asList(results);
+        requestNormalization(categoryName, folderName, resultList);
+        mediaRecordService.record(categoryName, folderName, resultList);
+        return resultList;
     }
 
     /**
-     * Upload videos and save them with unique names
+     * Stage one archive entry and start its content check on a worker, waiting for a free worker first
      */
-    public List<String> uploadVideos(String categoryName, String folderName, MultipartFile[] files) {
-        if (files == null || files.length == 0) {
-            throw new IllegalArgumentException("No files provided");
+    private ImportEntry extract(Path folderPath, InputStream input, String name, Semaphore permits)
+            throws IOException {
+        try {
+            getMediaType(name);
+            UploadStorageService.StagedFile file = uploadStorageService.stage(folderPath, input, name);
+            if (file.getSize() == 0) {
+                uploadStorageService.discard(file);
+                throw new IllegalArgumentException("File is empty");
+            }
+
+            permits.acquireUninterruptibly();
+            Future<String> check = uploadExecutor.submit(() -> {
+                try {
+                    uploadStorageService.probe(file);
+                    return null;
+                } catch (IllegalArgumentException | IOException e) {
+                    return e.getMessage();
+                } finally {
+                    permits.release();
+                }
+            });
+            return new ImportEntry(name, file, check, null);
+        } catch (IllegalArgumentException e) {
+            return new ImportEntry(name, null, null, e.getMessage());
         }
+    }
 
-        Path categoryDir = BASE_DIR.resolve(categoryName);
-        Path folderPath = categoryDir.resolve(folderName);
-        
+    private String awaitCheck(Future<String> check) {
         try {
-            Files.createDirectories(folderPath);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to create directory: " + e.getMessage());
+            return check.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import interrupted");
+        } catch (ExecutionException e) {
+            return "Content check failed: " + e.getCause().getMessage();
         }
+    }
 
-        List<String> uploadedFiles = new ArrayList<>();
-        
-        for (MultipartFile file : files) {
+    /**
+     * An archive entry: staged with its running content check, or rejected with an error
+     */
+    private record ImportEntry(String name, UploadStorageService.StagedFile file, Future<String> check,
+                               String error) {
+        boolean isStaged() {
+            return file != null;
+        }
+    }
+
+    /**
+     * Reserve numbers for the acceptable images and return one write task per image
+     */
+    private List<Runnable> planImages(Path folderPath, MultipartFile[] files, UploadResult[] results) {
+        List<Integer> accepted = validate(files, IMAGE_EXTENSIONS, "image", results);
+        if (accepted.isEmpty()) {
+            return List.of();
+        }
+
+        // Reserve a contiguous block of sequence numbers; concurrent uploads to this folder get other blocks
+        int nextSequence = sequenceAllocatorService.allocate(folderPath, accepted.size());
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int k = 0; k < accepted.size(); k++) {
+            int index = accepted.get(k);
+            MultipartFile file = files[index];
+            String extension = getFileExtension(file.getOriginalFilename()).toLowerCase();
+
+            // Create sequential filename: 001.jpg, 002.jpg, etc.
+            String fileName = String.format("%03d.%s", nextSequence + k, extension);
+            tasks.add(() -> results[index] = persist(folderPath, file, fileName));
+        }
+        return tasks;
+    }
+
+    /**
+     * Name the acceptable videos and return one write task per video
+     */
+    private List<Runnable> planVideos(Path folderPath, MultipartFile[] files, UploadResult[] results) {
+        List<Runnable> tasks = new ArrayList<>();
+        for (int index : validate(files, VIDEO_EXTENSIONS, "video", results)) {
+            MultipartFile file = files[index];
+            String fileName = nextVideoName(file.getOriginalFilename());
+            tasks.add(() -> results[index] = persist(folderPath, file, fileName));
+        }
+        return tasks;
+    }
+
+    /**
+     * Record a failed result for every unacceptable file and return the indexes of the rest
+     */
+    private List<Integer> validate(MultipartFile[] files, Set<String> extensions, String kind,
+                                   UploadResult[] results) {
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < files.length; i++) {
             try {
-                String originalName = file.getOriginalFilename();
-                if (originalName == null) {
-                    throw new IllegalArgumentException("File name cannot be null");
+                checkExtension(files[i].getOriginalFilename(), extensions, kind);
+                if (files[i].isEmpty()) {
+                    throw new IllegalArgumentException("File is empty");
                 }
+                accepted.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = UploadResult.failed(files[i].getOriginalFilename(), e.getMessage());
+            }
+        }
+        return accepted;
+    }
 
-                String extension = getFileExtension(originalName).toLowerCase();
-                if (!VIDEO_EXTENSIONS.contains(extension)) {
-                    throw new IllegalArgumentException("Unsupported video format: " + extension + 
-                                                     ". Supported: " + VIDEO_EXTENSIONS);
+    /**
+     * Run the write tasks of one request on virtual threads, at most uploadParallelism at a time
+     */
+    private void runUploads(List<Runnable> tasks) {
+        Semaphore permits = new Semaphore(uploadParallelism);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Runnable task : tasks) {
+            futures.add(uploadExecutor.submit(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
                 }
-
-                // Create unique filename with timestamp and counter
-                String fileName = String.format("video_%d_%d.%s", 
-                    System.currentTimeMillis(), 
-                    videoCounter.getAndIncrement(), 
-                    extension);
-                
-                Path destination = folderPath.resolve(fileName);
-                Files.copy(file.getInputStream(), destination, StandardCopyOption.REPLACE_EXISTING);
-                uploadedFiles.add(fileName);
-                
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to upload file: " + file.getOriginalFilename() + 
-                                         ". Error: " + e.getMessage());
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Upload interrupted");
+            } catch (ExecutionException e) {
+                // persist() reports failures as results; anything else is a bug worth surfacing
+                throw new RuntimeException("Upload failed: " + e.getCause().getMessage());
             }
         }
+    }
 
-        return uploadedFiles;
+    /**
+     * Stage and commit one spooled file under its final name
+     */
+    private UploadResult persist(Path folderPath, MultipartFile file, String fileName) {
+        try (InputStream input = file.getInputStream()) {
+            UploadStorageService.StagedFile staged = uploadStorageService.stage(folderPath, input,
+                    file.getOriginalFilename());
+            return commit(folderPath, staged, fileName);
+        } catch (IOException | RuntimeException e) {
+            return UploadResult.failed(file.getOriginalFilename(), e.getMessage());
+        }
     }
 
     /**
-     * List all image files in a category/folder, sorted by sequence number
+     * Move a staged file into place, discarding it if that fails
      */
-    public List<String> listImages(String categoryName, String folderName) {
-        Path folderPath = BASE_DIR.resolve(categoryName).resolve(folderName);
-        
-        if (!Files.exists(folderPath)) {
-            return Collections.emptyList();
+    private UploadResult commit(Path folderPath, UploadStorageService.StagedFile staged, String fileName) {
+        try {
+            // Never replace: the name is ours alone, so an existing file means something else wrote it
+            StoredFile stored = uploadStorageService.commit(staged, folderPath.resolve(fileName));
+            folderIndexService.recordFile(folderPath, fileName, stored.getSize());
+            return UploadResult.stored(stored);
+        } catch (IllegalArgumentException e) {
+            // Content does not match the extension
+            uploadStorageService.discard(staged);
+            return UploadResult.failed(staged.getOriginalName(), e.getMessage());
+        } catch (IOException e) {
+            uploadStorageService.discard(staged);
+            return UploadResult.failed(staged.getOriginalName(), "Failed to store file: " + e.getMessage());
         }
+    }
 
-        List<String> imageFiles = new ArrayList<>();
-        
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folderPath)) {
-            for (Path file : stream) {
-                if (Files.isRegularFile(file)) {
-                    String fileName = file.getFileName().toString();
-                    String extension = getFileExtension(fileName).toLowerCase();
-                    
-                    if (IMAGE_EXTENSIONS.contains(extension)) {
-                        imageFiles.add(fileName);
+    /**
+     * Stage every file part of the request. A part that is rejected (extension, empty, too large) becomes a
+     * failed result and the next part is read; a broken request stream aborts the batch.
+     * @return per part in arrival order, either a StagedFile or a failed UploadResult
+     */
+    private List<Object> stageParts(Path folderPath, MultipartStreamReader parts, String fieldName,
+                                    Set<String> extensions, String kind) {
+        List<Object> staged = new ArrayList<>();
+        try {
+            MultipartStreamReader.Part part;
+            while ((part = parts.nextPart()) != null) {
+                if (!part.isFile() || !fieldName.equals(part.getName())) {
+                    continue;
+                }
+                try {
+                    checkExtension(part.getFileName(), extensions, kind);
+                    UploadStorageService.StagedFile file = uploadStorageService.stage(folderPath,
+                            part.getInputStream(), part.getFileName());
+                    if (file.getSize() == 0) {
+                        uploadStorageService.discard(file);
+                        throw new IllegalArgumentException("File is empty");
                     }
+                    staged.add(file);
+                } catch (IllegalArgumentException e) {
+                    staged.add(UploadResult.failed(part.getFileName(), e.getMessage()));
                 }
             }
         } catch (IOException e) {
-            throw new RuntimeException("Failed to list images: " + e.getMessage());
+            staged.stream()
+                    .filter(UploadStorageService.StagedFile.class::isInstance)
+                    .forEach(file -> uploadStorageService.discard((UploadStorageService.StagedFile) file));
+            throw new RuntimeException("Failed to upload file. Error: " + e.getMessage());
         }
+        if (staged.isEmpty()) {
+            throw new IllegalArgumentException("No files provided");
+        }
+        return staged;
+    }
 
-        // Sort by filename (which includes sequence number)
-        imageFiles.sort(String::compareTo);
-        return imageFiles;
+    /**
+     * Pre-scale the newly stored images for rendering in the background
+     */
+    private void requestNormalization(String categoryName, String folderName, List<UploadResult> results) {
+        List<String> stored = results.stream()
+                .filter(result -> result != null && result.isSuccess())
+                .map(UploadResult::getFileName)
+                .toList();
+        if (!stored.isEmpty()) {
+            mediaWorkerService.requestNormalization(categoryName, folderName, stored);
+        }
+    }
+
+    private String nextVideoName(String originalName) {
+        // Create unique filename with timestamp and counter
+        return String.format("video_%d_%d.%s", 
+            System.currentTimeMillis(), 
+            videoCounter.getAndIncrement(), 
+            getFileExtension(originalName).toLowerCase());
+    }
+
+    private Path createFolder(String categoryName, String folderName) {
+        Path folderPath = BASE_DIR.resolve(categoryName).resolve(folderName);
+        try {
+            Files.createDirectories(folderPath);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create directory: " + e.getMessage());
+        }
+        return folderPath;
+    }
+
+    private void checkExtension(String originalName, Set<String> extensions, String kind) {
+        if (originalName == null) {
+            throw new IllegalArgumentException("File name cannot be null");
+        }
+
+        String extension = getFileExtension(originalName).toLowerCase();
+        if (!extensions.contains(extension)) {
+            throw new IllegalArgumentException("Unsupported " + kind + " format: " + extension + 
+                                             ". Supported: " + extensions);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
     }
 
     /**
-     * List all video files in a category/folder
+     * List all image files in a category/folder in slide order
      */
-    public List<String> listVideos(String categoryName, String folderName) {
+    public List<String> listImages(String categoryName, String folderName) {
+        return folderIndexService.listImages(BASE_DIR.resolve(categoryName).resolve(folderName));
+    }
+
+    /**
+     * Set the slide order of a folder's images. Files are not renamed: the order is written to the folder's
+     * manifest, and images left out of it (including later uploads) follow in sequence-number order.
+     * @return the folder's images in their new order
+     */
+    public List<String> reorderImages(String categoryName, String folderName, List<String> order) {
         Path folderPath = BASE_DIR.resolve(categoryName).resolve(folderName);
-        
-        if (!Files.exists(folderPath)) {
-            return Collections.emptyList();
+        if (!Files.isDirectory(folderPath)) {
+            throw new IllegalArgumentException("Folder not found: " + categoryName + "/" + folderName);
         }
 
-        List<String> videoFiles = new ArrayList<>();
-        
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folderPath)) {
-            for (Path file : stream) {
-                if (Files.isRegularFile(file)) {
-                    String fileName = file.getFileName().toString();
-                    String extension = getFileExtension(fileName).toLowerCase();
-                    
-                    if (VIDEO_EXTENSIONS.contains(extension)) {
-                        videoFiles.add(fileName);
-                    }
-                }
+        Set<String> existing = new HashSet<>(folderIndexService.listImages(folderPath));
+        Set<String> seen = new HashSet<>();
+        for (String fileName : order) {
+            if (!existing.contains(fileName)) {
+                throw new IllegalArgumentException("Unknown image: " + fileName);
+            }
+            if (!seen.add(fileName)) {
+                throw new IllegalArgumentException("Image listed twice: " + fileName);
             }
+        }
+
+        Path manifest = folderPath.resolve(FolderIndexService.MANIFEST_FILE);
+        try {
+            // Unique temp name, so concurrent reorders never write into each other's file; last move wins
+            Path tempFile = Files.createTempFile(folderPath, FolderIndexService.MANIFEST_FILE, ".tmp");
+            Files.write(tempFile, order);
+            Files.move(tempFile, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to list videos: " + e.getMessage());
+            throw new RuntimeException("Failed to write slide order: " + e.getMessage());
         }
+        folderIndexService.reloadManifest(folderPath);
+
+        return folderIndexService.listImages(folderPath);
+    }
 
-        videoFiles.sort(String::compareTo);
-        return videoFiles;
+    /**
+     * List all video files in a category/folder
+     */
+    public List<String> listVideos(String categoryName, String folderName) {
+        return folderIndexService.listVideos(BASE_DIR.resolve(categoryName).resolve(folderName));
     }
 
     /**
@@ -196,9 +626,29 @@ public class MediaService {
     }
 
     /**
-     * Check if a file exists
+     * One page of a folder's media records: images in sequence order, videos in upload order
+     * @param type "image" or "video"
+     */
+    public Page<Media> listMedia(String categoryName, String folderName, String type, int page, int size) {
+        if (page < 0 || size < 1 || size > 500) {
+            throw new IllegalArgumentException("Page must be >= 0 and size between 1 and 500");
+        }
+        return mediaRecordService.page(categoryName, folderName, Media.MediaType.fromString(type), page, size);
+    }
+
+    /**
+     * Check if a file exists. Images and videos are looked up in their records; other files (audio.mp3)
+     * and lookups while MongoDB is unreachable go to the file system.
      */
     public boolean fileExists(String categoryName, String folderName, String fileName) {
+        String extension = getFileExtension(fileName).toLowerCase();
+        if (IMAGE_EXTENSIONS.contains(extension) || VIDEO_EXTENSIONS.contains(extension)) {
+            try {
+                return mediaRecordService.exists(categoryName, folderName, fileName);
+            } catch (DataAccessException e) {
+                System.err.println("Media records unavailable, checking disk: " + e.getMessage());
+            }
+        }
         Path filePath = getFilePath(categoryName, folderName, fileName);
         return Files.exists(filePath);
     }
@@ -209,63 +659,42 @@ public class MediaService {
     public boolean deleteFile(String categoryName, String folderName, String fileName) {
         Path filePath = getFilePath(categoryName, folderName, fileName);
         try {
-            return Files.deleteIfExists(filePath);
+            // Frees the stored content too once no other folder links to it
+            boolean deleted = blobStoreService.delete(filePath);
+            folderIndexService.removeFile(filePath.getParent(), fileName);
+            mediaRecordService.remove(categoryName, folderName, fileName);
+            if (deleted && FolderIndexService.sequenceNumber(fileName) != null) {
+                mediaWorkerService.deleteVariants(categoryName, folderName, List.of(fileName));
+            }
+            return deleted;
         } catch (IOException e) {
             throw new RuntimeException("Failed to delete file: " + e.getMessage());
         }
     }
 
     /**
-     * Get media statistics for a category/folder
+     * Get media statistics for a category/folder: counts, bytes per type and newest modification time,
+     * from the folder index's running totals
      */
     public Map<String, Object> getMediaStatistics(String categoryName, String folderName) {
-        Map<String, Object> stats = new HashMap<>();
-        
-        List<String> images = listImages(categoryName, folderName);
-        List<String> videos = listVideos(categoryName, folderName);
-        
-        stats.put("imageCount", images.size());
-        stats.put("videoCount", videos.size());
-        stats.put("totalMedia", images.size() + videos.size());
-        stats.put("images", images);
-        stats.put("videos", videos);
-        
-        return stats;
-    }
-
-    /**
-     * Get the next sequence number for images in a folder
-     */
-    private int getNextImageSequence(Path folderPath) {
-        if (!Files.exists(folderPath)) {
-            return 1;
+        Path folderPath = BASE_DIR.resolve(categoryName).resolve(folderName);
+        FolderStatistics statistics = folderIndexService.getStatistics(folderPath);
+        if (statistics == null) {
+            statistics = new FolderStatistics(0, 0, 0, 0, null);
         }
 
-        int maxSequence = 0;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("imageCount", statistics.getImageCount());
+        stats.put("videoCount", statistics.getVideoCount());
+        stats.put("totalMedia", statistics.getTotalMedia());
+        stats.put("imageBytes", statistics.getImageBytes());
+        stats.put("videoBytes", statistics.getVideoBytes());
+        stats.put("totalBytes", statistics.getTotalBytes());
+        stats.put("lastModified", statistics.getLastModified());
+        stats.put("images", folderIndexService.listImages(folderPath));
+        stats.put("videos", folderIndexService.listVideos(folderPath));
         
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folderPath)) {
-            for (Path file : stream) {
-                if (Files.isRegularFile(file)) {
-                    String fileName = file.getFileName().toString();
-                    
-                    // Check if it's a numbered image file (001.jpg, 002.png, etc.)
-                    if (fileName.matches("\\d{3}\\.(jpg|jpeg|png|gif|webp|bmp)$")) {
-                        try {
-                            int sequence = Integer.parseInt(fileName.substring(0, 3));
-                            if (sequence > maxSequence) {
-                                maxSequence = sequence;
-                            }
-                        } catch (NumberFormatException ignored) {
-                            // Skip files that don't match the pattern
-                        }
-                    }
-                }
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to scan folder for sequence numbers: " + e.getMessage());
-        }
-
-        return maxSequence + 1;
+        return stats;
     }
 
     /**
@@ -314,5 +743,12 @@ public class MediaService {
             throw new IllegalArgumentException("File type mismatch. Expected: " + expectedType + 
                                              ", but got: " + actualType);
         }
+
+        // The extension only names the type; the leading bytes have to agree
+        try (InputStream input = file.getInputStream()) {
+            MediaSniffer.checkHeader(input.readNBytes(MediaSniffer.HEADER_SIZE), originalName);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read file: " + e.getMessage());
+        }
     }
 }
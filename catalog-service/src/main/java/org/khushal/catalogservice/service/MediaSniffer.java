@@ -0,0 +1,332 @@
+package org.khushal.catalogservice.service;
+
+import org.khushal.catalogservice.model.MediaInfo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Identifies a media file by its leading bytes rather than its name, so a renamed text file or a truncated
+ * download is rejected before it is stored, and reads its pixel size from the container headers without
+ * decoding anything. Only headers are read: JPEG segments and MP4 boxes are skipped by their lengths.
+ */
+public final class MediaSniffer {
+
+    /**
+     * Leading bytes needed to recognise every supported format
+     */
+    public static final int HEADER_SIZE = 32;
+
+    // Container formats each extension may hold
+    private static final Map<String, Set<String>> FORMATS_BY_EXTENSION = Map.ofEntries(
+            Map.entry("jpg", Set.of("jpeg")),
+            Map.entry("jpeg", Set.of("jpeg")),
+            Map.entry("png", Set.of("png")),
+            Map.entry("gif", Set.of("gif")),
+            Map.entry("webp", Set.of("webp")),
+            Map.entry("bmp", Set.of("bmp")),
+            Map.entry("mp4", Set.of("isobmff")),
+            Map.entry("mov", Set.of("isobmff")),
+            Map.entry("mkv", Set.of("ebml")),
+            Map.entry("webm", Set.of("ebml")),
+            Map.entry("avi", Set.of("avi")),
+            Map.entry("flv", Set.of("flv")),
+            Map.entry("wmv", Set.of("asf")));
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final byte[] EBML = {0x1a, 0x45, (byte) 0xdf, (byte) 0xa3};
+    private static final byte[] ASF = {0x30, 0x26, (byte) 0xb2, 0x75, (byte) 0x8e, 0x66, (byte) 0xcf, 0x11};
+    // Top-level QuickTime atoms that may open a .mov written without an ftyp box
+    private static final Set<String> QUICKTIME_ATOMS = Set.of("moov", "mdat", "wide", "free", "skip", "pnot");
+
+    // Bounds on header walking, so a corrupt file cannot keep the probe busy
+    private static final int MAX_JPEG_SEGMENTS = 1000;
+    private static final int MAX_BOX_DEPTH = 4;
+    private static final int MAX_BOXES = 10_000;
+
+    private MediaSniffer() {
+    }
+
+    /**
+     * Whether the name has an extension whose content can be checked
+     */
+    public static boolean isMediaName(String fileName) {
+        return FORMATS_BY_EXTENSION.containsKey(extension(fileName));
+    }
+
+    /**
+     * Container format of the leading bytes ("jpeg", "png", "isobmff", ...), or null if it is not a known
+     * media format
+     */
+    public static String detectFormat(byte[] header) {
+        if (startsWith(header, (byte) 0xff, (byte) 0xd8, (byte) 0xff)) {
+            return "jpeg";
+        }
+        if (startsWith(header, PNG)) {
+            return "png";
+        }
+        if (ascii(header, 0, 6).equals("GIF87a") || ascii(header, 0, 6).equals("GIF89a")) {
+            return "gif";
+        }
+        if (ascii(header, 0, 4).equals("RIFF")) {
+            String type = ascii(header, 8, 4);
+            if (type.equals("WEBP")) {
+                return "webp";
+            }
+            if (type.equals("AVI ")) {
+                return "avi";
+            }
+            return null;
+        }
+        if (ascii(header, 0, 2).equals("BM")) {
+            return "bmp";
+        }
+        String atom = ascii(header, 4, 4);
+        if (atom.equals("ftyp") || QUICKTIME_ATOMS.contains(atom)) {
+            return "isobmff";
+        }
+        if (startsWith(header, EBML)) {
+            return "ebml";
+        }
+        if (ascii(header, 0, 3).equals("FLV")) {
+            return "flv";
+        }
+        if (startsWith(header, ASF)) {
+            return "asf";
+        }
+        return null;
+    }
+
+    /**
+     * Reject leading bytes that do not match the file's extension; used while an upload is still arriving
+     * @return the detected format
+     */
+    public static String checkHeader(byte[] header, String fileName) {
+        String format = detectFormat(header);
+        if (format == null || !FORMATS_BY_EXTENSION.getOrDefault(extension(fileName), Set.of()).contains(format)) {
+            throw new IllegalArgumentException("File content does not match its type: " + fileName +
+                    (format == null ? " (unrecognised content)" : " (looks like " + format + ")"));
+        }
+        return format;
+    }
+
+    /**
+     * Check the file's content against its name and read its pixel size from the headers
+     * @throws IllegalArgumentException if the content is not what the extension says
+     */
+    public static MediaInfo probe(Path file, String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] header = read(channel, 0, HEADER_SIZE);
+            String format = checkHeader(header, fileName);
+            int[] size = switch (format) {
+                case "png" -> header.length >= 24 ? new int[]{be32(header, 16), be32(header, 20)} : null;
+                case "gif" -> header.length >= 10 ? new int[]{le16(header, 6), le16(header, 8)} : null;
+                // Height is negative for top-down bitmaps
+                case "bmp" -> header.length >= 26 ? new int[]{le32(header, 18), Math.abs(le32(header, 22))} : null;
+                case "webp" -> webpSize(read(channel, 0, 30));
+                case "jpeg" -> jpegSize(channel);
+                case "isobmff" -> isobmffSize(channel, 0, channel.size(), 0, new int[1]);
+                case "avi" -> aviSize(read(channel, 0, 72));
+                default -> null;
+            };
+            if (size == null || size[0] <= 0 || size[1] <= 0) {
+                return new MediaInfo(format, null, null);
+            }
+            return new MediaInfo(format, size[0], size[1]);
+        }
+    }
+
+    private static int[] webpSize(byte[] data) {
+        if (data.length < 30) {
+            return null;
+        }
+        switch (ascii(data, 12, 4)) {
+            case "VP8X":
+                // Extended format: 24-bit canvas width and height, minus one
+                return new int[]{le24(data, 24) + 1, le24(data, 27) + 1};
+            case "VP8 ":
+                // Lossy key frame: 14-bit sizes after the 3-byte frame tag and 9d 01 2a start code
+                return new int[]{le16(data, 26) & 0x3fff, le16(data, 28) & 0x3fff};
+            case "VP8L":
+                // Lossless: 14-bit width and height, minus one, after the 0x2f signature
+                int bits = le32(data, 21);
+                return new int[]{(bits & 0x3fff) + 1, ((bits >>> 14) & 0x3fff) + 1};
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Walk the segments up to the first start-of-frame marker, which holds the size
+     */
+    private static int[] jpegSize(FileChannel channel) throws IOException {
+        long position = 2;
+        for (int segments = 0; segments < MAX_JPEG_SEGMENTS; segments++) {
+            byte[] marker = read(channel, position, 4);
+            if (marker.length < 2 || (marker[0] & 0xff) != 0xff) {
+                return null;
+            }
+            int type = marker[1] & 0xff;
+            if (type == 0xff) {
+                // Fill byte
+                position++;
+                continue;
+            }
+            if (type == 0x01 || (type >= 0xd0 && type <= 0xd8)) {
+                // Markers without a length
+                position += 2;
+                continue;
+            }
+            if (type == 0xd9 || type == 0xda || marker.length < 4) {
+                // End of image or start of scan before any frame header
+                return null;
+            }
+            int length = be16(marker, 2);
+            if (length < 2) {
+                return null;
+            }
+            boolean startOfFrame = type >= 0xc0 && type <= 0xcf && type != 0xc4 && type != 0xc8 && type != 0xcc;
+            if (startOfFrame) {
+                // Precision, then height and width
+                byte[] frame = read(channel, position + 4, 5);
+                return frame.length < 5 ? null : new int[]{be16(frame, 3), be16(frame, 1)};
+            }
+            position += 2 + length;
+        }
+        return null;
+    }
+
+    /**
+     * Find the first track header (moov/trak/tkhd) with a picture size; the moov box may be at either end
+     */
+    private static int[] isobmffSize(FileChannel channel, long start, long end, int depth, int[] boxes)
+            throws IOException {
+        long position = start;
+        while (position + 8 <= end && boxes[0]++ < MAX_BOXES) {
+            byte[] box = read(channel, position, 16);
+            if (box.length < 8) {
+                return null;
+            }
+            long size = be32(box, 0) & 0xffffffffL;
+            String type = ascii(box, 4, 4);
+            int headerLength = 8;
+            if (size == 1) {
+                if (box.length < 16) {
+                    return null;
+                }
+                size = be64(box, 8);
+                headerLength = 16;
+            } else if (size == 0) {
+                // Runs to the end of its parent
+                size = end - position;
+            }
+            if (size < headerLength) {
+                return null;
+            }
+
+            long content = position + headerLength;
+            if ((type.equals("moov") || type.equals("trak")) && depth < MAX_BOX_DEPTH) {
+                int[] found = isobmffSize(channel, content, Math.min(end, position + size), depth + 1, boxes);
+                if (found != null) {
+                    return found;
+                }
+            } else if (type.equals("tkhd")) {
+                // Version 0 and 1 differ in the width of their time fields; sizes are 16.16 fixed point
+                byte[] version = read(channel, content, 1);
+                long offset = version.length == 1 && version[0] == 1 ? 88 : 76;
+                byte[] dimensions = read(channel, content + offset, 8);
+                if (dimensions.length == 8) {
+                    int width = be32(dimensions, 0) >>> 16;
+                    int height = be32(dimensions, 4) >>> 16;
+                    if (width > 0 && height > 0) {
+                        // Audio tracks have no size; keep looking for the video track
+                        return new int[]{width, height};
+                    }
+                }
+            }
+            position += size;
+        }
+        return null;
+    }
+
+    /**
+     * Width and height from the main AVI header (RIFF/AVI /LIST hdrl/avih)
+     */
+    private static int[] aviSize(byte[] data) {
+        if (data.length < 72 || !ascii(data, 24, 4).equals("avih")) {
+            return null;
+        }
+        return new int[]{le32(data, 64), le32(data, 68)};
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == -1) {
+                break;
+            }
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static boolean startsWith(byte[] data, byte... prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String ascii(byte[] data, int offset, int length) {
+        if (data.length < offset + length) {
+            return "";
+        }
+        return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int be16(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+    }
+
+    private static int be32(byte[] data, int offset) {
+        return (be16(data, offset) << 16) | be16(data, offset + 2);
+    }
+
+    private static long be64(byte[] data, int offset) {
+        return ((long) be32(data, offset) << 32) | (be32(data, offset + 4) & 0xffffffffL);
+    }
+
+    private static int le16(byte[] data, int offset) {
+        return (data[offset] & 0xff) | ((data[offset + 1] & 0xff) << 8);
+    }
+
+    private static int le24(byte[] data, int offset) {
+        return le16(data, offset) | ((data[offset + 2] & 0xff) << 16);
+    }
+
+    private static int le32(byte[] data, int offset) {
+        return le16(data, offset) | (le16(data, offset + 2) << 16);
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int lastDotIndex = fileName.lastIndexOf('.');
+        if (lastDotIndex > 0 && lastDotIndex < fileName.length() - 1) {
+            return fileName.substring(lastDotIndex + 1).toLowerCase();
+        }
+        return "";
+    }
+}
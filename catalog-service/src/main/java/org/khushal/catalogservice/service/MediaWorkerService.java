@@ -0,0 +1,74 @@
+package org.khushal.catalogservice.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+
+@Service
+public class MediaWorkerService {
+
+    private final WebClient webClient;
+
+    @Value("${media.worker.url:http://localhost:8085}")
+    private String mediaWorkerUrl;
+
+    @Autowired
+    public MediaWorkerService(WebClient.Builder webClientBuilder) {
+        this.webClient = webClientBuilder.build();
+    }
+
+    /**
+     * Ask media-worker to normalise freshly uploaded images into render-ready variants.
+     * Fire-and-forget: the upload response never waits for it, and renders fall back to the
+     * original images when variants are missing, so failures are only logged.
+     * @param category Category name
+     * @param folder Folder name
+     * @param fileNames Uploaded image file names (001.jpg, ...)
+     */
+    public void requestNormalization(String category, String folder, List<String> fileNames) {
+        String uri = UriComponentsBuilder.fromHttpUrl(mediaWorkerUrl)
+                .path("/api/worker/normalize")
+                .queryParam("category", category)
+                .queryParam("folder", folder)
+                .queryParam("files", String.join(",", fileNames))
+                .encode()
+                .toUriString();
+
+        webClient.post()
+                .uri(URI.create(uri))
+                .retrieve()
+                .toBodilessEntity()
+                .subscribe(
+                        response -> { },
+                        error -> System.err.println("Image normalisation request failed for "
+                                + category + "/" + folder + ": " + error.getMessage()));
+    }
+
+    /**
+     * Ask media-worker to drop the render variants of deleted images, so an image uploaded later under the
+     * same number is never rendered from them. Fire-and-forget like requestNormalization.
+     */
+    public void deleteVariants(String category, String folder, List<String> fileNames) {
+        String uri = UriComponentsBuilder.fromHttpUrl(mediaWorkerUrl)
+                .path("/api/worker/normalize")
+                .queryParam("category", category)
+                .queryParam("folder", folder)
+                .queryParam("files", String.join(",", fileNames))
+                .encode()
+                .toUriString();
+
+        webClient.delete()
+                .uri(URI.create(uri))
+                .retrieve()
+                .toBodilessEntity()
+                .subscribe(
+                        response -> { },
+                        error -> System.err.println("Deleting normalised images failed for "
+                                + category + "/" + folder + ": " + error.getMessage()));
+    }
+}
@@ -0,0 +1,284 @@
+package org.khushal.catalogservice.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a multipart/form-data request body part by part, straight from the request stream.
+ * Nothing is buffered beyond a fixed window, so a part can be written to its destination while it arrives
+ * instead of being spooled to a temp file by the servlet container first. Works only when multipart
+ * resolution is lazy (spring.servlet.multipart.resolve-lazily) and the handler never touches getParts().
+ */
+public class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+
+    private final InputStream in;
+    // "\r\n--boundary": every delimiter, including the first once the CRLF below is prepended
+    private final byte[] delimiter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int head;
+    private int tail;
+
+    private PartInputStream current;
+    private boolean finished;
+
+    MultipartStreamReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        // The body starts with "--boundary" without a leading CRLF; add one so the first delimiter matches too
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        tail = 2;
+    }
+
+    /**
+     * Reader over the body of a multipart/form-data request
+     */
+    public static MultipartStreamReader of(HttpServletRequest request) throws IOException {
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data")) {
+            throw new IllegalArgumentException("Expected a multipart/form-data request");
+        }
+        String boundary = headerParameters(contentType).get("boundary");
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            throw new IllegalArgumentException("Missing or invalid multipart boundary");
+        }
+        return new MultipartStreamReader(request.getInputStream(), boundary);
+    }
+
+    /**
+     * Advance to the next part, skipping whatever is left of the current one.
+     * @return the next part, or null after the closing delimiter
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (current == null) {
+            // Skip the preamble up to the first delimiter
+            new PartInputStream().transferTo(OutputStream.nullOutputStream());
+        } else {
+            current.transferTo(OutputStream.nullOutputStream());
+        }
+
+        int first = readByte();
+        int second = readByte();
+        if (first == '-' && second == '-') {
+            finished = true;
+            return null;
+        }
+        if (first != '\r' || second != '\n') {
+            throw new IOException("Malformed multipart delimiter");
+        }
+
+        Map<String, String> headers = readHeaders();
+        Map<String, String> disposition = headerParameters(headers.getOrDefault("content-disposition", ""));
+        current = new PartInputStream();
+        return new Part(disposition.get("name"), disposition.get("filename"), headers.get("content-type"), current);
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int total = 0;
+        while (true) {
+            int b = readByte();
+            if (++total > MAX_HEADER_BYTES) {
+                throw new IOException("Multipart part headers too large");
+            }
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            String text = line.toString(StandardCharsets.UTF_8);
+            line.reset();
+            if (text.endsWith("\r")) {
+                text = text.substring(0, text.length() - 1);
+            }
+            if (text.isEmpty()) {
+                return headers;
+            }
+            int colon = text.indexOf(':');
+            if (colon > 0) {
+                headers.put(text.substring(0, colon).trim().toLowerCase(Locale.ROOT), text.substring(colon + 1).trim());
+            }
+        }
+    }
+
+    private int readByte() throws IOException {
+        if (head == tail && fill() == -1) {
+            throw new IOException("Unexpected end of multipart stream");
+        }
+        return buffer[head++] & 0xff;
+    }
+
+    /**
+     * Read more of the request into the window, compacting it first
+     */
+    private int fill() throws IOException {
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        int read = in.read(buffer, tail, buffer.length - tail);
+        if (read > 0) {
+            tail += read;
+        }
+        return read;
+    }
+
+    private int indexOfDelimiter() {
+        outer:
+        for (int i = head; i <= tail - delimiter.length; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Parameters of a header value such as {@code form-data; name="files"; filename="a.jpg"}
+     */
+    private static Map<String, String> headerParameters(String value) {
+        Map<String, String> parameters = new HashMap<>();
+        List<String> tokens = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ';' && !quoted) {
+                tokens.add(value.substring(start, i));
+                start = i + 1;
+            }
+        }
+        tokens.add(value.substring(start));
+
+        for (String token : tokens) {
+            int equals = token.indexOf('=');
+            if (equals > 0) {
+                String name = token.substring(0, equals).trim().toLowerCase(Locale.ROOT);
+                String parameter = token.substring(equals + 1).trim();
+                if (parameter.length() >= 2 && parameter.startsWith("\"") && parameter.endsWith("\"")) {
+                    parameter = parameter.substring(1, parameter.length() - 1);
+                }
+                parameters.put(name, parameter);
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * One part of the body; its stream ends at the next delimiter
+     */
+    public static class Part {
+        private final String name;
+        private final String fileName;
+        private final String contentType;
+        private final InputStream inputStream;
+
+        Part(String name, String fileName, String contentType, InputStream inputStream) {
+            this.name = name;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.inputStream = inputStream;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Original file name, or null for a plain form field
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public boolean isFile() {
+            return fileName != null;
+        }
+
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+    }
+
+    /**
+     * Body of the current part. Hands out bytes that cannot belong to a delimiter and stops at the delimiter.
+     */
+    private class PartInputStream extends InputStream {
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            while (true) {
+                int index = indexOfDelimiter();
+                int available;
+                if (index >= 0) {
+                    available = index - head;
+                    if (available == 0) {
+                        head += delimiter.length;
+                        done = true;
+                        return -1;
+                    }
+                } else {
+                    // Keep back a possible partial delimiter at the end of the window
+                    available = tail - head - (delimiter.length - 1);
+                    if (available <= 0) {
+                        if (fill() == -1) {
+                            throw new IOException("Unexpected end of multipart stream");
+                        }
+                        continue;
+                    }
+                }
+                int count = Math.min(length, available);
+                System.arraycopy(buffer, head, target, offset, count);
+                head += count;
+                return count;
+            }
+        }
+
+        /**
+         * Closing a part skips to its end; the request stream itself stays open for the next part
+         */
+        @Override
+        public void close() throws IOException {
+            transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
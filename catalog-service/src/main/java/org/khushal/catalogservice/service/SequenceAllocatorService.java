@@ -0,0 +1,87 @@
+package org.khushal.catalogservice.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out image sequence numbers per folder.
+ * Each allocation reserves a contiguous block under a lock striped by folder, so concurrent uploads to one
+ * folder get unique numbers while uploads to different folders rarely contend. The last allocated number is
+ * persisted in the folder, which keeps numbering monotonic across restarts even after images are deleted.
+ * A folder that is deleted and created again starts over from its images on disk, usually at 001.
+ */
+@Service
+public class SequenceAllocatorService {
+
+    // Persisted high-water mark; no media extension, so listings and the folder index ignore it
+    public static final String SEQUENCE_FILE = ".sequence";
+
+    private static final int STRIPES = 64;
+
+    private final Object[] locks = new Object[STRIPES];
+    private final Map<Path, Integer> lastAllocated = new ConcurrentHashMap<>();
+
+    private final FolderIndexService folderIndexService;
+
+    @Autowired
+    public SequenceAllocatorService(FolderIndexService folderIndexService) {
+        this.folderIndexService = folderIndexService;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Reserve count consecutive sequence numbers in the folder and return the first one
+     */
+    public int allocate(Path folderPath, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Sequence count must be positive");
+        }
+        Path key = folderPath.toAbsolutePath().normalize();
+        synchronized (locks[Math.floorMod(key.hashCode(), STRIPES)]) {
+            // Every allocation persists the mark, so a missing file means the folder was deleted and recreated
+            Integer cached = Files.exists(key.resolve(SEQUENCE_FILE)) ? lastAllocated.get(key) : null;
+            int last = cached != null ? cached : loadLastAllocated(key);
+            int first = last + 1;
+            int newLast = last + count;
+            persist(key, newLast);
+            lastAllocated.put(key, newLast);
+            return first;
+        }
+    }
+
+    /**
+     * Starting point for a folder: the persisted mark, or the highest image on disk if that is larger
+     * (files copied in by hand, or a folder that predates the allocator)
+     */
+    private int loadLastAllocated(Path folderPath) {
+        int persisted = 0;
+        Path sequenceFile = folderPath.resolve(SEQUENCE_FILE);
+        if (Files.exists(sequenceFile)) {
+            try {
+                persisted = Integer.parseInt(Files.readString(sequenceFile, StandardCharsets.UTF_8).trim());
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Ignoring unreadable sequence file " + sequenceFile + ": " + e.getMessage());
+            }
+        }
+        return Math.max(persisted, folderIndexService.getMaxImageSequence(folderPath));
+    }
+
+    private void persist(Path folderPath, int last) {
+        Path sequenceFile = folderPath.resolve(SEQUENCE_FILE);
+        Path tempFile = folderPath.resolve(SEQUENCE_FILE + ".tmp");
+        try {
+            Files.writeString(tempFile, Integer.toString(last), StandardCharsets.UTF_8);
+            Files.move(tempFile, sequenceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to persist sequence for " + folderPath + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.khushal.catalogservice.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Client of storage-service, so catalog-service and video-service need not share a disk. Keys are the
+ * relative paths used on disk (public/images/{category}/{folder}/001.jpg, uploads/video_1.mp4), so each node
+ * keeps working on its local tree and copies what the other side needs: a folder is pushed before it is
+ * rendered, and a rendered video is fetched when it is streamed and not yet here. Off unless
+ * catalog.storage.enabled is set; then everything behaves as on a single node.
+ */
+@Service
+public class StorageService {
+
+    private static final int LIST_PAGE_SIZE = 1000;
+    // Files of a folder that video-service needs besides the media: the slide order
+    private static final Set<String> SYNCED_HIDDEN_FILES = Set.of(".manifest");
+    // storage-service accepts writes only with its service token
+    private static final String TOKEN_HEADER = "X-Storage-Token";
+
+    private final WebClient webClient;
+
+    @Value("${catalog.storage.enabled:false}")
+    private boolean enabled;
+
+    @Value("${storage.service.url:http://localhost:8082}")
+    private String storageServiceUrl;
+
+    @Value("${storage.service.token:}")
+    private String storageToken;
+
+    @Autowired
+    public StorageService(WebClient.Builder webClientBuilder) {
+        this.webClient = webClientBuilder.build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Make the stored copy of a folder match the local one: upload files that are new or changed since
+     * their last upload, and delete stored files that are gone here. Staging files and the sequence mark
+     * stay local.
+     * @return number of files uploaded or deleted
+     */
+    public int pushFolder(Path folder) throws IOException {
+        String prefix = key(folder) + "/";
+        Map<String, Map<String, Object>> stored = new HashMap<>();
+        for (Map<String, Object> blob : list(prefix)) {
+            String name = ((String) blob.get("key")).substring(prefix.length());
+            if (!name.contains("/")) {
+                stored.put(name, blob);
+            }
+        }
+
+        int changes = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, this::isSynced)) {
+            for (Path file : files) {
+                Map<String, Object> blob = stored.remove(file.getFileName().toString());
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                // Stored copies are stamped when uploaded, so a later local change is newer than its copy
+                boolean current = blob != null
+                        && ((Number) blob.get("size")).longValue() == attributes.size()
+                        && ((Number) blob.get("lastModified")).longValue()
+                            >= attributes.lastModifiedTime().toMillis();
+                if (!current) {
+                    push(file);
+                    changes++;
+                }
+            }
+        }
+        for (String name : stored.keySet()) {
+            delete(prefix + name);
+            changes++;
+        }
+        return changes;
+    }
+
+    /**
+     * Upload one file under its path
+     */
+    public void push(Path file) throws IOException {
+        try {
+            webClient.put()
+                    .uri(blobUri(key(file)))
+                    .header(TOKEN_HEADER, storageToken)
+                    .contentLength(Files.size(file))
+                    .body(BodyInserters.fromResource(new FileSystemResource(file)))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block();
+        } catch (WebClientResponseException e) {
+            throw new IOException("Failed to store " + file + ": " + e.getStatusCode() + " "
+                    + e.getResponseBodyAsString());
+        }
+    }
+
+    /**
+     * Download a file stored under its path, replacing the local copy atomically; the local modification
+     * time is set to the stored one
+     * @return false if nothing is stored under the path
+     */
+    public boolean fetch(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, ".fetch-", ".part");
+        try {
+            Long lastModified = webClient.get()
+                    .uri(blobUri(key(file)))
+                    .exchangeToMono(response -> {
+                        if (response.statusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                            return response.releaseBody().then(Mono.just(-1L));
+                        }
+                        if (!response.statusCode().is2xxSuccessful()) {
+                            return response.createException().flatMap(e -> Mono.<Long>error(e));
+                        }
+                        long modified = response.headers().asHttpHeaders().getLastModified();
+                        return DataBufferUtils.write(response.bodyToFlux(DataBuffer.class), temp,
+                                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+                                .then(Mono.just(modified));
+                    })
+                    .block();
+            if (lastModified == null || lastModified < 0) {
+                return false;
+            }
+            if (lastModified > 0) {
+                Files.setLastModifiedTime(temp, FileTime.fromMillis(lastModified));
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (WebClientResponseException e) {
+            throw new IOException("Failed to fetch " + file + ": " + e.getStatusCode());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void delete(String key) throws IOException {
+        try {
+            webClient.delete()
+                    .uri(blobUri(key))
+                    .header(TOKEN_HEADER, storageToken)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block();
+        } catch (WebClientResponseException.NotFound e) {
+            // Already gone
+        } catch (WebClientResponseException e) {
+            throw new IOException("Failed to delete " + key + ": " + e.getStatusCode());
+        }
+    }
+
+    /**
+     * Every stored object under the prefix, following the pages
+     */
+    private List<Map<String, Object>> list(String prefix) throws IOException {
+        List<Map<String, Object>> blobs = new ArrayList<>();
+        String startAfter = null;
+        do {
+            UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(storageServiceUrl)
+                    .path("/api/storage/blobs")
+                    .queryParam("prefix", prefix)
+                    .queryParam("limit", LIST_PAGE_SIZE);
+            if (startAfter != null) {
+                uri.queryParam("startAfter", startAfter);
+            }
+            Map<String, Object> page;
+            try {
+                page = webClient.get()
+                        .uri(uri.build().encode().toUri())
+                        .retrieve()
+                        .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() { })
+                        .block();
+            } catch (WebClientResponseException e) {
+                throw new IOException("Failed to list " + prefix + ": " + e.getStatusCode());
+            }
+            if (page == null) {
+                break;
+            }
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> pageBlobs = (List<Map<String, Object>>) page.get("blobs");
+            blobs.addAll(pageBlobs);
+            startAfter = (String) page.get("nextStartAfter");
+        } while (startAfter != null);
+        return blobs;
+    }
+
+    private boolean isSynced(Path file) {
+        String name = file.getFileName().toString();
+        return Files.isRegularFile(file) && (!name.startsWith(".") || SYNCED_HIDDEN_FILES.contains(name));
+    }
+
+    private URI blobUri(String key) {
+        return UriComponentsBuilder.fromHttpUrl(storageServiceUrl)
+                .pathSegment("api", "storage", "blobs")
+                .pathSegment(key.split("/"))
+                .build()
+                .encode()
+                .toUri();
+    }
+
+    /**
+     * Storage key of a path relative to the working directory
+     */
+    private String key(Path path) {
+        Path normalized = path.normalize();
+        if (normalized.isAbsolute() || normalized.startsWith("..")) {
+            throw new IllegalArgumentException("Not a path inside the working directory: " + path);
+        }
+        return normalized.toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,251 @@
+package org.khushal.catalogservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.khushal.catalogservice.exception.UploadOffsetMismatchException;
+import org.khushal.catalogservice.model.StoredFile;
+import org.khushal.catalogservice.model.UploadSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable chunked uploads for large videos: create a session, append chunks at the current offset,
+ * query the offset after a dropped connection, then finalize.
+ * Chunks are written with positional FileChannel writes into a part file under uploads/sessions and hashed
+ * as they arrive, so finalizing is a rename. Sessions that receive no bytes for longer than the expiry,
+ * including in the middle of a chunk, are dropped with their part files; part files left behind by a
+ * restart are swept on startup.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Path SESSIONS_DIR = Paths.get("uploads", "sessions");
+    private static final String PART_SUFFIX = ".part";
+
+    private static final int CHUNK_BUFFER_SIZE = 256 * 1024;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    private final MediaService mediaService;
+
+    @Value("${catalog.upload.session-expiry-minutes:60}")
+    private long sessionExpiryMinutes;
+
+    @Value("${catalog.upload.max-session-size:10GB}")
+    private DataSize maxSessionSize;
+
+    @Autowired
+    public UploadSessionService(MediaService mediaService) throws IOException {
+        this.mediaService = mediaService;
+        Files.createDirectories(SESSIONS_DIR);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Part files cannot outlive a restart: their sessions (and running digests) were in memory
+        sweeper.execute(this::sweepOrphans);
+        sweeper.scheduleAtFixedRate(this::expireSessions, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Open a session for a video of the given size
+     */
+    public UploadSession create(String categoryName, String folderName, String fileName, long totalSize) {
+        mediaService.checkVideoName(fileName);
+        if (totalSize <= 0) {
+            throw new IllegalArgumentException("File size must be positive");
+        }
+        if (totalSize > maxSessionSize.toBytes()) {
+            throw new IllegalArgumentException("File too large. Maximum size: " + maxSessionSize.toMegabytes() + "MB");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path partFile = SESSIONS_DIR.resolve(id + PART_SUFFIX);
+        try {
+            Files.createFile(partFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create upload session: " + e.getMessage());
+        }
+        UploadSession session = new UploadSession(id, categoryName, folderName, fileName, totalSize, partFile, sha256());
+        sessions.put(id, session);
+        return session;
+    }
+
+    /**
+     * The session, or null if it never existed, expired or was finished
+     */
+    public UploadSession get(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Write one chunk at the given offset, which must be the session's current offset
+     * @return the new offset
+     */
+    public long appendChunk(UploadSession session, long offset, InputStream chunk) throws IOException {
+        if (!session.tryBegin()) {
+            throw new UploadOffsetMismatchException("Another chunk is being written to upload " + session.getId(),
+                    session.getOffset());
+        }
+        try {
+            checkOpen(session);
+            if (offset != session.getOffset()) {
+                throw new UploadOffsetMismatchException("Chunk offset " + offset + " does not match upload offset "
+                        + session.getOffset(), session.getOffset());
+            }
+
+            MessageDigest digest = session.getDigest();
+            long position = offset;
+            try (FileChannel channel = FileChannel.open(session.getPartFile(), StandardOpenOption.WRITE)) {
+                byte[] bytes = new byte[CHUNK_BUFFER_SIZE];
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                int read;
+                while ((read = chunk.read(bytes)) != -1) {
+                    // Aborted or expired while this chunk was arriving
+                    checkOpen(session);
+                    if (position + read > session.getTotalSize()) {
+                        throw new IllegalArgumentException("Chunk runs past the declared size of " + session.getTotalSize());
+                    }
+                    buffer.clear().limit(read);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    digest.update(bytes, 0, read);
+                    // Record progress as it is made, so a chunk cut off mid-way can resume where it stopped,
+                    // and a slow chunk that keeps arriving is not expired; a stalled one still is
+                    session.setOffset(position);
+                    session.touch();
+                }
+            } finally {
+                session.touch();
+            }
+            return session.getOffset();
+        } finally {
+            finish(session);
+        }
+    }
+
+    /**
+     * Move a fully received upload into its folder. The session stays open until the commit succeeds;
+     * if the content check or the commit fails, it is closed and its part file deleted.
+     */
+    public StoredFile complete(UploadSession session) {
+        if (!session.tryBegin()) {
+            throw new UploadOffsetMismatchException("A chunk is still being written to upload " + session.getId(),
+                    session.getOffset());
+        }
+        try {
+            checkOpen(session);
+            if (!session.isComplete()) {
+                throw new UploadOffsetMismatchException("Upload incomplete: " + session.getOffset() + " of "
+                        + session.getTotalSize() + " bytes received", session.getOffset());
+            }
+            UploadStorageService.StagedFile staged = new UploadStorageService.StagedFile(session.getPartFile(),
+                    session.getOriginalName(), session.getTotalSize(),
+                    HexFormat.of().formatHex(session.getDigest().digest()));
+            try {
+                return mediaService.commitUploadedVideo(session.getCategoryName(), session.getFolderName(), staged);
+            } finally {
+                // Committed, or failed with the digest already consumed: either way the session is done
+                sessions.remove(session.getId());
+                session.close();
+            }
+        } finally {
+            finish(session);
+        }
+    }
+
+    /**
+     * Abandon a session and delete what it received. Does not wait for a chunk that is still arriving;
+     * that write stops at its next read and deletes the part file itself.
+     */
+    public void abort(UploadSession session) {
+        sessions.remove(session.getId());
+        session.close();
+        if (!session.isBusy()) {
+            deletePartFile(session.getPartFile());
+        }
+    }
+
+    private void checkOpen(UploadSession session) {
+        if (session.isClosed() || !sessions.containsKey(session.getId())) {
+            throw new IllegalArgumentException("Upload session is closed: " + session.getId());
+        }
+    }
+
+    /**
+     * Release the session; a session closed meanwhile loses its part file (a no-op once committed)
+     */
+    private void finish(UploadSession session) {
+        session.end();
+        if (session.isClosed()) {
+            deletePartFile(session.getPartFile());
+        }
+    }
+
+    public long getExpiresAt(UploadSession session) {
+        return session.getLastActivity() + TimeUnit.MINUTES.toMillis(sessionExpiryMinutes);
+    }
+
+    private void expireSessions() {
+        long now = System.currentTimeMillis();
+        sessions.values().forEach(session -> {
+            if (getExpiresAt(session) < now) {
+                System.out.println("Upload session expired: " + session.getId());
+                abort(session);
+            }
+        });
+    }
+
+    private void sweepOrphans() {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(SESSIONS_DIR, "*" + PART_SUFFIX)) {
+            for (Path partFile : stream) {
+                String id = partFile.getFileName().toString().replace(PART_SUFFIX, "");
+                if (!sessions.containsKey(id)) {
+                    deletePartFile(partFile);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to sweep upload sessions: " + e.getMessage());
+        }
+    }
+
+    private void deletePartFile(Path partFile) {
+        try {
+            Files.deleteIfExists(partFile);
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + partFile + ": " + e.getMessage());
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+}
@@ -0,0 +1,201 @@
+package org.khushal.catalogservice.service;
+
+import org.khushal.catalogservice.model.MediaInfo;
+import org.khushal.catalogservice.model.StoredFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Writes uploaded bytes to disk in a single pass.
+ * An upload is first staged next to its destination, hashing (SHA-256) and counting bytes as they are written,
+ * then linked into place under its final name once that is known. Listings never see a partial file, and
+ * the data is written exactly once. With the blob store enabled, committing links the folder entry to the
+ * stored content instead, so identical uploads share one copy on disk.
+ * Media content is checked against its extension from the first bytes of the stream, so a mislabelled file
+ * is rejected before the rest of it is written; its pixel size is read from the headers before commit.
+ */
+@Service
+public class UploadStorageService {
+
+    // Staged uploads have no media extension, so listings and the folder index ignore them
+    private static final String STAGING_PREFIX = ".upload-";
+    private static final String STAGING_SUFFIX = ".part";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final BlobStoreService blobStoreService;
+
+    // Per-file limit for streamed uploads, which bypass the servlet multipart limits
+    @Value("${spring.servlet.multipart.max-file-size:100MB}")
+    private DataSize maxFileSize;
+
+    @Autowired
+    public UploadStorageService(BlobStoreService blobStoreService) {
+        this.blobStoreService = blobStoreService;
+    }
+
+    /**
+     * Stream the input into a staging file in the folder
+     */
+    public StagedFile stage(Path folderPath, InputStream input, String originalName) throws IOException {
+        MessageDigest digest = sha256();
+        long limit = maxFileSize.toBytes();
+        Path staging = Files.createTempFile(folderPath, STAGING_PREFIX, STAGING_SUFFIX);
+        long size = 0;
+        byte[] header = MediaSniffer.isMediaName(originalName) ? new byte[MediaSniffer.HEADER_SIZE] : null;
+        try (OutputStream output = Files.newOutputStream(staging)) {
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                if (header != null && size < header.length) {
+                    int count = (int) Math.min(read, header.length - size);
+                    System.arraycopy(buffer, 0, header, (int) size, count);
+                    if (size + count == header.length) {
+                        MediaSniffer.checkHeader(header, originalName);
+                    }
+                }
+                size += read;
+                if (size > limit) {
+                    throw new IllegalArgumentException("File too large: " + originalName +
+                                                     ". Maximum size: " + maxFileSize.toMegabytes() + "MB");
+                }
+                digest.update(buffer, 0, read);
+                output.write(buffer, 0, read);
+            }
+            if (header != null && size > 0 && size < header.length) {
+                // Shorter than a full header; check what there is
+                MediaSniffer.checkHeader(Arrays.copyOf(header, (int) size), originalName);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staging);
+            throw e;
+        }
+        return new StagedFile(staging, baseName(originalName), size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Check a staged upload's content against its name and read its pixel size; done once per staged file
+     * @return null for files that are not images or videos
+     * @throws IllegalArgumentException if the content is not what the extension says
+     */
+    public MediaInfo probe(StagedFile staged) throws IOException {
+        if (staged.mediaInfo == null && MediaSniffer.isMediaName(staged.getOriginalName())) {
+            staged.mediaInfo = MediaSniffer.probe(staged.getPath(), staged.getOriginalName());
+        }
+        return staged.mediaInfo;
+    }
+
+    /**
+     * Move a staged upload to its final location. Never replaces an existing file.
+     * @throws IllegalArgumentException if the content is not what the extension says
+     */
+    public StoredFile commit(StagedFile staged, Path destination) throws IOException {
+        MediaInfo mediaInfo = probe(staged);
+        if (blobStoreService.isEnabled()) {
+            blobStoreService.storeAndLink(staged.getPath(), staged.getSha256(), destination);
+            return new StoredFile(destination.getFileName().toString(), staged.getOriginalName(),
+                    staged.getSize(), staged.getSha256(), mediaInfo);
+        }
+        try {
+            // A hard link fails if the name is taken, where an atomic rename would silently replace the file
+            Files.createLink(destination, staged.getPath());
+            Files.delete(staged.getPath());
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            // No hard links here (or staged on another file system); a plain move still refuses to replace
+            Files.move(staged.getPath(), destination);
+        }
+        return new StoredFile(destination.getFileName().toString(), staged.getOriginalName(),
+                staged.getSize(), staged.getSha256(), mediaInfo);
+    }
+
+    /**
+     * Take back a committed upload, e.g. when a later file of the same all-or-nothing batch fails
+     */
+    public void uncommit(Path destination) {
+        try {
+            blobStoreService.delete(destination);
+        } catch (IOException e) {
+            System.err.println("Failed to remove committed upload " + destination + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drop a staged upload that will not be committed
+     */
+    public void discard(StagedFile staged) {
+        try {
+            Files.deleteIfExists(staged.getPath());
+        } catch (IOException e) {
+            System.err.println("Failed to delete staged upload " + staged.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * File name without any client-side directory (some browsers send full paths)
+     */
+    private String baseName(String originalName) {
+        if (originalName == null) {
+            return null;
+        }
+        int slash = Math.max(originalName.lastIndexOf('/'), originalName.lastIndexOf('\\'));
+        return originalName.substring(slash + 1);
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * An upload written to its staging file, not yet visible under its final name
+     */
+    public static class StagedFile {
+        private final Path path;
+        private final String originalName;
+        private final long size;
+        private final String sha256;
+        // Set by probe(); staged files are handed between threads
+        private volatile MediaInfo mediaInfo;
+
+        StagedFile(Path path, String originalName, long size, String sha256) {
+            this.path = path;
+            this.originalName = originalName;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getOriginalName() {
+            return originalName;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+    }
+}
@@ -2,10 +2,22 @@ package org.khushal.catalogservice.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,16 +26,19 @@ public class VideoService {
     
     private final WebClient webClient;
     
+    private final StorageService storageService;
+    
     @Value("${video.service.url:http://localhost:8082}")
     private String videoServiceUrl;
     
     @Autowired
-    public VideoService(WebClient.Builder webClientBuilder) {
+    public VideoService(WebClient.Builder webClientBuilder, StorageService storageService) {
         this.webClient = webClientBuilder.build();
+        this.storageService = storageService;
     }
     
     /**
-     * Generate video from images and audio using video-service
+     * Queue a video render from images and audio on video-service
      * @param category Category name
      * @param folder Folder name
      * @param audioPath Path to audio file
@@ -32,24 +47,83 @@ public class VideoService {
      * @param outputDir Output directory (default: uploads)
      * @param cleanupImages Whether to cleanup images after generation
      * @param cleanupAudio Whether to cleanup audio after generation
-     * @return Response from video-service
+     * @param profile Encode profile (standard or slideshow)
+     * @param preview Whether to also render a low-resolution draft first
+     * @return Response from video-service (202 with the render job id)
      */
     public ResponseEntity<?> generateVideo(String category, String folder, String audioPath,
                                           int secondsPerImage, int height, String outputDir,
-                                          boolean cleanupImages, boolean cleanupAudio) {
+                                          boolean cleanupImages, boolean cleanupAudio, String profile,
+                                          boolean preview) {
+        if (storageService.isEnabled()) {
+            // video-service may run on another node: it reads the folder and audio from storage-service
+            try {
+                Path folderPath = Paths.get("public", "images", category, folder);
+                storageService.pushFolder(folderPath);
+                Path audio = Paths.get(audioPath).normalize();
+                if (!audio.startsWith(folderPath)) {
+                    storageService.push(audio);
+                }
+            } catch (IOException | RuntimeException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Failed to publish " + category + "/" + folder
+                        + " to storage-service: " + e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(errorResponse);
+            }
+        }
+
+        // Build URI with query parameters
+        String uri = String.format("%s/api/video/merge?category=%s&folder=%s&audioPath=%s&secondsPerImage=%d&height=%d&outputDir=%s&cleanupImages=%s&cleanupAudio=%s&profile=%s&preview=%s",
+                videoServiceUrl, category, folder, audioPath, secondsPerImage, height, outputDir, cleanupImages, cleanupAudio,
+                URLEncoder.encode(profile, StandardCharsets.UTF_8), preview);
+        return exchange(webClient.post().uri(uri));
+    }
+
+    /**
+     * Get the status of a render job on video-service
+     * @param jobId Render job id returned by generateVideo
+     * @return Response from video-service
+     */
+    public ResponseEntity<?> getJobStatus(String jobId) {
+        return exchange(webClient.get().uri(videoServiceUrl + "/api/video/jobs/{jobId}", jobId));
+    }
+
+    /**
+     * Relay the Server-Sent Events progress stream of a render job from video-service
+     * @param jobId Render job id returned by generateVideo
+     * @return Events as received ("progress" while rendering, a final "complete")
+     */
+    public Flux<ServerSentEvent<String>> streamJobEvents(String jobId) {
+        return webClient.get()
+                .uri(videoServiceUrl + "/api/video/jobs/{jobId}/events", jobId)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                .onErrorResume(WebClientResponseException.class, e -> Flux.just(ServerSentEvent.<String>builder()
+                        .event("error")
+                        .data("{\"error\":\"Job events unavailable: " + e.getStatusCode().value() + "\"}")
+                        .build()));
+    }
+
+    /**
+     * Call video-service and pass its status code and body through
+     */
+    private ResponseEntity<?> exchange(WebClient.RequestHeadersSpec<?> request) {
         try {
-            // Build URI with query parameters
-            String uri = String.format("%s/api/video/merge?category=%s&folder=%s&audioPath=%s&secondsPerImage=%d&height=%d&outputDir=%s&cleanupImages=%s&cleanupAudio=%s",
-                    videoServiceUrl, category, folder, audioPath, secondsPerImage, height, outputDir, cleanupImages, cleanupAudio);
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Object> response = (Map<String, Object>) webClient.post()
-                    .uri(uri)
+            ResponseEntity<Map> response = request
                     .retrieve()
-                    .bodyToMono(Map.class)
+                    .toEntity(Map.class)
                     .block();
-            
-            return ResponseEntity.ok(response);
+
+            return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+        } catch (WebClientResponseException e) {
+            // Keep Retry-After so a full render queue (503) reaches the client intact
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(e.getStatusCode());
+            String retryAfter = e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null) {
+                builder.header(HttpHeaders.RETRY_AFTER, retryAfter);
+            }
+            return builder.body(e.getResponseBodyAsString());
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", "Error calling video-service: " + e.getMessage());
@@ -57,4 +131,3 @@ public class VideoService {
         }
     }
 }
-
@@ -0,0 +1,199 @@
+package org.khushal.catalogservice.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves rendered videos with HTTP Range (206), ETag and Last-Modified support.
+ * The body never passes through heap buffers: on Tomcat's NIO connector the file is handed to the
+ * connector's sendfile support, otherwise bytes are pushed with FileChannel.transferTo. Only the
+ * requested range is ever read, so seeking in a large video costs the size of the range.
+ */
+@Service
+public class VideoStreamService {
+
+    // Tomcat request attributes for zero-copy sendfile (see org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Single byte range: "bytes=start-end", "bytes=start-" or suffix "bytes=-length"
+    private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    // transferTo may move fewer bytes than asked; cap each call so progress is steady
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    /**
+     * Write the file (or the requested range of it) to the response
+     */
+    public void stream(Path file, String contentType, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        stream(file, contentType, request, response, true);
+    }
+
+    /**
+     * Write the file (or the requested range of it) to the response. Sendfile sends the bytes after the
+     * handler returns, so pass allowSendfile=false for a file that may be deleted once this call returns;
+     * the body is then written before returning.
+     */
+    public void stream(Path file, String contentType, HttpServletRequest request, HttpServletResponse response,
+                       boolean allowSendfile) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        // Strong validator from size and mtime; renders never rewrite a file in place with the same values
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeStillValid(request, etag, lastModified)) {
+            long[] requested = parseRange(range, length);
+            if (requested != null) {
+                if (requested[0] >= length || requested[0] > requested[1]) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = requested[0];
+                end = requested[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+            // Multi-range and invalid headers (bytes=5-3) fall through to a full 200 response, as RFC 9110 requires
+        }
+
+        long count = length == 0 ? 0 : end - start + 1;
+        response.setContentType(contentType);
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (allowSendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the region with sendfile after the handler returns; nothing is written here
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, Math.min(remaining, TRANSFER_CHUNK), target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * First and last byte of a single range, with last clamped to the file; start past the end means the range
+     * is valid but unsatisfiable (416)
+     * @return null when the header is not a valid single byte range and has to be ignored
+     */
+    long[] parseRange(String range, long length) {
+        Matcher matcher = RANGE_PATTERN.matcher(range.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+        if (matcher.group(1).isEmpty()) {
+            // Suffix range: the last N bytes; a zero-length suffix selects nothing
+            long suffix = parsePosition(matcher.group(2));
+            return new long[] {suffix == 0 ? length : Math.max(0, length - suffix), length - 1};
+        }
+        long first = parsePosition(matcher.group(1));
+        long last = matcher.group(2).isEmpty() ? Long.MAX_VALUE : parsePosition(matcher.group(2));
+        if (last < first) {
+            return null;
+        }
+        return new long[] {first, Math.min(last, length - 1)};
+    }
+
+    /**
+     * Byte position from the header; more digits than a long holds still mean "past any file"
+     */
+    private long parsePosition(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Conditional GET: If-None-Match takes precedence over If-Modified-Since
+     */
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = safeDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        // HTTP dates have second precision
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-Range: only honour the Range header when the client's copy is still current
+     */
+    private boolean rangeStillValid(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = safeDateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 <= date / 1000;
+    }
+
+    private boolean matchesEtag(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long safeDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
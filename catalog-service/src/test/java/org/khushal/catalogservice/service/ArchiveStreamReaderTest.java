@@ -0,0 +1,278 @@
+package org.khushal.catalogservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Entry reading of ArchiveStreamReader for ZIP, TAR and gzip-compressed TAR, including the TAR name and
+ * size extensions
+ */
+class ArchiveStreamReaderTest {
+
+    @Test
+    void readsPlainTarEntriesAndSkipsDirectories() throws IOException {
+        byte[] tar = new Tar()
+                .entry("lesson1/", '5', new byte[0])
+                .file("lesson1/001.jpg", bytes("first"))
+                .file("lesson1/002.jpg", bytes("second image"))
+                .end();
+        ArchiveStreamReader reader = ArchiveStreamReader.open(new ByteArrayInputStream(tar));
+
+        ArchiveStreamReader.Entry first = reader.nextEntry();
+        assertEquals("lesson1/001.jpg", first.getName());
+        assertArrayEquals(bytes("first"), first.getInputStream().readAllBytes());
+        // The second entry is found even when the first one is left unread
+        ArchiveStreamReader.Entry second = reader.nextEntry();
+        assertEquals("lesson1/002.jpg", second.getName());
+        assertNull(reader.nextEntry());
+    }
+
+    @Test
+    void readsEntryDataSpanningSeveralBlocks() throws IOException {
+        byte[] data = new byte[512 * 3 + 17];
+        Arrays.fill(data, (byte) 7);
+        byte[] tar = new Tar().file("big.bin", data).file("after.txt", bytes("after")).end();
+        ArchiveStreamReader reader = ArchiveStreamReader.open(new ByteArrayInputStream(tar));
+
+        assertArrayEquals(data, reader.nextEntry().getInputStream().readAllBytes());
+        ArchiveStreamReader.Entry after = reader.nextEntry();
+        assertEquals("after.txt", after.getName());
+        assertArrayEquals(bytes("after"), after.getInputStream().readAllBytes());
+    }
+
+    @Test
+    void usesTheGnuLongName() throws IOException {
+        String longName = "lesson1/" + "a".repeat(150) + ".jpg";
+        byte[] tar = new Tar()
+                .entry("././@LongLink", 'L', bytes(longName + "\0"))
+                .file("truncated-name", bytes("data"))
+                .file("short.jpg", bytes("x"))
+                .end();
+        ArchiveStreamReader reader = ArchiveStreamReader.open(new ByteArrayInputStream(tar));
+
+        ArchiveStreamReader.Entry entry = reader.nextEntry();
+        assertEquals(longName, entry.getName());
+        assertArrayEquals(bytes("data"), entry.getInputStream().readAllBytes());
+        // The long name applies to one entry only
+        assertEquals("short.jpg", reader.nextEntry().getName());
+    }
+
+    @Test
+    void usesThePaxPath() throws IOException {
+        String path = "lesson1/" + "\u00e9".repeat(60) + ".jpg";
+        byte[] tar = new Tar()
+                .entry("PaxHeaders/x", 'x', pax("mtime=1700000000.5", "path=" + path))
+                .file("fallback.jpg", bytes("data"))
+                .end();
+        ArchiveStreamReader reader = ArchiveStreamReader.open(new ByteArrayInputStream(tar));
+
+        assertEquals(path, reader.nextEntry().getName());
+    }
+
+    @Test
+    void joinsTheUstarPrefix() throws IOException {
+        byte[] header = Tar.header("001.jpg", '0', 4);
+        put(header, 257, bytes("ustar\0" + "00"));
+        put(header, 345, bytes("lesson1/images"));
+        byte[] tar = new Tar().raw(header, bytes("data")).end();
+
+        assertEquals("lesson1/images/001.jpg",
+                ArchiveStreamReader.open(new ByteArrayInputStream(tar)).nextEntry().getName());
+    }
+
+    @Test
+    void readsBase256Sizes() throws IOException {
+        byte[] data = bytes("base-256 sized entry");
+        byte[] header = Tar.header("big.bin", '0', 0);
+        Arrays.fill(header, 124, 136, (byte) 0);
+        header[124] = (byte) 0x80;
+        header[135] = (byte) data.length;
+        byte[] tar = new Tar().raw(header, data).file("next.txt", bytes("n")).end();
+        ArchiveStreamReader reader = ArchiveStreamReader.open(new ByteArrayInputStream(tar));
+
+        assertArrayEquals(data, reader.nextEntry().getInputStream().readAllBytes());
+        assertEquals("next.txt", reader.nextEntry().getName());
+    }
+
+    @Test
+    void rejectsAnOverflowingBase256Size() {
+        byte[] header = Tar.header("big.bin", '0', 0);
+        Arrays.fill(header, 124, 136, (byte) 0xff);
+        byte[] tar = new Tar().raw(header, new byte[0]).end();
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ArchiveStreamReader.open(new ByteArrayInputStream(tar)).nextEntry());
+        assertEquals("Malformed TAR header", e.getMessage());
+    }
+
+    @Test
+    void rejectsOversizedExtensionHeadersBeforeReadingThem() {
+        // 8 GiB declared, base-256; nothing follows, so reading it would fail differently
+        for (char type : new char[]{'L', 'x'}) {
+            byte[] header = Tar.header("././@LongLink", type, 0);
+            Arrays.fill(header, 124, 136, (byte) 0);
+            header[124] = (byte) 0x80;
+            header[131] = 2;
+            byte[] tar = new Tar().raw(header, new byte[0]).end();
+
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> ArchiveStreamReader.open(new ByteArrayInputStream(tar)).nextEntry());
+            assertTrue(e.getMessage().startsWith("TAR extension header too large"), e.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsABadChecksum() {
+        byte[] tar = new Tar().file("001.jpg", bytes("data")).end();
+        tar[0] = 'X';
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ArchiveStreamReader.open(new ByteArrayInputStream(tar)).nextEntry());
+        assertEquals("Not a ZIP or TAR archive", e.getMessage());
+    }
+
+    @Test
+    void failsOnTruncatedEntryData() throws IOException {
+        byte[] tar = new Tar().file("001.jpg", new byte[1000]).end();
+        byte[] truncated = Arrays.copyOf(tar, 512 + 100);
+        ArchiveStreamReader.Entry entry = ArchiveStreamReader.open(new ByteArrayInputStream(truncated)).nextEntry();
+
+        assertThrows(IOException.class, () -> entry.getInputStream().readAllBytes());
+    }
+
+    @Test
+    void readsGzipCompressedTar() throws IOException {
+        byte[] tar = new Tar().file("lesson1/001.jpg", bytes("zipped")).end();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(tar);
+        }
+        ArchiveStreamReader reader = ArchiveStreamReader.open(new ByteArrayInputStream(compressed.toByteArray()));
+
+        ArchiveStreamReader.Entry entry = reader.nextEntry();
+        assertEquals("lesson1/001.jpg", entry.getName());
+        assertArrayEquals(bytes("zipped"), entry.getInputStream().readAllBytes());
+        assertNull(reader.nextEntry());
+    }
+
+    @Test
+    void readsZipEntriesAndSkipsDirectories() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("lesson1/"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("lesson1/001.jpg"));
+            zip.write(bytes("first"));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("lesson1/002.jpg"));
+            zip.write(bytes("second"));
+            zip.closeEntry();
+        }
+        ArchiveStreamReader reader = ArchiveStreamReader.open(new ByteArrayInputStream(out.toByteArray()));
+
+        ArchiveStreamReader.Entry first = reader.nextEntry();
+        assertEquals("lesson1/001.jpg", first.getName());
+        // Closing an entry leaves the archive readable
+        first.getInputStream().close();
+        ArchiveStreamReader.Entry second = reader.nextEntry();
+        assertEquals("lesson1/002.jpg", second.getName());
+        assertArrayEquals(bytes("second"), second.getInputStream().readAllBytes());
+        assertNull(reader.nextEntry());
+    }
+
+    @Test
+    void rejectsAnEmptyArchive() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ArchiveStreamReader.open(new ByteArrayInputStream(new byte[0])));
+        assertEquals("Archive is empty", e.getMessage());
+    }
+
+    @Test
+    void rejectsContentThatIsNoArchive() {
+        byte[] text = bytes("This is plain text, not an archive. ".repeat(20));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ArchiveStreamReader.open(new ByteArrayInputStream(text)).nextEntry());
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void put(byte[] target, int offset, byte[] value) {
+        System.arraycopy(value, 0, target, offset, value.length);
+    }
+
+    /**
+     * pax records, each prefixed with its own length in bytes
+     */
+    private static byte[] pax(String... keyValues) {
+        StringBuilder records = new StringBuilder();
+        for (String keyValue : keyValues) {
+            int content = bytes(keyValue).length + 2;
+            int length = content + String.valueOf(content).length();
+            while (length != content + String.valueOf(length).length()) {
+                length = content + String.valueOf(length).length();
+            }
+            records.append(length).append(' ').append(keyValue).append('\n');
+        }
+        return bytes(records.toString());
+    }
+
+    /**
+     * TAR builder; every header gets a valid checksum
+     */
+    private static class Tar {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        static byte[] header(String name, char type, long size) {
+            byte[] header = new byte[512];
+            put(header, 0, bytes(name));
+            put(header, 100, bytes("0000644\0"));
+            put(header, 124, bytes(String.format("%011o\0", size)));
+            put(header, 136, bytes("00000000000\0"));
+            header[156] = (byte) type;
+            return header;
+        }
+
+        Tar file(String name, byte[] data) {
+            return entry(name, '0', data);
+        }
+
+        Tar entry(String name, char type, byte[] data) {
+            return raw(header(name, type, data.length), data);
+        }
+
+        /**
+         * Writes the header with its checksum, followed by the data padded to whole blocks
+         */
+        Tar raw(byte[] header, byte[] data) {
+            byte[] block = header.clone();
+            Arrays.fill(block, 148, 156, (byte) ' ');
+            long sum = 0;
+            for (byte b : block) {
+                sum += b & 0xff;
+            }
+            put(block, 148, bytes(String.format("%06o\0 ", sum)));
+            out.writeBytes(block);
+            out.writeBytes(data);
+            out.writeBytes(new byte[(512 - data.length % 512) % 512]);
+            return this;
+        }
+
+        byte[] end() {
+            out.writeBytes(new byte[1024]);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package org.khushal.catalogservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.khushal.catalogservice.model.MediaInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Format detection and header size reading of MediaSniffer, with each value at its format's offset
+ */
+class MediaSnifferTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsPngSize() throws IOException {
+        ByteBuffer png = be(33);
+        png.put(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+        png.putInt(13).put(ascii("IHDR")).putInt(640).putInt(360);
+
+        assertProbe("png", 640, 360, "slide.png", png.array());
+    }
+
+    @Test
+    void readsGifSize() throws IOException {
+        ByteBuffer gif = le(32).put(ascii("GIF89a")).putShort((short) 320).putShort((short) 200);
+
+        assertProbe("gif", 320, 200, "slide.gif", gif.array());
+    }
+
+    @Test
+    void readsBmpSizeOfTopDownBitmaps() throws IOException {
+        ByteBuffer bmp = le(54).put(ascii("BM"));
+        bmp.position(18);
+        bmp.putInt(800).putInt(-600);
+
+        assertProbe("bmp", 800, 600, "slide.bmp", bmp.array());
+    }
+
+    @Test
+    void readsWebpExtendedSize() throws IOException {
+        ByteBuffer webp = riff("WEBP", "VP8X", 30);
+        webp.position(24);
+        putLe24(webp, 1919);
+        putLe24(webp, 1079);
+
+        assertProbe("webp", 1920, 1080, "slide.webp", webp.array());
+    }
+
+    @Test
+    void readsWebpLossySize() throws IOException {
+        ByteBuffer webp = riff("WEBP", "VP8 ", 30);
+        webp.position(23);
+        webp.put(new byte[]{(byte) 0x9d, 0x01, 0x2a});
+        // The top two bits are the scale, not part of the size
+        webp.putShort((short) (0xc000 | 1280)).putShort((short) 720);
+
+        assertProbe("webp", 1280, 720, "slide.webp", webp.array());
+    }
+
+    @Test
+    void readsWebpLosslessSize() throws IOException {
+        ByteBuffer webp = riff("WEBP", "VP8L", 30);
+        webp.position(20);
+        webp.put((byte) 0x2f);
+        webp.putInt((1023 << 14) | 1599);
+
+        assertProbe("webp", 1600, 1024, "slide.webp", webp.array());
+    }
+
+    @Test
+    void readsJpegSizeAfterOtherSegments() throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.write(new byte[]{(byte) 0xff, (byte) 0xd8});
+        // APP0 and a DQT before the frame header, then a fill byte
+        jpeg.write(new byte[]{(byte) 0xff, (byte) 0xe0, 0, 16});
+        jpeg.write(ascii("JFIF\0"), 0, 5);
+        jpeg.write(new byte[9], 0, 9);
+        jpeg.write(new byte[]{(byte) 0xff, (byte) 0xdb, 0, 4, 0, 0});
+        jpeg.write(new byte[]{(byte) 0xff});
+        // SOF2: length, precision, height, width
+        jpeg.write(new byte[]{(byte) 0xff, (byte) 0xc2, 0, 11, 8, 0x02, (byte) 0xd0, 0x05, 0x00, 1, 1, 0x11, 0});
+        jpeg.write(new byte[]{(byte) 0xff, (byte) 0xd9});
+
+        assertProbe("jpeg", 1280, 720, "slide.jpg", jpeg.toByteArray());
+    }
+
+    @Test
+    void readsJpegWithoutFrameHeaderAsSizeless() throws IOException {
+        byte[] jpeg = {(byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xda, 0, 2, (byte) 0xff, (byte) 0xd9};
+
+        assertProbe("jpeg", null, null, "slide.jpg", Arrays.copyOf(jpeg, 40));
+    }
+
+    @Test
+    void readsMp4SizeFromTheVideoTrack() throws IOException {
+        ByteArrayOutputStream mp4 = new ByteArrayOutputStream();
+        mp4.write(box("ftyp", ascii("isom\0\0\2\0isomiso2mp41")));
+        mp4.write(box("free", new byte[8]));
+        // An audio track (no size) before a version 1 video track header
+        byte[] moov = concat(
+                box("mvhd", new byte[100]),
+                box("trak", tkhd(0, 0, 0)),
+                box("trak", concat(tkhd(1, 1920, 1080), box("mdia", new byte[8]))));
+        mp4.write(box("moov", moov));
+
+        assertProbe("isobmff", 1920, 1080, "video.mp4", mp4.toByteArray());
+    }
+
+    @Test
+    void readsMovWithMoovAtTheEnd() throws IOException {
+        ByteArrayOutputStream mov = new ByteArrayOutputStream();
+        mov.write(box("wide", new byte[0]));
+        mov.write(box("mdat", new byte[4096]));
+        mov.write(box("moov", box("trak", tkhd(0, 720, 1280))));
+
+        assertProbe("isobmff", 720, 1280, "video.mov", mov.toByteArray());
+    }
+
+    @Test
+    void readsAviSize() throws IOException {
+        ByteBuffer avi = riff("AVI ", "LIST", 96);
+        avi.position(20);
+        avi.put(ascii("hdrlavih"));
+        avi.position(64);
+        avi.putInt(854).putInt(480);
+
+        assertProbe("avi", 854, 480, "video.avi", avi.array());
+    }
+
+    @Test
+    void detectsContainersWithoutReadingTheirSize() throws IOException {
+        byte[] ebml = Arrays.copyOf(new byte[]{0x1a, 0x45, (byte) 0xdf, (byte) 0xa3}, 32);
+        byte[] flv = Arrays.copyOf(ascii("FLV\1"), 32);
+        byte[] asf = Arrays.copyOf(new byte[]{0x30, 0x26, (byte) 0xb2, 0x75, (byte) 0x8e, 0x66, (byte) 0xcf, 0x11}, 32);
+
+        assertProbe("ebml", null, null, "video.mkv", ebml);
+        assertProbe("ebml", null, null, "video.webm", ebml);
+        assertProbe("flv", null, null, "video.flv", flv);
+        assertProbe("asf", null, null, "video.wmv", asf);
+    }
+
+    @Test
+    void rejectsContentThatDoesNotMatchTheName() {
+        byte[] png = Arrays.copyOf(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'}, 32);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> MediaSniffer.checkHeader(png, "slide.jpg"));
+        assertTrue(e.getMessage().contains("looks like png"), e.getMessage());
+        e = assertThrows(IllegalArgumentException.class,
+                () -> MediaSniffer.checkHeader(ascii("just some text, renamed to .mp4"), "video.mp4"));
+        assertTrue(e.getMessage().contains("unrecognised content"), e.getMessage());
+    }
+
+    @Test
+    void rejectsUnknownAndTruncatedHeaders() {
+        assertNull(MediaSniffer.detectFormat(new byte[0]));
+        assertNull(MediaSniffer.detectFormat(new byte[]{(byte) 0xff, (byte) 0xd8}));
+        assertNull(MediaSniffer.detectFormat(riff("WAVE", "fmt ", 32).array()));
+        assertThrows(IllegalArgumentException.class, () -> MediaSniffer.checkHeader(new byte[0], "slide.png"));
+    }
+
+    @Test
+    void recognisesMediaNames() {
+        assertTrue(MediaSniffer.isMediaName("Slide.JPG"));
+        assertTrue(MediaSniffer.isMediaName("video.webm"));
+        assertFalse(MediaSniffer.isMediaName("notes.txt"));
+        assertFalse(MediaSniffer.isMediaName(".png"));
+        assertFalse(MediaSniffer.isMediaName(null));
+    }
+
+    private void assertProbe(String format, Integer width, Integer height, String name, byte[] content)
+            throws IOException {
+        Path file = Files.write(dir.resolve(name), content);
+        MediaInfo info = MediaSniffer.probe(file, name);
+        assertEquals(format, info.getFormat(), name);
+        assertEquals(width, info.getWidth(), name);
+        assertEquals(height, info.getHeight(), name);
+    }
+
+    private static ByteBuffer be(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private static ByteBuffer le(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * RIFF file of the given form type whose first chunk has the given id
+     */
+    private static ByteBuffer riff(String form, String chunk, int size) {
+        ByteBuffer riff = le(size).put(ascii("RIFF")).putInt(size - 8).put(ascii(form)).put(ascii(chunk));
+        riff.putInt(size - 20);
+        return riff;
+    }
+
+    private static void putLe24(ByteBuffer buffer, int value) {
+        buffer.put((byte) value).put((byte) (value >> 8)).put((byte) (value >> 16));
+    }
+
+    private static byte[] box(String type, byte[] content) {
+        return be(8 + content.length).putInt(8 + content.length).put(ascii(type)).put(content).array();
+    }
+
+    /**
+     * Track header box; version 1 has 64-bit times, which moves the 16.16 width and height
+     */
+    private static byte[] tkhd(int version, int width, int height) {
+        int offset = version == 1 ? 88 : 76;
+        ByteBuffer content = be(offset + 8);
+        content.put((byte) version);
+        content.position(offset);
+        content.putInt(width << 16).putInt(height << 16);
+        return box("tkhd", content.array());
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,218 @@
+package org.khushal.catalogservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Part splitting of MultipartStreamReader, including delimiters that straddle reads and the 64 KiB window
+ */
+class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----boundary7MA4YWxk";
+    private static final int WINDOW = 64 * 1024;
+
+    @Test
+    void readsFieldsAndFiles() throws IOException {
+        byte[] body = new Body()
+                .field("folder", "lesson1")
+                .file("files", "001.jpg", "image/jpeg", bytes("first"))
+                .file("files", "002.jpg", "image/jpeg", bytes("second"))
+                .end();
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(body), BOUNDARY);
+
+        MultipartStreamReader.Part field = reader.nextPart();
+        assertEquals("folder", field.getName());
+        assertFalse(field.isFile());
+        assertEquals("lesson1", new String(field.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+        MultipartStreamReader.Part first = reader.nextPart();
+        assertEquals("files", first.getName());
+        assertEquals("001.jpg", first.getFileName());
+        assertEquals("image/jpeg", first.getContentType());
+        assertArrayEquals(bytes("first"), first.getInputStream().readAllBytes());
+
+        MultipartStreamReader.Part second = reader.nextPart();
+        assertEquals("002.jpg", second.getFileName());
+        assertArrayEquals(bytes("second"), second.getInputStream().readAllBytes());
+
+        assertNull(reader.nextPart());
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void splitsPartsWhoseDelimiterStraddlesTheWindowEdge() throws IOException {
+        // Sizes around the window put the delimiter before, across and after the point where the buffer refills
+        for (int size = WINDOW - 80; size <= WINDOW + 16; size++) {
+            byte[] content = pattern(size);
+            byte[] body = new Body()
+                    .file("files", "a.bin", "application/octet-stream", content)
+                    .file("files", "b.bin", "application/octet-stream", bytes("tail"))
+                    .end();
+            for (int chunk : new int[]{WINDOW, 4093}) {
+                MultipartStreamReader reader = new MultipartStreamReader(new TrickleInputStream(body, chunk), BOUNDARY);
+                assertArrayEquals(content, reader.nextPart().getInputStream().readAllBytes(),
+                        "size " + size + ", chunk " + chunk);
+                assertArrayEquals(bytes("tail"), reader.nextPart().getInputStream().readAllBytes());
+                assertNull(reader.nextPart());
+            }
+        }
+    }
+
+    @Test
+    void splitsPartsReadOneByteAtATime() throws IOException {
+        byte[] content = pattern(3000);
+        byte[] body = new Body()
+                .file("files", "a.bin", "application/octet-stream", content)
+                .field("note", "x")
+                .end();
+        MultipartStreamReader reader = new MultipartStreamReader(new TrickleInputStream(body, 1), BOUNDARY);
+
+        InputStream part = reader.nextPart().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        int b;
+        while ((b = part.read()) != -1) {
+            read.write(b);
+        }
+        assertArrayEquals(content, read.toByteArray());
+        assertEquals("note", reader.nextPart().getName());
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void keepsContentThatOnlyStartsLikeADelimiter() throws IOException {
+        byte[] content = bytes("a\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1) + "b\r\n--\r\n" + BOUNDARY);
+        byte[] body = new Body().file("files", "a.txt", "text/plain", content).end();
+        for (int chunk : new int[]{1, 3, WINDOW}) {
+            MultipartStreamReader reader = new MultipartStreamReader(new TrickleInputStream(body, chunk), BOUNDARY);
+            assertArrayEquals(content, reader.nextPart().getInputStream().readAllBytes(), "chunk " + chunk);
+            assertNull(reader.nextPart());
+        }
+    }
+
+    @Test
+    void skipsPreambleAndUnreadParts() throws IOException {
+        byte[] parts = new Body()
+                .file("files", "skipped.bin", "application/octet-stream", pattern(2 * WINDOW + 5))
+                .file("files", "kept.bin", "application/octet-stream", bytes("kept"))
+                .end();
+        byte[] body = concat(bytes("preamble to ignore\r\n"), parts);
+        MultipartStreamReader reader = new MultipartStreamReader(new TrickleInputStream(body, 1000), BOUNDARY);
+
+        assertEquals("skipped.bin", reader.nextPart().getFileName());
+        MultipartStreamReader.Part kept = reader.nextPart();
+        assertEquals("kept.bin", kept.getFileName());
+        assertArrayEquals(bytes("kept"), kept.getInputStream().readAllBytes());
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void failsOnATruncatedBody() throws IOException {
+        byte[] body = new Body().file("files", "a.bin", "application/octet-stream", pattern(100)).end();
+        byte[] truncated = Arrays.copyOf(body, body.length - BOUNDARY.length() - 8);
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(truncated), BOUNDARY);
+
+        InputStream part = reader.nextPart().getInputStream();
+        assertThrows(IOException.class, part::readAllBytes);
+    }
+
+    @Test
+    void rejectsOversizedPartHeaders() {
+        String header = "--" + BOUNDARY + "\r\nX-Padding: " + "a".repeat(20 * 1024) + "\r\n\r\ndata\r\n--"
+                + BOUNDARY + "--\r\n";
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(bytes(header)), BOUNDARY);
+
+        assertThrows(IOException.class, reader::nextPart);
+    }
+
+    @Test
+    void rejectsAMalformedDelimiterLine() {
+        String body = "--" + BOUNDARY + "garbage\r\n\r\ndata\r\n--" + BOUNDARY + "--\r\n";
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(bytes(body)), BOUNDARY);
+
+        assertThrows(IOException.class, reader::nextPart);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] pattern(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            // Includes CR, LF and '-' so partial delimiter matches are exercised
+            data[i] = (byte) "\r\n--abc\u00ff".charAt(i % 8);
+        }
+        return data;
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    /**
+     * multipart/form-data body builder
+     */
+    private static class Body {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Body field(String name, String value) throws IOException {
+            out.write(bytes("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"));
+            out.write(bytes(value));
+            out.write(bytes("\r\n"));
+            return this;
+        }
+
+        Body file(String name, String fileName, String contentType, byte[] content) throws IOException {
+            out.write(bytes("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name
+                    + "\"; filename=\"" + fileName + "\"\r\nContent-Type: " + contentType + "\r\n\r\n"));
+            out.write(content);
+            out.write(bytes("\r\n"));
+            return this;
+        }
+
+        byte[] end() throws IOException {
+            out.write(bytes("--" + BOUNDARY + "--\r\n"));
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Hands out at most {@code chunk} bytes per read, like a slow network connection
+     */
+    private static class TrickleInputStream extends InputStream {
+        private final byte[] data;
+        private final int chunk;
+        private int position;
+
+        TrickleInputStream(byte[] data, int chunk) {
+            this.data = data;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (position >= data.length) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, chunk), data.length - position);
+            System.arraycopy(data, position, target, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.khushal.catalogservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Range header parsing of VideoStreamService; null means the whole file is served
+ */
+class VideoStreamServiceTest {
+
+    private static final long LENGTH = 10;
+
+    private final VideoStreamService service = new VideoStreamService();
+
+    @Test
+    void parsesSingleRanges() {
+        assertArrayEquals(new long[]{0, 4}, service.parseRange("bytes=0-4", LENGTH));
+        assertArrayEquals(new long[]{5, 9}, service.parseRange("bytes=5-", LENGTH));
+        assertArrayEquals(new long[]{9, 9}, service.parseRange("bytes=9-9", LENGTH));
+    }
+
+    @Test
+    void clampsTheLastPositionToTheFile() {
+        assertArrayEquals(new long[]{5, 9}, service.parseRange("bytes=5-100", LENGTH));
+        assertArrayEquals(new long[]{0, 9}, service.parseRange("bytes=0-99999999999999999999999", LENGTH));
+    }
+
+    @Test
+    void parsesSuffixRanges() {
+        assertArrayEquals(new long[]{7, 9}, service.parseRange("bytes=-3", LENGTH));
+        // A suffix longer than the file selects all of it
+        assertArrayEquals(new long[]{0, 9}, service.parseRange("bytes=-50", LENGTH));
+        assertArrayEquals(new long[]{0, 9}, service.parseRange("bytes=-99999999999999999999999", LENGTH));
+    }
+
+    @Test
+    void leavesUnsatisfiableRangesToTheCaller() {
+        // Start at or past the end: the caller answers 416
+        assertEquals(LENGTH, service.parseRange("bytes=-0", LENGTH)[0]);
+        assertEquals(LENGTH, service.parseRange("bytes=10-", LENGTH)[0]);
+        assertEquals(Long.MAX_VALUE, service.parseRange("bytes=99999999999999999999999-", LENGTH)[0]);
+    }
+
+    @Test
+    void ignoresMalformedRanges() {
+        for (String range : new String[]{"bytes=--5", "bytes=-+5", "bytes=+1-2", "bytes=1--2", "bytes=-",
+                "bytes=5-3", "bytes=a-b", "bytes=1-2-3", "bytes= 1-2", "items=0-4", "0-4", ""}) {
+            assertNull(service.parseRange(range, LENGTH), range);
+        }
+    }
+
+    @Test
+    void ignoresMultipleRanges() {
+        assertNull(service.parseRange("bytes=0-1,4-5", LENGTH));
+    }
+}
@@ -0,0 +1,135 @@
+package org.khushal.ffmpeg;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A fixed number of permits for external processes (ffmpeg) with wait, run and rejection counters.
+ * A bounded lane rejects callers once its wait queue is full; an unbounded lane always makes them wait,
+ * for work that was already admitted elsewhere and must not fail halfway.
+ */
+public class ProcessLane {
+
+    private final int slots;
+    private final int capacity;
+    private final Semaphore permits;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+    private final AtomicLong totalRunMillis = new AtomicLong();
+
+    /**
+     * Lane whose callers always wait for a permit
+     */
+    public ProcessLane(int slots) {
+        this(slots, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Lane that rejects a caller when capacity callers are already waiting
+     */
+    public ProcessLane(int slots, int capacity) {
+        this.slots = Math.max(1, slots);
+        this.capacity = Math.max(0, capacity);
+        this.permits = new Semaphore(this.slots, true);
+    }
+
+    /**
+     * Run a process once a permit is free, feeding each output line (stdout and stderr) to the handler
+     * @return process exit code
+     * @throws ProcessLaneFullException if the lane is bounded and its wait queue is full
+     */
+    public int run(ProcessBuilder processBuilder, Consumer<String> outputHandler)
+            throws IOException, InterruptedException {
+        long waitStart = System.currentTimeMillis();
+        if (!permits.tryAcquire()) {
+            if (waiting.incrementAndGet() > capacity) {
+                waiting.decrementAndGet();
+                rejected.incrementAndGet();
+                throw new ProcessLaneFullException("Too many ffmpeg processes waiting (" + capacity + ")");
+            }
+            try {
+                permits.acquire();
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        long waitMillis = System.currentTimeMillis() - waitStart;
+        totalWaitMillis.addAndGet(waitMillis);
+        maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+
+        running.incrementAndGet();
+        long runStart = System.currentTimeMillis();
+        Process process = null;
+        try {
+            processBuilder.redirectErrorStream(true);
+            process = processBuilder.start();
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    outputHandler.accept(line);
+                }
+            }
+
+            return process.waitFor();
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+            totalRunMillis.addAndGet(System.currentTimeMillis() - runStart);
+            completed.incrementAndGet();
+            running.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis.get();
+    }
+
+    /**
+     * Average time a process waited for its permit; 0 before any has finished
+     */
+    public long getAvgWaitMillis() {
+        long done = completed.get();
+        return done == 0 ? 0 : totalWaitMillis.get() / done;
+    }
+
+    /**
+     * Average process run time; 0 before any has finished
+     */
+    public long getAvgRunMillis() {
+        long done = completed.get();
+        return done == 0 ? 0 : totalRunMillis.get() / done;
+    }
+}
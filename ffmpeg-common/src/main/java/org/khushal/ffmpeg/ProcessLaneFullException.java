@@ -0,0 +1,12 @@
+package org.khushal.ffmpeg;
+
+/**
+ * Thrown by a bounded {@link ProcessLane} when its wait queue is full.
+ * Services translate it into their own queue-full error with a Retry-After hint.
+ */
+public class ProcessLaneFullException extends RuntimeException {
+
+    public ProcessLaneFullException(String message) {
+        super(message);
+    }
+}
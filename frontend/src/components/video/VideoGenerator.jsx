@@ -4,15 +4,68 @@ import { videoService } from '../../services/api/videoService';
 import { FiVideo, FiCheckCircle, FiAlertCircle } from 'react-icons/fi';
 import toast from 'react-hot-toast';
 
+const POLL_INTERVAL_MS = 2000;
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
 const VideoGenerator = ({ categoryId, folderName, onGenerateComplete }) => {
   const [isGenerating, setIsGenerating] = useState(false);
   const [generatedVideo, setGeneratedVideo] = useState(null);
+  const [progress, setProgress] = useState(null);
+
+  const finishedJob = (status) => {
+    if (status.status === 'FAILED') {
+      throw { response: { data: status.error } };
+    }
+    return status;
+  };
+
+  // Follow the render job's progress stream until it completes
+  const waitForEvents = (jobId) =>
+    new Promise((resolve, reject) => {
+      const events = videoService.subscribeToJobEvents(categoryId, folderName, jobId);
+      events.addEventListener('progress', (event) => {
+        setProgress(JSON.parse(event.data).progress);
+      });
+      events.addEventListener('complete', (event) => {
+        events.close();
+        try {
+          resolve(finishedJob(JSON.parse(event.data)));
+        } catch (error) {
+          reject(error);
+        }
+      });
+      events.onerror = () => {
+        events.close();
+        resolve(null);
+      };
+    });
+
+  // Fallback when the event stream is unavailable
+  const pollUntilFinished = async (jobId) => {
+    for (;;) {
+      await sleep(POLL_INTERVAL_MS);
+      const { data: status } = await videoService.getJobStatus(categoryId, folderName, jobId);
+      setProgress(status.progress);
+      if (status.status === 'COMPLETED' || status.status === 'FAILED') {
+        return finishedJob(status);
+      }
+    }
+  };
+
+  // Generation is queued as a render job; wait for it to finish
+  const generateAndWait = async () => {
+    setProgress(null);
+    const { data: job } = await videoService.generateVideo(categoryId, folderName);
+    const finished = await waitForEvents(job.jobId);
+    return finished || pollUntilFinished(job.jobId);
+  };
 
   const generateMutation = useMutation({
-    mutationFn: () => videoService.generateVideo(categoryId, folderName),
-    onSuccess: (response) => {
+    mutationFn: generateAndWait,
+    onSuccess: (job) => {
       toast.success('Video generated successfully');
-      setGeneratedVideo(response.data);
+      setGeneratedVideo(job);
       setIsGenerating(false);
       if (onGenerateComplete) onGenerateComplete();
     },
@@ -54,6 +107,20 @@ const VideoGenerator = ({ categoryId, folderName, onGenerateComplete }) => {
         <div className="text-center py-8">
           <div className="inline-block animate-spin rounded-full h-12 w-12 border-4 border-blue-600 border-t-transparent mb-4"></div>
           <p className="text-gray-600">Generating video... This may take a few moments.</p>
+          {progress && (
+            <div className="mt-4">
+              <div className="w-full bg-gray-200 rounded-full h-2">
+                <div
+                  className="bg-blue-600 h-2 rounded-full transition-all"
+                  style={{ width: `${Math.round(progress.percent)}%` }}
+                ></div>
+              </div>
+              <p className="text-sm text-gray-500 mt-2">
+                {progress.stage} · {Math.round(progress.percent)}%
+                {progress.speed ? ` · ${progress.speed}` : ''}
+              </p>
+            </div>
+          )}
         </div>
       ) : (
         <button
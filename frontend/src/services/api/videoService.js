@@ -8,6 +8,20 @@ export const videoService = {
     );
   },
 
+  // GET /allCategories/{categoryId}/folders/{folderName}/generateVideo/{jobId}
+  getJobStatus: (categoryId, folderName, jobId) => {
+    return httpClient.get(
+      `/allCategories/${categoryId}/folders/${folderName}/generateVideo/${jobId}`
+    );
+  },
+
+  // GET /allCategories/{categoryId}/folders/{folderName}/generateVideo/{jobId}/events (Server-Sent Events)
+  subscribeToJobEvents: (categoryId, folderName, jobId) => {
+    return new EventSource(
+      `${httpClient.defaults.baseURL}/allCategories/${categoryId}/folders/${folderName}/generateVideo/${jobId}/events`
+    );
+  },
+
   // POST /convert_videos
   mergeVideos: () => {
     return httpClient.post('/convert_videos');
@@ -0,0 +1,80 @@
+package org.khushal.mediaworker.controller;
+
+import org.khushal.mediaworker.service.ImageNormalizeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/worker")
+public class NormalizeController {
+
+    @Autowired
+    private ImageNormalizeService imageNormalizeService;
+
+    /**
+     * Queue normalisation of uploaded images (pre-scaled, padded render variants)
+     * Without files, every numbered image in the folder is checked; up-to-date variants are skipped
+     * Returns 202 right away; the work runs on the worker pool
+     */
+    @PostMapping("/normalize")
+    public ResponseEntity<?> normalize(@RequestParam String category,
+                                       @RequestParam String folder,
+                                       @RequestParam(required = false) List<String> files) {
+        try {
+            int queued = imageNormalizeService.submitFolder(category, folder, files);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Normalisation queued");
+            response.put("category", category);
+            response.put("folder", folder);
+            response.put("queued", queued);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to queue normalisation: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Delete the variants of images removed from a folder, so a later image with the same number is
+     * never rendered from them
+     */
+    @DeleteMapping("/normalize")
+    public ResponseEntity<?> deleteVariants(@RequestParam String category,
+                                            @RequestParam String folder,
+                                            @RequestParam List<String> files) {
+        try {
+            int deleted = imageNormalizeService.deleteVariants(category, folder, files);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Variants deleted");
+            response.put("category", category);
+            response.put("folder", folder);
+            response.put("deleted", deleted);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to delete variants: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Normalisation queue and throughput counters
+     */
+    @GetMapping("/normalize/stats")
+    public ResponseEntity<?> getStats() {
+        return ResponseEntity.ok(imageNormalizeService.getStats());
+    }
+}
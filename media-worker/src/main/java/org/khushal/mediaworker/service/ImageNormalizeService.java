@@ -0,0 +1,292 @@
+package org.khushal.mediaworker.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Normalises uploaded slide images off the request path.
+ * Every numbered image is fitted into a fixed 16:9 frame per configured render height (scaled, padded,
+ * square pixels, yuvj420p JPEG) and cached under {dir}/{category}/{folder}/{height}/{NNN}.jpg.
+ * Each variant has a {NNN}.jpg.source stamp naming the source it was made from (file name, size, mtime and
+ * inode). video-service renders from the variants when every stamp still matches its source, so it no longer
+ * decodes and rescales full-resolution uploads on every render. Modification times alone are not enough:
+ * uploads hard-linked from the blob store keep the stored copy's older mtime.
+ */
+@Service
+public class ImageNormalizeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageNormalizeService.class);
+
+    // Same numbering as the uploads (001.jpg, 002.png, ..., 1000.jpg)
+    private static final Pattern NUMBERED_IMAGE_PATTERN = Pattern.compile("^(\\d{3,9})\\.(jpg|jpeg|png|gif|webp|bmp)$", Pattern.CASE_INSENSITIVE);
+
+    // Sidecar of a variant naming its source; the format is shared with video-service's NormalizedImageService
+    private static final String STAMP_SUFFIX = ".source";
+
+    private final ThreadPoolExecutor executor;
+
+    // Variants queued or being written, so repeated requests for a folder don't duplicate work
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong normalized = new AtomicLong();
+    private final AtomicLong upToDate = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+
+    @Value("${worker.normalize.source-dir:public/images}")
+    private String sourceDir;
+
+    @Value("${worker.normalize.dir:cache/normalized}")
+    private String normalizedDir;
+
+    // Render heights to pre-scale for; must match the heights renders ask for to be useful
+    @Value("${worker.normalize.heights:720}")
+    private List<Integer> heights;
+
+    public ImageNormalizeService(@Value("${worker.normalize.threads:2}") int threads,
+                                 @Value("${worker.normalize.queue-capacity:256}") int queueCapacity) {
+        int poolSize = Math.max(1, threads);
+        AtomicInteger threadCounter = new AtomicInteger(1);
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "normalize-" + threadCounter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue normalisation of a folder's images for every configured height
+     * @param fileNames images to normalise; all numbered images in the folder when empty
+     * @return number of variants queued (variants already up to date are not counted)
+     */
+    public int submitFolder(String category, String folder, List<String> fileNames) throws IOException {
+        Path folderPath = folderDir(sourceDir, category, folder);
+        Path variantFolder = folderDir(normalizedDir, category, folder);
+        if (!Files.isDirectory(folderPath)) {
+            throw new IllegalArgumentException("Images directory not found: " + folderPath);
+        }
+
+        List<Path> sources = new ArrayList<>();
+        if (fileNames == null || fileNames.isEmpty()) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(folderPath)) {
+                for (Path file : stream) {
+                    if (Files.isRegularFile(file) && NUMBERED_IMAGE_PATTERN.matcher(file.getFileName().toString()).matches()) {
+                        sources.add(file);
+                    }
+                }
+            }
+        } else {
+            for (String fileName : fileNames) {
+                Path file = folderPath.resolve(fileName).normalize();
+                if (!file.getParent().equals(folderPath)
+                        || !NUMBERED_IMAGE_PATTERN.matcher(file.getFileName().toString()).matches()) {
+                    throw new IllegalArgumentException("Not a numbered image in " + folderPath + ": " + fileName);
+                }
+                sources.add(file);
+            }
+        }
+
+        int queued = 0;
+        for (Path source : sources) {
+            for (int height : heights) {
+                Path variant = variantPath(variantFolder, height, source);
+                if (isUpToDate(source, variant)) {
+                    upToDate.incrementAndGet();
+                    continue;
+                }
+                if (!inFlight.add(variant)) {
+                    continue;
+                }
+                try {
+                    executor.execute(() -> normalize(source, variant, height));
+                    queued++;
+                } catch (RejectedExecutionException e) {
+                    // Renders fall back to the original upload, so dropping work here is safe
+                    inFlight.remove(variant);
+                    rejected.incrementAndGet();
+                }
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * {root}/{category}/{folder}, rejecting names that would leave the root or nest deeper (.., a/b)
+     */
+    private Path folderDir(String root, String category, String folder) {
+        Path rootPath = Paths.get(root).normalize();
+        Path folderPath = rootPath.resolve(category).resolve(folder).normalize();
+        Path categoryPath = folderPath.getParent();
+        if (categoryPath == null || !rootPath.equals(categoryPath.getParent())) {
+            throw new IllegalArgumentException("Invalid category or folder: " + category + "/" + folder);
+        }
+        return folderPath;
+    }
+
+    /**
+     * Variant location shared with video-service: {dir}/{category}/{folder}/{height}/{NNN}.jpg
+     */
+    private Path variantPath(Path variantFolder, int height, Path source) {
+        String name = source.getFileName().toString();
+        String baseName = name.substring(0, name.lastIndexOf('.'));
+        return variantFolder.resolve(String.valueOf(height)).resolve(baseName + ".jpg");
+    }
+
+    private Path stampPath(Path variant) {
+        return variant.resolveSibling(variant.getFileName() + STAMP_SUFFIX);
+    }
+
+    /**
+     * Identity of a source file: name, size, modification time and file key (inode where available)
+     */
+    private String sourceStamp(Path source) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        Object fileKey = attributes.fileKey();
+        return source.getFileName() + "\t" + attributes.size() + "\t" + attributes.lastModifiedTime().toMillis()
+                + "\t" + (fileKey == null ? "-" : fileKey);
+    }
+
+    private boolean isUpToDate(Path source, Path variant) throws IOException {
+        Path stamp = stampPath(variant);
+        return Files.isRegularFile(variant) && Files.isRegularFile(stamp)
+                && Files.readString(stamp, StandardCharsets.UTF_8).equals(sourceStamp(source));
+    }
+
+    /**
+     * Delete every height's variant (and stamp) of the given images, e.g. when they are deleted from the folder
+     * @return number of variants deleted
+     */
+    public int deleteVariants(String category, String folder, List<String> fileNames) throws IOException {
+        Path folderDir = folderDir(normalizedDir, category, folder);
+        for (String fileName : fileNames) {
+            if (!NUMBERED_IMAGE_PATTERN.matcher(fileName).matches()) {
+                throw new IllegalArgumentException("Not a numbered image: " + fileName);
+            }
+        }
+        if (!Files.isDirectory(folderDir)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (DirectoryStream<Path> heightDirs = Files.newDirectoryStream(folderDir, Files::isDirectory)) {
+            for (Path heightDir : heightDirs) {
+                for (String fileName : fileNames) {
+                    Path variant = heightDir.resolve(fileName.substring(0, fileName.lastIndexOf('.')) + ".jpg");
+                    Files.deleteIfExists(stampPath(variant));
+                    if (Files.deleteIfExists(variant)) {
+                        deleted++;
+                    }
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Fit the image into the 16:9 frame for the height and write it atomically
+     */
+    private void normalize(Path source, Path variant, int height) {
+        long start = System.currentTimeMillis();
+        Path temp = null;
+        try {
+            if (!Files.isRegularFile(source)) {
+                return;
+            }
+            // Taken before reading, so a source replaced meanwhile never matches this variant's stamp
+            String stamp = sourceStamp(source);
+            Files.createDirectories(variant.getParent());
+            temp = Files.createTempFile(variant.getParent(), "normalize_", ".jpg");
+
+            int width = evenDimension(height * 16 / 9);
+            int evenHeight = evenDimension(height);
+            ProcessBuilder pb = new ProcessBuilder(
+                "ffmpeg",
+                "-hide_banner",
+                "-y",
+                "-i", source.toString(),
+                "-vf", "scale=" + width + ":" + evenHeight + ":force_original_aspect_ratio=decrease,"
+                        + "pad=" + width + ":" + evenHeight + ":(ow-iw)/2:(oh-ih)/2,setsar=1,format=yuvj420p",
+                "-frames:v", "1",
+                "-q:v", "2", // Near-lossless; these are inputs to another encode
+                temp.toString()
+            );
+            pb.redirectErrorStream(true);
+            Process process = pb.start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.debug("[FFmpeg normalize] {}", line);
+                }
+            }
+            if (process.waitFor() != 0) {
+                throw new IOException("FFmpeg exited with " + process.exitValue());
+            }
+
+            // Variant before stamp: until the new stamp is in place the old one no longer matches the source
+            Files.move(temp, variant, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.writeString(temp, stamp, StandardCharsets.UTF_8);
+            Files.move(temp, stampPath(variant), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            normalized.incrementAndGet();
+            totalMillis.addAndGet(System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            System.err.println("Failed to normalise " + source + " for height " + height + ": " + e.getMessage());
+        } finally {
+            inFlight.remove(variant);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Best effort; a stray temp file is never read as a variant
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue depth and throughput counters
+     */
+    public Map<String, Object> getStats() {
+        long done = normalized.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("heights", heights);
+        stats.put("queued", executor.getQueue().size());
+        stats.put("active", executor.getActiveCount());
+        stats.put("normalized", done);
+        stats.put("upToDate", upToDate.get());
+        stats.put("failed", failed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("avgMillis", done == 0 ? 0 : totalMillis.get() / done);
+        return stats;
+    }
+
+    private int evenDimension(int value) {
+        return Math.max(2, value - (value % 2));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
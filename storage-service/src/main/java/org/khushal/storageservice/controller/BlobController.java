@@ -0,0 +1,232 @@
+package org.khushal.storageservice.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.khushal.storageservice.exception.BlobNotFoundException;
+import org.khushal.storageservice.exception.RangeNotSatisfiableException;
+import org.khushal.storageservice.model.BlobContent;
+import org.khushal.storageservice.model.BlobInfo;
+import org.khushal.storageservice.model.BlobListing;
+import org.khushal.storageservice.model.ByteRange;
+import org.khushal.storageservice.service.BlobBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Blob API over the configured backend. Keys are the rest of the path after /blobs/, e.g.
+ * PUT /api/storage/blobs/public/images/{category}/{folder}/001.jpg. Bodies are streamed both ways.
+ * PUT and DELETE need the shared service token (storage.write-token) in the X-Storage-Token header;
+ * without a configured token every write is refused.
+ */
+@RestController
+@RequestMapping("/api/storage")
+public class BlobController {
+
+    private static final int MAX_LIST_LIMIT = 1000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String TOKEN_HEADER = "X-Storage-Token";
+
+    @Autowired
+    private BlobBackend blobBackend;
+
+    @Value("${storage.write-token:}")
+    private String writeToken;
+
+    /**
+     * Store the request body under the key, replacing any existing object
+     */
+    @PutMapping("/blobs/{*key}")
+    public ResponseEntity<?> putBlob(@PathVariable String key, HttpServletRequest request) {
+        ResponseEntity<?> denied = checkWriteToken(request.getHeader(TOKEN_HEADER));
+        if (denied != null) {
+            return denied;
+        }
+        try (InputStream input = request.getInputStream()) {
+            BlobInfo info = blobBackend.put(trimKey(key), input, request.getContentLengthLong());
+            return ResponseEntity.status(HttpStatus.CREATED).eTag(info.getEtag()).body(info);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to store blob: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Read an object; a single Range (bytes=first-last, first- or -suffix) is answered with 206
+     */
+    @GetMapping("/blobs/{*key}")
+    public void getBlob(@PathVariable String key,
+                        @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+                        HttpServletResponse response) throws IOException {
+        ByteRange range;
+        try {
+            range = ByteRange.parse(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // Malformed ranges are ignored, as HTTP allows
+            range = null;
+        }
+
+        try (BlobContent content = blobBackend.get(trimKey(key), range)) {
+            writeHeaders(response, content.getInfo());
+            response.setContentLengthLong(content.getLength());
+            if (content.isPartial()) {
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + content.getStart() + "-"
+                        + (content.getStart() + content.getLength() - 1) + "/" + content.getInfo().getSize());
+            }
+            copy(content.getInputStream(), response.getOutputStream(), content.getLength());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+        } catch (BlobNotFoundException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), e.getMessage());
+        } catch (RangeNotSatisfiableException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + e.getSize());
+            response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), e.getMessage());
+        }
+    }
+
+    /**
+     * Object metadata as headers, without the body
+     */
+    @RequestMapping(value = "/blobs/{*key}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headBlob(@PathVariable String key, HttpServletResponse response) {
+        try {
+            BlobInfo info = blobBackend.stat(trimKey(key));
+            if (info == null) {
+                return ResponseEntity.notFound().build();
+            }
+            writeHeaders(response, info);
+            response.setContentLengthLong(info.getSize());
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @DeleteMapping("/blobs/{*key}")
+    public ResponseEntity<?> deleteBlob(@PathVariable String key,
+                                        @RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        ResponseEntity<?> denied = checkWriteToken(token);
+        if (denied != null) {
+            return denied;
+        }
+        try {
+            if (!blobBackend.delete(trimKey(key))) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to delete blob: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * List objects under a key prefix in key order, a page at a time; pass the returned nextStartAfter as
+     * startAfter for the next page
+     */
+    @GetMapping("/blobs")
+    public ResponseEntity<?> listBlobs(@RequestParam(defaultValue = "") String prefix,
+                                       @RequestParam(required = false) String startAfter,
+                                       @RequestParam(defaultValue = "1000") int limit) {
+        if (limit < 1 || limit > MAX_LIST_LIMIT) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Limit must be between 1 and " + MAX_LIST_LIMIT));
+        }
+        try {
+            BlobListing listing = blobBackend.list(prefix, startAfter, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("prefix", prefix);
+            response.put("blobs", listing.getBlobs());
+            response.put("count", listing.getBlobs().size());
+            response.put("nextStartAfter", listing.getNextStartAfter());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to list blobs: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Which backend is in use
+     */
+    @GetMapping("/status")
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(Map.of("backend", blobBackend.getName()));
+    }
+
+    /**
+     * Writes change what every service renders and streams, so only holders of the service token may make them
+     * @return the refusal, or null if the token matches
+     */
+    private ResponseEntity<?> checkWriteToken(String token) {
+        if (writeToken.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Writes are disabled: storage.write-token is not configured"));
+        }
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                writeToken.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Missing or invalid " + TOKEN_HEADER));
+        }
+        return null;
+    }
+
+    private void writeHeaders(HttpServletResponse response, BlobInfo info) {
+        response.setContentType(MediaTypeFactory.getMediaType(info.getKey())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (info.getEtag() != null) {
+            response.setHeader(HttpHeaders.ETAG, info.getEtag());
+        }
+        if (info.getLastModified() > 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, info.getLastModified());
+        }
+    }
+
+    /**
+     * Copy exactly the announced number of bytes
+     */
+    private void copy(InputStream input, OutputStream output, long length) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new IOException("Blob ended " + remaining + " bytes early");
+            }
+            output.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    /**
+     * {*key} captures the leading slash
+     */
+    private String trimKey(String key) {
+        return key.startsWith("/") ? key.substring(1) : key;
+    }
+}
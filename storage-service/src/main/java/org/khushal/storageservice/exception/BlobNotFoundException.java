@@ -0,0 +1,11 @@
+package org.khushal.storageservice.exception;
+
+/**
+ * Thrown when no object is stored under the requested key
+ */
+public class BlobNotFoundException extends RuntimeException {
+
+    public BlobNotFoundException(String key) {
+        super("Blob not found: " + key);
+    }
+}
@@ -0,0 +1,19 @@
+package org.khushal.storageservice.exception;
+
+/**
+ * Thrown when a requested byte range starts past the end of the object.
+ * Carries the object's size for the Content-Range header of the 416 response.
+ */
+public class RangeNotSatisfiableException extends RuntimeException {
+
+    private final long size;
+
+    public RangeNotSatisfiableException(long size) {
+        super("Range not satisfiable; size is " + size);
+        this.size = size;
+    }
+
+    public long getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,52 @@
+package org.khushal.storageservice.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An open object, or the requested part of it. The stream yields exactly {@link #getLength()} bytes starting
+ * at {@link #getStart()}; close it when done.
+ */
+public class BlobContent implements Closeable {
+
+    private final BlobInfo info;
+    private final InputStream inputStream;
+    private final long start;
+    private final long length;
+
+    public BlobContent(BlobInfo info, InputStream inputStream, long start, long length) {
+        this.info = info;
+        this.inputStream = inputStream;
+        this.start = start;
+        this.length = length;
+    }
+
+    public BlobInfo getInfo() {
+        return info;
+    }
+
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Whether only part of the object was requested
+     */
+    public boolean isPartial() {
+        return start > 0 || length < info.getSize();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
@@ -0,0 +1,44 @@
+package org.khushal.storageservice.model;
+
+/**
+ * A stored object: its key, size, last modification time and entity tag
+ */
+public class BlobInfo {
+
+    private final String key;
+    private final long size;
+    private final long lastModified;
+    private final String etag;
+
+    public BlobInfo(String key, long size, long lastModified, String etag) {
+        this.key = key;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.etag = etag;
+    }
+
+    /**
+     * Slash-separated path of the object, e.g. public/images/{category}/{folder}/001.jpg
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Epoch milliseconds
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Changes whenever the content does; quoted as in an HTTP ETag header
+     */
+    public String getEtag() {
+        return etag;
+    }
+}
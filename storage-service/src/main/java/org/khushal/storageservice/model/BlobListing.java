@@ -0,0 +1,28 @@
+package org.khushal.storageservice.model;
+
+import java.util.List;
+
+/**
+ * One page of a listing, in key order
+ */
+public class BlobListing {
+
+    private final List<BlobInfo> blobs;
+    private final String nextStartAfter;
+
+    public BlobListing(List<BlobInfo> blobs, String nextStartAfter) {
+        this.blobs = blobs;
+        this.nextStartAfter = nextStartAfter;
+    }
+
+    public List<BlobInfo> getBlobs() {
+        return blobs;
+    }
+
+    /**
+     * Key to pass as startAfter for the next page, or null if this is the last one
+     */
+    public String getNextStartAfter() {
+        return nextStartAfter;
+    }
+}
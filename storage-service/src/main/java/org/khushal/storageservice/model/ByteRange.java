@@ -0,0 +1,93 @@
+package org.khushal.storageservice.model;
+
+import org.khushal.storageservice.exception.RangeNotSatisfiableException;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A single byte range from an HTTP Range header: first-last, first- (to the end) or -suffix (the last bytes)
+ */
+public class ByteRange {
+
+    // Single range with digit-only positions; a sign ("bytes=--5") is malformed, not a negative suffix
+    private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private final Long first;
+    private final Long last;
+    private final Long suffixLength;
+
+    private ByteRange(Long first, Long last, Long suffixLength) {
+        this.first = first;
+        this.last = last;
+        this.suffixLength = suffixLength;
+    }
+
+    /**
+     * Parse "bytes=first-last", "bytes=first-" or "bytes=-suffix"; positions are digits only
+     * @return the range, or null when there is no header or it asks for several ranges (served whole)
+     * @throws IllegalArgumentException if the header is malformed
+     */
+    public static ByteRange parse(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        if (!header.startsWith("bytes=")) {
+            throw new IllegalArgumentException("Unsupported range unit: " + header);
+        }
+        if (header.contains(",")) {
+            return null;
+        }
+        Matcher matcher = RANGE_PATTERN.matcher(header.trim());
+        if (!matcher.matches() || matcher.group(1).isEmpty() && matcher.group(2).isEmpty()) {
+            throw new IllegalArgumentException("Malformed range: " + header);
+        }
+        if (matcher.group(1).isEmpty()) {
+            return new ByteRange(null, null, parsePosition(matcher.group(2)));
+        }
+        long first = parsePosition(matcher.group(1));
+        Long last = matcher.group(2).isEmpty() ? null : parsePosition(matcher.group(2));
+        if (last != null && last < first) {
+            throw new IllegalArgumentException("Malformed range: " + header);
+        }
+        return new ByteRange(first, last, null);
+    }
+
+    /**
+     * Byte position from the header; more digits than a long holds still mean "past any object"
+     */
+    private static long parsePosition(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * First and last byte (inclusive) of this range within an object of the given size
+     * @throws RangeNotSatisfiableException if the range lies outside the object
+     */
+    public long[] resolve(long size) {
+        if (suffixLength != null) {
+            if (suffixLength == 0 || size == 0) {
+                throw new RangeNotSatisfiableException(size);
+            }
+            return new long[]{Math.max(0, size - suffixLength), size - 1};
+        }
+        if (first >= size) {
+            throw new RangeNotSatisfiableException(size);
+        }
+        return new long[]{first, last == null ? size - 1 : Math.min(last, size - 1)};
+    }
+
+    /**
+     * The range as a Range header value, to pass on to another server
+     */
+    public String toHeader() {
+        if (suffixLength != null) {
+            return "bytes=-" + suffixLength;
+        }
+        return "bytes=" + first + "-" + (last == null ? "" : last);
+    }
+}
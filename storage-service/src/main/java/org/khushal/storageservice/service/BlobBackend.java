@@ -0,0 +1,72 @@
+package org.khushal.storageservice.service;
+
+import org.khushal.storageservice.model.BlobContent;
+import org.khushal.storageservice.model.BlobInfo;
+import org.khushal.storageservice.model.BlobListing;
+import org.khushal.storageservice.model.ByteRange;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Where objects are kept. Keys are slash-separated relative paths, the same ones the services use on disk
+ * (public/images/{category}/{folder}/001.jpg), so a folder is a key prefix. Selected with storage.backend.
+ */
+public interface BlobBackend {
+
+    int MAX_KEY_LENGTH = 1024;
+
+    /**
+     * Name shown in status responses: "local" or "s3"
+     */
+    String getName();
+
+    /**
+     * Store an object, replacing any object with the same key. Readers see the old or the new content,
+     * never a partial write.
+     * @param length number of bytes the stream holds, or -1 if unknown
+     */
+    BlobInfo put(String key, InputStream input, long length) throws IOException;
+
+    /**
+     * Open an object, or the given part of it
+     * @param range null for the whole object
+     * @throws org.khushal.storageservice.exception.BlobNotFoundException if there is no such object
+     * @throws org.khushal.storageservice.exception.RangeNotSatisfiableException if the range is outside it
+     */
+    BlobContent get(String key, ByteRange range) throws IOException;
+
+    /**
+     * Object metadata, or null if there is no such object
+     */
+    BlobInfo stat(String key) throws IOException;
+
+    /**
+     * Objects whose key starts with the prefix, in key order
+     * @param startAfter only keys after this one; null or empty for the first page
+     */
+    BlobListing list(String prefix, String startAfter, int limit) throws IOException;
+
+    /**
+     * @return whether there was an object to delete
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Reject keys that are empty, absolute, or would step outside the store
+     */
+    static String checkKey(String key) {
+        if (key == null || key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        if (key.startsWith("/") || key.endsWith("/") || key.contains("\\") || key.indexOf('\0') >= 0) {
+            throw new IllegalArgumentException("Invalid key: " + key);
+        }
+        for (String segment : key.split("/", -1)) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                throw new IllegalArgumentException("Invalid key: " + key);
+            }
+        }
+        return key;
+    }
+}
@@ -0,0 +1,217 @@
+package org.khushal.storageservice.service;
+
+import jakarta.annotation.PostConstruct;
+import org.khushal.storageservice.exception.BlobNotFoundException;
+import org.khushal.storageservice.model.BlobContent;
+import org.khushal.storageservice.model.BlobInfo;
+import org.khushal.storageservice.model.BlobListing;
+import org.khushal.storageservice.model.ByteRange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Objects as files under a root directory (data/blobs by default); the key is the path below it. The root is
+ * a directory of its own, never a service's working tree, so the API cannot reach files it did not store.
+ * Writes go to a hidden temporary file next to the target and are renamed over it.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalBlobBackend implements BlobBackend {
+
+    private static final String TEMP_PREFIX = ".blob-";
+    private static final String TEMP_SUFFIX = ".part";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Value("${storage.local.root:data/blobs}")
+    private String rootDir;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(rootDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        System.out.println("Local blob backend at " + root);
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public BlobInfo put(String key, InputStream input, long length) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), TEMP_PREFIX, TEMP_SUFFIX);
+        try {
+            long written = 0;
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                    written += read;
+                }
+            }
+            if (length >= 0 && written != length) {
+                throw new IOException("Expected " + length + " bytes for " + key + " but received " + written);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return stat(key);
+    }
+
+    @Override
+    public BlobContent get(String key, ByteRange range) throws IOException {
+        Path file = resolve(key);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new BlobNotFoundException(key);
+        }
+        try {
+            BlobInfo info = info(key, file);
+            // Bounded by the open file: a replace renames a new file over the path but never changes this one
+            long size = Math.min(info.getSize(), channel.size());
+            long start = 0;
+            long length = size;
+            if (range != null) {
+                long[] bounds = range.resolve(size);
+                start = bounds[0];
+                length = bounds[1] - bounds[0] + 1;
+            }
+            channel.position(start);
+            return new BlobContent(info, Channels.newInputStream(channel), start, length);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        Path file = resolve(key);
+        try {
+            return info(key, file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public BlobListing list(String prefix, String startAfter, int limit) throws IOException {
+        String after = startAfter == null ? "" : startAfter;
+        // Walk only the deepest directory the prefix names in full
+        int slash = prefix.lastIndexOf('/');
+        String directoryKey = slash < 0 ? "" : prefix.substring(0, slash);
+        Path directory = directoryKey.isEmpty() ? root : resolve(directoryKey);
+
+        List<BlobInfo> blobs = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            walk(directory, directoryKey, prefix, after, limit + 1, blobs);
+        }
+        if (blobs.size() > limit) {
+            blobs.remove(limit);
+            return new BlobListing(blobs, blobs.get(limit - 1).getKey());
+        }
+        return new BlobListing(blobs, null);
+    }
+
+    /**
+     * Depth-first over children sorted as their keys sort (a directory as "name/"), which yields keys in
+     * plain string order, like an object store. Subtrees entirely outside the prefix or before startAfter
+     * are not entered.
+     */
+    private void walk(Path directory, String directoryKey, String prefix, String after, int wanted,
+                      List<BlobInfo> blobs) throws IOException {
+        List<Child> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path child : stream) {
+                String name = child.getFileName().toString();
+                if (name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX)) {
+                    continue;
+                }
+                String key = directoryKey.isEmpty() ? name : directoryKey + "/" + name;
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(child, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                children.add(new Child(attributes.isDirectory() ? key + "/" : key, child, attributes));
+            }
+        }
+        children.sort(Comparator.comparing(Child::sortKey));
+
+        for (Child child : children) {
+            if (blobs.size() >= wanted) {
+                return;
+            }
+            String key = child.sortKey();
+            if (child.attributes().isDirectory()) {
+                boolean overlapsPrefix = key.startsWith(prefix) || prefix.startsWith(key);
+                boolean beforeStart = key.compareTo(after) < 0 && !after.startsWith(key);
+                if (overlapsPrefix && !beforeStart) {
+                    walk(child.path(), key.substring(0, key.length() - 1), prefix, after, wanted, blobs);
+                }
+            } else if (child.attributes().isRegularFile() && key.startsWith(prefix) && key.compareTo(after) > 0) {
+                blobs.add(info(key, child.attributes()));
+            }
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        Path file = resolve(key);
+        if (Files.isDirectory(file)) {
+            return false;
+        }
+        return Files.deleteIfExists(file);
+    }
+
+    private BlobInfo info(String key, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (!attributes.isRegularFile()) {
+            throw new NoSuchFileException(file.toString());
+        }
+        return info(key, attributes);
+    }
+
+    private BlobInfo info(String key, BasicFileAttributes attributes) {
+        long modified = attributes.lastModifiedTime().toMillis();
+        // Same shape as common web servers: mtime and size, which change whenever a file is replaced
+        String etag = "\"" + Long.toHexString(modified) + "-" + Long.toHexString(attributes.size()) + "\"";
+        return new BlobInfo(key, attributes.size(), modified, etag);
+    }
+
+    /**
+     * A directory entry; sortKey is its key, with a trailing slash for directories
+     */
+    private record Child(String sortKey, Path path, BasicFileAttributes attributes) {
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(BlobBackend.checkKey(key)).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid key: " + key);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,319 @@
+package org.khushal.storageservice.service;
+
+import jakarta.annotation.PostConstruct;
+import org.khushal.storageservice.exception.BlobNotFoundException;
+import org.khushal.storageservice.exception.RangeNotSatisfiableException;
+import org.khushal.storageservice.model.BlobContent;
+import org.khushal.storageservice.model.BlobInfo;
+import org.khushal.storageservice.model.BlobListing;
+import org.khushal.storageservice.model.ByteRange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Objects in a bucket of an S3-compatible store (AWS S3, or MinIO locally), over the plain REST API with
+ * Signature V4 and path-style URLs. Bodies are streamed in both directions and not signed
+ * (UNSIGNED-PAYLOAD), so nothing is buffered; an upload of unknown length is spooled to a temporary file
+ * first, because S3 needs the length up front. Keys may be placed under a common key-prefix.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+public class S3BlobBackend implements BlobBackend {
+
+    // Largest single PUT S3 accepts; bigger objects would need a multipart upload
+    private static final long MAX_PUT_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_LIST_KEYS = 1000;
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    @Value("${storage.s3.endpoint:http://localhost:9000}")
+    private String endpoint;
+
+    @Value("${storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${storage.s3.bucket:presentation-suite}")
+    private String bucket;
+
+    @Value("${storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${storage.s3.key-prefix:}")
+    private String keyPrefix;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private S3RequestSigner signer;
+
+    @PostConstruct
+    public void init() {
+        if (accessKey.isEmpty() || secretKey.isEmpty()) {
+            throw new IllegalStateException("storage.s3.access-key and storage.s3.secret-key must be set for the "
+                    + "s3 backend");
+        }
+        endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        signer = new S3RequestSigner(accessKey, secretKey, region);
+        try {
+            HttpResponse<Void> head = send("HEAD", null, new TreeMap<>(), Map.of(),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+            if (head.statusCode() == 404) {
+                HttpResponse<String> created = send("PUT", null, new TreeMap<>(), Map.of(),
+                        HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+                check(created, "create bucket " + bucket);
+                System.out.println("Created bucket " + bucket + " at " + endpoint);
+            } else if (head.statusCode() != 200) {
+                System.err.println("Bucket " + bucket + " at " + endpoint + " answered " + head.statusCode());
+            }
+        } catch (IOException e) {
+            // The store may come up after us; requests fail until it does
+            System.err.println("S3 endpoint " + endpoint + " not reachable: " + e.getMessage());
+        }
+        System.out.println("S3 blob backend: bucket " + bucket + " at " + endpoint);
+    }
+
+    @Override
+    public String getName() {
+        return "s3";
+    }
+
+    @Override
+    public BlobInfo put(String key, InputStream input, long length) throws IOException {
+        BlobBackend.checkKey(key);
+        if (length > MAX_PUT_SIZE) {
+            throw new IllegalArgumentException("Objects larger than 5 GiB are not supported");
+        }
+        Path spooled = null;
+        try {
+            HttpRequest.BodyPublisher body;
+            if (length >= 0) {
+                body = HttpRequest.BodyPublishers.fromPublisher(
+                        HttpRequest.BodyPublishers.ofInputStream(() -> input), length);
+            } else {
+                spooled = Files.createTempFile("blob-", ".part");
+                Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+                length = Files.size(spooled);
+                if (length > MAX_PUT_SIZE) {
+                    throw new IllegalArgumentException("Objects larger than 5 GiB are not supported");
+                }
+                body = HttpRequest.BodyPublishers.ofFile(spooled);
+            }
+            HttpResponse<String> response = send("PUT", key, new TreeMap<>(), Map.of(), body,
+                    HttpResponse.BodyHandlers.ofString());
+            check(response, "store " + key);
+            return new BlobInfo(key, length, System.currentTimeMillis(),
+                    response.headers().firstValue("ETag").orElse(null));
+        } finally {
+            if (spooled != null) {
+                Files.deleteIfExists(spooled);
+            }
+        }
+    }
+
+    @Override
+    public BlobContent get(String key, ByteRange range) throws IOException {
+        BlobBackend.checkKey(key);
+        Map<String, String> headers = range == null ? Map.of() : Map.of("range", range.toHeader());
+        HttpResponse<InputStream> response = send("GET", key, new TreeMap<>(), headers,
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status == 404 || status == 416) {
+            response.body().close();
+            if (status == 404) {
+                throw new BlobNotFoundException(key);
+            }
+            BlobInfo info = stat(key);
+            if (info == null) {
+                throw new BlobNotFoundException(key);
+            }
+            throw new RangeNotSatisfiableException(info.getSize());
+        }
+        if (status != 200 && status != 206) {
+            String error = new String(response.body().readNBytes(1024), StandardCharsets.UTF_8);
+            response.body().close();
+            throw new IOException("S3 GET " + key + " failed with " + status + ": " + error);
+        }
+
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        long start = 0;
+        long size = length;
+        Optional<String> contentRange = response.headers().firstValue("Content-Range");
+        if (status == 206 && contentRange.isPresent()) {
+            // bytes first-last/size
+            String value = contentRange.get();
+            int dash = value.indexOf('-');
+            int slash = value.indexOf('/');
+            start = Long.parseLong(value.substring(value.indexOf(' ') + 1, dash).trim());
+            size = Long.parseLong(value.substring(slash + 1).trim());
+        }
+        BlobInfo info = new BlobInfo(key, size, lastModified(response.headers()),
+                response.headers().firstValue("ETag").orElse(null));
+        return new BlobContent(info, response.body(), start, length);
+    }
+
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        BlobBackend.checkKey(key);
+        HttpResponse<Void> response = send("HEAD", key, new TreeMap<>(), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("S3 HEAD " + key + " failed with " + response.statusCode());
+        }
+        return new BlobInfo(key, response.headers().firstValueAsLong("Content-Length").orElse(0),
+                lastModified(response.headers()), response.headers().firstValue("ETag").orElse(null));
+    }
+
+    @Override
+    public BlobListing list(String prefix, String startAfter, int limit) throws IOException {
+        TreeMap<String, String> query = new TreeMap<>();
+        query.put("list-type", "2");
+        query.put("prefix", keyPrefix + prefix);
+        query.put("max-keys", String.valueOf(Math.min(limit, MAX_LIST_KEYS)));
+        if (startAfter != null && !startAfter.isEmpty()) {
+            query.put("start-after", keyPrefix + startAfter);
+        }
+        HttpResponse<InputStream> response = send("GET", null, query, Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("S3 list failed with " + response.statusCode() + ": "
+                        + new String(body.readNBytes(1024), StandardCharsets.UTF_8));
+            }
+            Document document = parseXml(body);
+            List<BlobInfo> blobs = new ArrayList<>();
+            NodeList contents = document.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element entry = (Element) contents.item(i);
+                String key = text(entry, "Key").substring(keyPrefix.length());
+                blobs.add(new BlobInfo(key, Long.parseLong(text(entry, "Size")),
+                        Instant.parse(text(entry, "LastModified")).toEpochMilli(), text(entry, "ETag")));
+            }
+            boolean truncated = "true".equals(text(document.getDocumentElement(), "IsTruncated"));
+            String next = truncated && !blobs.isEmpty() ? blobs.get(blobs.size() - 1).getKey() : null;
+            return new BlobListing(blobs, next);
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        // DELETE succeeds whether or not the object existed
+        if (stat(key) == null) {
+            return false;
+        }
+        HttpResponse<String> response = send("DELETE", key, new TreeMap<>(), Map.of(),
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+        check(response, "delete " + key);
+        return true;
+    }
+
+    /**
+     * Send a signed request for an object (or for the bucket itself when key is null)
+     */
+    private <T> HttpResponse<T> send(String method, String key, TreeMap<String, String> query,
+                                     Map<String, String> extraHeaders, HttpRequest.BodyPublisher body,
+                                     HttpResponse.BodyHandler<T> handler) throws IOException {
+        String path = "/" + S3RequestSigner.encode(bucket, true)
+                + (key == null ? "" : "/" + S3RequestSigner.encode(keyPrefix + key, false));
+        String canonicalQuery = S3RequestSigner.canonicalQuery(query);
+        URI uri = URI.create(endpoint + path + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery));
+        String amzDate = AMZ_DATE.format(Instant.now());
+
+        TreeMap<String, String> headers = new TreeMap<>(extraHeaders);
+        headers.put("host", hostHeader(uri));
+        headers.put("x-amz-content-sha256", S3RequestSigner.UNSIGNED_PAYLOAD);
+        headers.put("x-amz-date", amzDate);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .method(method, body)
+                .timeout(Duration.ofMinutes(10))
+                .header("Authorization", signer.authorization(method, uri.getRawPath(), canonicalQuery, headers,
+                        S3RequestSigner.UNSIGNED_PAYLOAD, amzDate));
+        // Host is set by the client itself, and restricted
+        headers.forEach((name, value) -> {
+            if (!name.equals("host")) {
+                request.header(name, value);
+            }
+        });
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling S3");
+        }
+    }
+
+    /**
+     * The Host header the client will send: the port only when it is not the scheme's default
+     */
+    private static String hostHeader(URI uri) {
+        int port = uri.getPort();
+        int defaultPort = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        return port == -1 || port == defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    private static void check(HttpResponse<String> response, String action) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 failed to " + action + " (" + response.statusCode() + "): " + response.body());
+        }
+    }
+
+    private static long lastModified(HttpHeaders headers) {
+        return headers.firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli())
+                .orElse(0L);
+    }
+
+    private static Document parseXml(InputStream input) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(input);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Malformed S3 response: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Text of the first child element with the name, or null
+     */
+    private static String text(Element parent, String name) {
+        NodeList nodes = parent.getElementsByTagName(name);
+        return nodes.getLength() == 0 ? null : nodes.item(0).getTextContent();
+    }
+}
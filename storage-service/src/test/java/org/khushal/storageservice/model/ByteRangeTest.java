@@ -0,0 +1,63 @@
+package org.khushal.storageservice.model;
+
+import org.junit.jupiter.api.Test;
+import org.khushal.storageservice.exception.RangeNotSatisfiableException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Range header parsing and resolution of ByteRange
+ */
+class ByteRangeTest {
+
+    private static final long SIZE = 10;
+
+    @Test
+    void resolvesSingleRanges() {
+        assertArrayEquals(new long[]{0, 4}, ByteRange.parse("bytes=0-4").resolve(SIZE));
+        assertArrayEquals(new long[]{5, 9}, ByteRange.parse("bytes=5-").resolve(SIZE));
+        assertArrayEquals(new long[]{5, 9}, ByteRange.parse("bytes=5-100").resolve(SIZE));
+        assertArrayEquals(new long[]{0, 9}, ByteRange.parse("bytes=0-99999999999999999999999").resolve(SIZE));
+    }
+
+    @Test
+    void resolvesSuffixRanges() {
+        assertArrayEquals(new long[]{7, 9}, ByteRange.parse("bytes=-3").resolve(SIZE));
+        assertArrayEquals(new long[]{5, 9}, ByteRange.parse("bytes=-5").resolve(SIZE));
+        assertArrayEquals(new long[]{0, 9}, ByteRange.parse("bytes=-50").resolve(SIZE));
+        assertArrayEquals(new long[]{0, 9}, ByteRange.parse("bytes=-99999999999999999999999").resolve(SIZE));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges() {
+        for (String header : new String[]{"bytes=10-", "bytes=10-20", "bytes=-0", "bytes=99999999999999999999999-"}) {
+            ByteRange range = ByteRange.parse(header);
+            RangeNotSatisfiableException e = assertThrows(RangeNotSatisfiableException.class,
+                    () -> range.resolve(SIZE), header);
+            assertEquals(SIZE, e.getSize());
+        }
+        assertThrows(RangeNotSatisfiableException.class, () -> ByteRange.parse("bytes=-5").resolve(0));
+    }
+
+    @Test
+    void rejectsMalformedRanges() {
+        for (String header : new String[]{"bytes=--5", "bytes=-+5", "bytes=+1-2", "bytes=1--2", "bytes=-",
+                "bytes=5-3", "bytes=a-b", "bytes=1-2-3", "items=0-4", "0-4"}) {
+            assertThrows(IllegalArgumentException.class, () -> ByteRange.parse(header), header);
+        }
+    }
+
+    @Test
+    void servesWholeWithoutASingleRange() {
+        assertNull(ByteRange.parse(null));
+        assertNull(ByteRange.parse(" "));
+        assertNull(ByteRange.parse("bytes=0-1,4-5"));
+    }
+
+    @Test
+    void writesTheHeaderBack() {
+        assertEquals("bytes=0-4", ByteRange.parse("bytes=0-4").toHeader());
+        assertEquals("bytes=5-", ByteRange.parse("bytes=5-").toHeader());
+        assertEquals("bytes=-3", ByteRange.parse("bytes=-3").toHeader());
+    }
+}
@@ -1,26 +1,64 @@
 package org.khushal.videoservice.controller;
 
+import org.khushal.videoservice.exception.RenderQueueFullException;
+import org.khushal.videoservice.model.EncodeProfile;
+import org.khushal.videoservice.model.RenderJob;
+import org.khushal.videoservice.model.RenderMode;
+import org.khushal.videoservice.model.RenderRequest;
+import org.khushal.videoservice.service.MediaCacheService;
+import org.khushal.videoservice.service.ProgressStreamService;
+import org.khushal.videoservice.service.RenderCacheService;
+import org.khushal.videoservice.service.RenderJobService;
+import org.khushal.videoservice.service.RenderScheduler;
+import org.khushal.videoservice.service.VideoRenderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.*;
+import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/video")
 public class VideoController {
-    
-    private final AtomicInteger videoCounter = new AtomicInteger(1);
-    
-    // Pattern to match numbered image files (001.jpg, 002.png, etc.)
-    private static final Pattern NUMBERED_IMAGE_PATTERN = Pattern.compile("^(\\d{3})\\.(jpg|jpeg|png|gif|webp|bmp)$", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private VideoRenderService videoRenderService;
+
+    @Autowired
+    private RenderJobService renderJobService;
+
+    @Autowired
+    private RenderScheduler renderScheduler;
+
+    @Autowired
+    private RenderCacheService renderCacheService;
+
+    @Autowired
+    private ProgressStreamService progressStreamService;
+
+    @Autowired
+    private MediaCacheService mediaCacheService;
 
     /**
-     * Generate video from ordered images and existing audio file
+     * Queue a video render from ordered images and existing audio file
      * Images should be numbered as 001.jpg, 002.jpg, etc. for proper ordering
+     * mode=incremental encodes each slide as a cached segment and re-encodes only changed slides
+     * mode=parallel splits the slides into chunks encoded concurrently across cores
+     * mode=hls writes fMP4 HLS segments progressively; play /jobs/{jobId}/hls/index.m3u8 while it encodes
+     * profile=slideshow (mode=full only) encodes at a low frame rate with still-image tuning, long GOPs
+     * and repeated frames dropped, which is much cheaper for slides than the standard profile
+     * preview=true also renders a low-resolution draft on a separate, smaller ffmpeg budget; it is
+     * available from /jobs/{jobId}/preview while the full-quality render continues under the same job
+     * Returns 202 with a job id; follow /jobs/{jobId}/events (SSE) or /jobs/{jobId} for status
+     * and fetch /jobs/{jobId}/result for the output
+     * Returns 503 with Retry-After when the render queue is full
      */
     @PostMapping("/merge")
     public ResponseEntity<?> mergeImagesWithAudio(
@@ -31,8 +69,11 @@ public class VideoController {
             @RequestParam(defaultValue = "720") int height,
             @RequestParam(defaultValue = "uploads") String outputDir,
             @RequestParam(defaultValue = "false") boolean cleanupImages,
-            @RequestParam(defaultValue = "false") boolean cleanupAudio) {
-        
+            @RequestParam(defaultValue = "false") boolean cleanupAudio,
+            @RequestParam(defaultValue = "full") String mode,
+            @RequestParam(defaultValue = "standard") String profile,
+            @RequestParam(defaultValue = "false") boolean preview) {
+
         try {
             // Validate parameters
             if (secondsPerImage <= 0) {
@@ -41,79 +82,85 @@ public class VideoController {
             if (height <= 0) {
                 return ResponseEntity.badRequest().body("Height must be positive");
             }
+            RenderMode renderMode = RenderMode.fromString(mode);
+            EncodeProfile encodeProfile = EncodeProfile.fromString(profile);
+            validateProfile(renderMode, encodeProfile);
 
-            // Check if images directory exists
-            Path imagesDir = Paths.get("public", "images", category, folder);
-            if (!Files.isDirectory(imagesDir)) {
-                return ResponseEntity.status(404).body("Images directory not found: " + imagesDir);
+            ResponseEntity<?> invalid = validateSources(category, folder, audioPath);
+            if (invalid != null) {
+                return invalid;
             }
 
-            // Check if audio file exists
-            Path audioFile = Paths.get(audioPath);
-            if (!Files.isRegularFile(audioFile)) {
-                return ResponseEntity.status(404).body("Audio file not found: " + audioFile);
-            }
+            RenderRequest request = new RenderRequest(category, folder, audioPath, secondsPerImage,
+                    height, outputDir, cleanupImages, cleanupAudio, renderMode, encodeProfile);
+            RenderJob job = preview ? renderJobService.submitWithPreview(request) : renderJobService.submit(request);
 
-            // Get ordered image files
-            List<Path> imageFiles = getOrderedImageFiles(imagesDir);
-            if (imageFiles.isEmpty()) {
-                return ResponseEntity.badRequest().body("No numbered image files found in: " + imagesDir + 
-                    ". Images should be named as 001.jpg, 002.jpg, etc.");
-            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toJobResponse(job));
+
+        } catch (RenderQueueFullException e) {
+            return queueFullResponse(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error generating video: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queue a benchmark rendering the folder once per mode and profile (render cache bypassed)
+     * The job result lists wall-clock time and output size per run, e.g. modes=full,parallel
+     * or modes=full&profiles=standard,slideshow to compare encode profiles
+     */
+    @PostMapping("/benchmark")
+    public ResponseEntity<?> benchmark(
+            @RequestParam String category,
+            @RequestParam String folder,
+            @RequestParam String audioPath,
+            @RequestParam(defaultValue = "5") int secondsPerImage,
+            @RequestParam(defaultValue = "720") int height,
+            @RequestParam(defaultValue = "uploads") String outputDir,
+            @RequestParam(defaultValue = "full,parallel") List<String> modes,
+            @RequestParam(defaultValue = "standard") List<String> profiles) {
 
-            // Create output directory
-            Path outputDirPath = Paths.get(outputDir);
-            Files.createDirectories(outputDirPath);
-
-            // Generate unique output filename
-            String outputFileName = String.format("video_%s_%s_%d.mp4", 
-                category, folder, videoCounter.getAndIncrement());
-            Path outputVideoPath = outputDirPath.resolve(outputFileName);
-
-            // Create temporary file list for ffmpeg
-            Path fileListPath = imagesDir.resolve("temp_filelist.txt");
-            
-            try {
-                // Create file list with duration for each image
-                createImageFileList(fileListPath, imageFiles, secondsPerImage);
-
-                // Execute ffmpeg command
-                boolean success = executeFFmpegCommand(fileListPath, audioFile, outputVideoPath, height);
-
-                if (success) {
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("message", "Video generated successfully");
-                    response.put("outputPath", outputVideoPath.toString());
-                    response.put("category", category);
-                    response.put("folder", folder);
-                    response.put("imageCount", imageFiles.size());
-                    response.put("secondsPerImage", secondsPerImage);
-                    response.put("height", height);
-                    response.put("audioFile", audioPath);
-
-                    // Cleanup if requested
-                    if (cleanupImages) {
-                        cleanupImageFiles(imageFiles);
-                        response.put("cleanupImages", true);
-                    }
-                    if (cleanupAudio) {
-                        Files.deleteIfExists(audioFile);
-                        response.put("cleanupAudio", true);
-                    }
-
-                    return ResponseEntity.ok(response);
-                } else {
-                    return ResponseEntity.status(500).body("FFmpeg failed to generate video");
+        try {
+            if (secondsPerImage <= 0 || height <= 0) {
+                return ResponseEntity.badRequest().body("Seconds per image and height must be positive");
+            }
+            List<RenderMode> renderModes = new ArrayList<>();
+            for (String mode : modes) {
+                renderModes.add(RenderMode.fromString(mode.trim()));
+            }
+            List<EncodeProfile> encodeProfiles = new ArrayList<>();
+            for (String profile : profiles) {
+                encodeProfiles.add(EncodeProfile.fromString(profile.trim()));
+            }
+            if (renderModes.contains(RenderMode.HLS)) {
+                return ResponseEntity.badRequest().body("mode=hls produces a stream, not a file, and cannot be benchmarked");
+            }
+            for (RenderMode renderMode : renderModes) {
+                for (EncodeProfile encodeProfile : encodeProfiles) {
+                    validateProfile(renderMode, encodeProfile);
                 }
+            }
 
-            } finally {
-                // Always clean up temporary file list
-                Files.deleteIfExists(fileListPath);
+            ResponseEntity<?> invalid = validateSources(category, folder, audioPath);
+            if (invalid != null) {
+                return invalid;
             }
 
+            RenderRequest request = new RenderRequest(category, folder, audioPath, secondsPerImage,
+                    height, outputDir, false, false, renderModes.get(0), encodeProfiles.get(0));
+            RenderJob job = renderJobService.submitBenchmark(request, renderModes, encodeProfiles);
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(toJobResponse(job));
+
+        } catch (RenderQueueFullException e) {
+            return queueFullResponse(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("Error generating video: " + e.getMessage());
+            return ResponseEntity.status(500).body("Error starting benchmark: " + e.getMessage());
         }
     }
 
@@ -121,25 +168,166 @@ public class VideoController {
      * Generate video with default settings (legacy endpoint for backward compatibility)
      */
     @PostMapping("/generate/{category}/{folder}")
-    public ResponseEntity<?> generateVideoLegacy(@PathVariable String category, 
+    public ResponseEntity<?> generateVideoLegacy(@PathVariable String category,
                                                @PathVariable String folder) {
-        return mergeImagesWithAudio(category, folder, "uploads/audio/output.mp3", 5, 720, "uploads", false, false);
+        return mergeImagesWithAudio(category, folder, "uploads/audio/output.mp3", 5, 720, "uploads", false, false,
+                "full", "standard", false);
+    }
+
+    /**
+     * List render jobs, newest first
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<?> listJobs() {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (RenderJob job : renderJobService.listJobs()) {
+            jobs.add(toJobResponse(job));
+        }
+        return ResponseEntity.ok(jobs);
+    }
+
+    /**
+     * Get the status of a render job
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJobStatus(@PathVariable String jobId) {
+        return renderJobService.getJob(jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(toJobResponse(job)))
+                .orElse(ResponseEntity.status(404).body("Job not found: " + jobId));
+    }
+
+    /**
+     * Get the draft preview of a render job queued with preview=true
+     * 200 with the preview output once ready, 202 while still rendering, 500 if it failed or was skipped
+     */
+    @GetMapping("/jobs/{jobId}/preview")
+    public ResponseEntity<?> getJobPreview(@PathVariable String jobId) {
+        Optional<RenderJob> jobOpt = renderJobService.getJob(jobId);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.status(404).body("Job not found: " + jobId);
+        }
+
+        RenderJob job = jobOpt.get();
+        if (job.getPreviewStatus() == null) {
+            return ResponseEntity.status(404).body("No preview requested for job: " + jobId);
+        }
+        switch (job.getPreviewStatus()) {
+            case COMPLETED:
+                return ResponseEntity.ok(job.getPreviewResult());
+            case FAILED:
+                return ResponseEntity.status(500).body(job.getPreviewError());
+            default:
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(toJobResponse(job));
+        }
+    }
+
+    /**
+     * Serve the HLS playlist and segments of a mode=hls job, while it renders and afterwards
+     * 404 until the first segment has been published; players simply retry
+     */
+    @GetMapping("/jobs/{jobId}/hls/{fileName:.+}")
+    public ResponseEntity<?> getHlsFile(@PathVariable String jobId, @PathVariable String fileName) {
+        Optional<RenderJob> jobOpt = renderJobService.getJob(jobId);
+        if (jobOpt.isEmpty() || jobOpt.get().getRequest().getMode() != RenderMode.HLS) {
+            return ResponseEntity.status(404).body("HLS job not found: " + jobId);
+        }
+        if (!videoRenderService.isHlsFileName(fileName)) {
+            return ResponseEntity.status(404).body("Not an HLS file: " + fileName);
+        }
+
+        RenderRequest request = jobOpt.get().getRequest();
+        Path file = videoRenderService.getHlsDir(request.getOutputDir(), request.getOutputName()).resolve(fileName);
+        if (!Files.isRegularFile(file)) {
+            return ResponseEntity.status(404).body("Not available yet: " + fileName);
+        }
+
+        boolean playlist = VideoRenderService.HLS_PLAYLIST.equals(fileName);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(playlist ? "application/vnd.apple.mpegurl" : "video/mp4"))
+                // The playlist changes until the render ends; segments never change once published
+                .header(HttpHeaders.CACHE_CONTROL, playlist ? "no-cache" : "max-age=31536000, immutable")
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * Stream render progress as Server-Sent Events
+     * "progress" events carry the job status with stage, frame, fps, speed and percent;
+     * a final "complete" event is sent when the job completes or fails, then the stream closes
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJobEvents(@PathVariable String jobId) {
+        // Typed as SseEmitter so Spring streams the body; unknown jobs get a bare 404
+        Optional<RenderJob> jobOpt = renderJobService.getJob(jobId);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = progressStreamService.subscribe(jobOpt.get(), this::toJobResponse);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header("X-Accel-Buffering", "no") // Keep reverse proxies from buffering the stream
+                .body(emitter);
+    }
+
+    /**
+     * Get the result of a render job
+     * 200 with the render output once completed, 202 while still queued/running, 500 if it failed
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<?> getJobResult(@PathVariable String jobId) {
+        Optional<RenderJob> jobOpt = renderJobService.getJob(jobId);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.status(404).body("Job not found: " + jobId);
+        }
+
+        RenderJob job = jobOpt.get();
+        switch (job.getStatus()) {
+            case COMPLETED:
+                return ResponseEntity.ok(job.getResult());
+            case FAILED:
+                return ResponseEntity.status(500).body(job.getError());
+            default:
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(toJobResponse(job));
+        }
+    }
+
+    /**
+     * Render scheduler queue depth, wait times and limits
+     */
+    @GetMapping("/scheduler")
+    public ResponseEntity<?> getSchedulerStats() {
+        return ResponseEntity.ok(renderScheduler.getStats());
+    }
+
+    /**
+     * Render cache size and hit/miss counters
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(renderCacheService.getStats());
+    }
+
+    /**
+     * Local tier of source media pulled from storage-service: size, hit ratio, evictions and prefetches
+     */
+    @GetMapping("/media-cache")
+    public ResponseEntity<?> getMediaCacheStats() {
+        return ResponseEntity.ok(mediaCacheService.getStats());
     }
 
     /**
      * Get video generation status and available images
      */
     @GetMapping("/status/{category}/{folder}")
-    public ResponseEntity<?> getVideoStatus(@PathVariable String category, 
+    public ResponseEntity<?> getVideoStatus(@PathVariable String category,
                                           @PathVariable String folder) {
         try {
-            Path imagesDir = Paths.get("public", "images", category, folder);
-            
+            Path imagesDir = videoRenderService.getImagesDir(category, folder);
+
             if (!Files.isDirectory(imagesDir)) {
                 return ResponseEntity.status(404).body("Images directory not found: " + imagesDir);
             }
 
-            List<Path> imageFiles = getOrderedImageFiles(imagesDir);
+            List<Path> imageFiles = videoRenderService.getOrderedImageFiles(imagesDir);
             List<String> imageNames = new ArrayList<>();
             for (Path image : imageFiles) {
                 imageNames.add(image.getFileName().toString());
@@ -160,109 +348,91 @@ public class VideoController {
     }
 
     /**
-     * Get ordered image files from directory
+     * Check that the images directory, the audio file and at least one numbered image exist
+     * @return an error response, or null when the sources are usable
      */
-    private List<Path> getOrderedImageFiles(Path imagesDir) throws IOException {
-        List<Path> imageFiles = new ArrayList<>();
-        
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(imagesDir)) {
-            for (Path file : stream) {
-                if (Files.isRegularFile(file)) {
-                    String fileName = file.getFileName().toString();
-                    if (NUMBERED_IMAGE_PATTERN.matcher(fileName).matches()) {
-                        imageFiles.add(file);
-                    }
-                }
-            }
+    private ResponseEntity<?> validateSources(String category, String folder, String audioPath) throws IOException {
+        // Check if images directory exists
+        Path imagesDir = videoRenderService.getImagesDir(category, folder);
+        if (!Files.isDirectory(imagesDir)) {
+            return ResponseEntity.status(404).body("Images directory not found: " + imagesDir);
         }
 
-        // Sort by the numeric prefix (001, 002, 010, etc.)
-        imageFiles.sort((a, b) -> {
-            String nameA = a.getFileName().toString();
-            String nameB = b.getFileName().toString();
-            int numA = Integer.parseInt(nameA.substring(0, 3));
-            int numB = Integer.parseInt(nameB.substring(0, 3));
-            return Integer.compare(numA, numB);
-        });
+        // Check if audio file exists
+        Path audioFile = Paths.get(audioPath);
+        if (!Files.isRegularFile(audioFile)) {
+            return ResponseEntity.status(404).body("Audio file not found: " + audioFile);
+        }
 
-        return imageFiles;
+        // Fail fast when there is nothing to render
+        if (videoRenderService.getOrderedImageFiles(imagesDir).isEmpty()) {
+            return ResponseEntity.badRequest().body("No numbered image files found in: " + imagesDir +
+                ". Images should be named as 001.jpg, 002.jpg, etc.");
+        }
+        return null;
     }
 
     /**
-     * Create file list for ffmpeg with duration for each image
+     * 503 with Retry-After when the render scheduler is saturated
      */
-    private void createImageFileList(Path fileListPath, List<Path> imageFiles, int secondsPerImage) throws IOException {
-        StringBuilder content = new StringBuilder();
-        
-        for (Path imageFile : imageFiles) {
-            content.append("file '").append(imageFile.toAbsolutePath().toString().replace("\\", "/")).append("'\n");
-            content.append("duration ").append(secondsPerImage).append("\n");
-        }
-        
-        // Add the last image again without duration to make concat demuxer work properly
-        if (!imageFiles.isEmpty()) {
-            Path lastImage = imageFiles.get(imageFiles.size() - 1);
-            content.append("file '").append(lastImage.toAbsolutePath().toString().replace("\\", "/")).append("'\n");
-        }
-        
-        Files.writeString(fileListPath, content.toString(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    private ResponseEntity<?> queueFullResponse(RenderQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage(), "retryAfterSeconds", e.getRetryAfterSeconds()));
     }
 
     /**
-     * Execute ffmpeg command to merge images with audio
+     * Segment and chunk modes join their parts with -c copy at a fixed frame rate,
+     * so only the single-pass renders (full, hls) can change the encoder profile
      */
-    private boolean executeFFmpegCommand(Path fileListPath, Path audioFile, Path outputVideoPath, int height) {
-        try {
-            ProcessBuilder pb = new ProcessBuilder(
-                "ffmpeg",
-                "-hide_banner",
-                "-y", // Overwrite output file
-                "-f", "concat",
-                "-safe", "0",
-                "-i", fileListPath.toString(),
-                "-i", audioFile.toString(),
-                "-vf", "scale=-2:" + height + ",format=yuv420p",
-                "-c:v", "libx264",
-                "-preset", "veryfast",
-                "-crf", "20",
-                "-c:a", "aac",
-                "-b:a", "192k",
-                "-shortest", // End when shortest input ends
-                "-movflags", "+faststart", // Optimize for web streaming
-                outputVideoPath.toString()
-            );
-
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-
-            // Log ffmpeg output
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    System.out.println("[FFmpeg] " + line);
-                }
-            }
-
-            int exitCode = process.waitFor();
-            return exitCode == 0;
-
-        } catch (Exception e) {
-            System.err.println("FFmpeg execution failed: " + e.getMessage());
-            return false;
+    private void validateProfile(RenderMode mode, EncodeProfile profile) {
+        // Drafts run on the preview pool only, never on a render thread
+        if (profile == EncodeProfile.PREVIEW) {
+            throw new IllegalArgumentException("Use preview=true to request a draft preview");
+        }
+        if (profile != EncodeProfile.STANDARD && mode != RenderMode.FULL && mode != RenderMode.HLS) {
+            throw new IllegalArgumentException("Encode profile " + profile.getValue()
+                    + " is only supported with mode=full or mode=hls");
         }
     }
 
     /**
-     * Clean up image files after video generation
+     * Build the job payload returned by merge and the job endpoints
      */
-    private void cleanupImageFiles(List<Path> imageFiles) {
-        for (Path imageFile : imageFiles) {
-            try {
-                Files.deleteIfExists(imageFile);
-                System.out.println("Deleted image: " + imageFile.getFileName());
-            } catch (IOException e) {
-                System.err.println("Failed to delete image " + imageFile.getFileName() + ": " + e.getMessage());
+    private Map<String, Object> toJobResponse(RenderJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("status", job.getStatus());
+        response.put("category", job.getRequest().getCategory());
+        response.put("folder", job.getRequest().getFolder());
+        response.put("createdAt", job.getCreatedAt());
+        response.put("startedAt", job.getStartedAt());
+        response.put("finishedAt", job.getFinishedAt());
+        response.put("statusUrl", "/api/video/jobs/" + job.getId());
+        response.put("resultUrl", "/api/video/jobs/" + job.getId() + "/result");
+        response.put("eventsUrl", "/api/video/jobs/" + job.getId() + "/events");
+        if (job.getRequest().getMode() == RenderMode.HLS) {
+            response.put("playlistUrl", "/api/video/jobs/" + job.getId() + "/hls/" + VideoRenderService.HLS_PLAYLIST);
+        }
+        response.put("progress", job.getProgress().toMap());
+        if (job.getResult() != null) {
+            response.put("outputPath", job.getResult().get("outputPath"));
+        }
+        if (job.getError() != null) {
+            response.put("error", job.getError());
+        }
+        if (job.getPreviewStatus() != null) {
+            Map<String, Object> preview = new HashMap<>();
+            preview.put("status", job.getPreviewStatus());
+            preview.put("previewUrl", "/api/video/jobs/" + job.getId() + "/preview");
+            if (job.getPreviewResult() != null) {
+                preview.put("outputPath", job.getPreviewResult().get("outputPath"));
+            }
+            if (job.getPreviewError() != null) {
+                preview.put("error", job.getPreviewError());
             }
+            response.put("preview", preview);
         }
+        return response;
     }
 }
@@ -0,0 +1,19 @@
+package org.khushal.videoservice.exception;
+
+/**
+ * Thrown when the render scheduler cannot accept more work.
+ * Carries a Retry-After hint (in seconds) for the HTTP response.
+ */
+public class RenderQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RenderQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
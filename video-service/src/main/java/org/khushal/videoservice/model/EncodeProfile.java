@@ -0,0 +1,32 @@
+package org.khushal.videoservice.model;
+
+/**
+ * Encoder settings used by the single-pass (mode=full) render
+ */
+public enum EncodeProfile {
+    // General-purpose settings at the input frame rate
+    STANDARD("standard"),
+    // Tuned for still slides: low frame rate, still-image tuning, long GOPs and repeated frames dropped
+    SLIDESHOW("slideshow"),
+    // Draft for checking slide order and audio sync: ultrafast, low bitrate, rendered on the preview budget
+    PREVIEW("preview");
+
+    private final String value;
+
+    EncodeProfile(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static EncodeProfile fromString(String value) {
+        for (EncodeProfile profile : EncodeProfile.values()) {
+            if (profile.value.equalsIgnoreCase(value)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown encode profile: " + value);
+    }
+}
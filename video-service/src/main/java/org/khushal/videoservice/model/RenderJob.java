@@ -0,0 +1,152 @@
+package org.khushal.videoservice.model;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous render job tracked by video-service.
+ * A job is created QUEUED, moves to RUNNING on a render thread and ends COMPLETED or FAILED.
+ */
+public class RenderJob {
+    private final String id;
+    private final RenderRequest request;
+    private final LocalDateTime createdAt;
+    private final RenderProgress progress = new RenderProgress();
+
+    private volatile JobStatus status;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile Map<String, Object> result;
+    private volatile String error;
+
+    // Completed with the job once it is COMPLETED or FAILED
+    private final CompletableFuture<RenderJob> finished = new CompletableFuture<>();
+
+    // Draft preview rendered alongside the full render; null status when no preview was requested
+    private volatile JobStatus previewStatus;
+    private volatile Map<String, Object> previewResult;
+    private volatile String previewError;
+
+    public RenderJob(String id, RenderRequest request) {
+        this.id = id;
+        this.request = request;
+        this.createdAt = LocalDateTime.now();
+        this.status = JobStatus.QUEUED;
+    }
+
+    public void markRunning() {
+        this.startedAt = LocalDateTime.now();
+        this.status = JobStatus.RUNNING;
+    }
+
+    public void markCompleted(Map<String, Object> result) {
+        this.result = result;
+        this.finishedAt = LocalDateTime.now();
+        this.status = JobStatus.COMPLETED;
+        finished.complete(this);
+    }
+
+    /**
+     * Add entries to the result of a completed job, for work that finishes after the render (source cleanup)
+     */
+    public synchronized void updateResult(Map<String, Object> updates) {
+        Map<String, Object> updated = new HashMap<>(result);
+        updated.putAll(updates);
+        this.result = updated;
+    }
+
+    public void markFailed(String error) {
+        this.error = error;
+        this.finishedAt = LocalDateTime.now();
+        this.status = JobStatus.FAILED;
+        finished.complete(this);
+    }
+
+    public void markPreviewQueued() {
+        this.previewStatus = JobStatus.QUEUED;
+    }
+
+    public void markPreviewRunning() {
+        this.previewStatus = JobStatus.RUNNING;
+    }
+
+    public void markPreviewCompleted(Map<String, Object> previewResult) {
+        this.previewResult = previewResult;
+        this.previewStatus = JobStatus.COMPLETED;
+    }
+
+    public void markPreviewFailed(String previewError) {
+        this.previewError = previewError;
+        this.previewStatus = JobStatus.FAILED;
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+
+    /**
+     * Completes once the job is COMPLETED or FAILED
+     */
+    public CompletableFuture<RenderJob> whenFinished() {
+        return finished;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public RenderRequest getRequest() {
+        return request;
+    }
+
+    public RenderProgress getProgress() {
+        return progress;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public Map<String, Object> getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public JobStatus getPreviewStatus() {
+        return previewStatus;
+    }
+
+    public Map<String, Object> getPreviewResult() {
+        return previewResult;
+    }
+
+    public String getPreviewError() {
+        return previewError;
+    }
+
+    // Job lifecycle states
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,34 @@
+package org.khushal.videoservice.model;
+
+/**
+ * How a merge is encoded
+ */
+public enum RenderMode {
+    // Single ffmpeg pass over the concat list of all images
+    FULL("full"),
+    // One cached H.264 segment per slide, joined with a stream-copy concat
+    INCREMENTAL("incremental"),
+    // Time-aligned chunks encoded concurrently, joined with a stream-copy concat
+    PARALLEL("parallel"),
+    // Single pass written progressively as fMP4 HLS segments, playable while the encode runs
+    HLS("hls");
+
+    private final String value;
+
+    RenderMode(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static RenderMode fromString(String value) {
+        for (RenderMode mode : RenderMode.values()) {
+            if (mode.value.equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown render mode: " + value);
+    }
+}
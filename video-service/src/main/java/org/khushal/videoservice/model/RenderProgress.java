@@ -0,0 +1,117 @@
+package org.khushal.videoservice.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Live progress of a render job, fed from ffmpeg's machine-readable "-progress" output
+ * (key=value lines such as frame=, fps=, speed=, out_time_us=, progress=).
+ */
+public class RenderProgress {
+
+    private volatile String stage = "queued";
+    private volatile long stageDurationMillis;
+    private volatile long frame;
+    private volatile double fps;
+    private volatile String speed;
+    private volatile long outTimeMillis;
+    private volatile double percent;
+
+    // Bumped on every change so streamers can skip unchanged snapshots
+    private volatile long version;
+
+    /**
+     * Start a new stage; percent is measured against the stage's expected output duration
+     * @param stageDurationMillis expected media duration produced by the stage, 0 if unknown
+     */
+    public synchronized void startStage(String stage, long stageDurationMillis) {
+        this.stage = stage;
+        this.stageDurationMillis = stageDurationMillis;
+        this.frame = 0;
+        this.fps = 0;
+        this.speed = null;
+        this.outTimeMillis = 0;
+        this.percent = 0;
+        version++;
+    }
+
+    /**
+     * Set progress directly for stages measured in work units rather than media time
+     */
+    public synchronized void setPercent(double percent) {
+        this.percent = Math.min(100.0, percent);
+        version++;
+    }
+
+    /**
+     * Consume one ffmpeg output line
+     * @return true if the line was a progress key=value pair
+     */
+    public synchronized boolean accept(String line) {
+        int separator = line.indexOf('=');
+        if (separator <= 0) {
+            return false;
+        }
+        String key = line.substring(0, separator).trim();
+        String value = line.substring(separator + 1).trim();
+
+        try {
+            switch (key) {
+                case "frame":
+                    frame = Long.parseLong(value);
+                    break;
+                case "fps":
+                    fps = Double.parseDouble(value);
+                    break;
+                case "speed":
+                    speed = value;
+                    break;
+                case "out_time_us":
+                    if (!"N/A".equals(value)) {
+                        outTimeMillis = Long.parseLong(value) / 1000;
+                        if (stageDurationMillis > 0) {
+                            percent = Math.min(100.0, outTimeMillis * 100.0 / stageDurationMillis);
+                        }
+                    }
+                    break;
+                case "progress":
+                    if ("end".equals(value)) {
+                        percent = 100.0;
+                    }
+                    version++;
+                    break;
+                case "out_time_ms":
+                case "out_time":
+                case "bitrate":
+                case "total_size":
+                case "dup_frames":
+                case "drop_frames":
+                    break;
+                default:
+                    // Per-stream keys (stream_0_0_q=...) are progress output too; anything else is a log line
+                    return key.startsWith("stream_");
+            }
+        } catch (NumberFormatException e) {
+            // Keep the previous value when ffmpeg prints N/A or similar
+        }
+        return true;
+    }
+
+    /**
+     * Snapshot for status responses and the SSE stream
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("stage", stage);
+        snapshot.put("frame", frame);
+        snapshot.put("fps", fps);
+        snapshot.put("speed", speed);
+        snapshot.put("outTimeMillis", outTimeMillis);
+        snapshot.put("percent", percent);
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,127 @@
+package org.khushal.videoservice.model;
+
+/**
+ * Parameters of a single image + audio merge, as accepted by /api/video/merge
+ */
+public class RenderRequest {
+    private String category;
+    private String folder;
+    private String audioPath;
+    private int secondsPerImage;
+    private int height;
+    private String outputDir;
+    private boolean cleanupImages;
+    private boolean cleanupAudio;
+    private RenderMode mode = RenderMode.FULL;
+    private EncodeProfile profile = EncodeProfile.STANDARD;
+    // Output base name; generated per render when null
+    private String outputName;
+
+    // Constructors
+    public RenderRequest() {}
+
+    public RenderRequest(String category, String folder, String audioPath,
+                         int secondsPerImage, int height, String outputDir,
+                         boolean cleanupImages, boolean cleanupAudio, RenderMode mode,
+                         EncodeProfile profile) {
+        this.category = category;
+        this.folder = folder;
+        this.audioPath = audioPath;
+        this.secondsPerImage = secondsPerImage;
+        this.height = height;
+        this.outputDir = outputDir;
+        this.cleanupImages = cleanupImages;
+        this.cleanupAudio = cleanupAudio;
+        this.mode = mode;
+        this.profile = profile;
+    }
+
+    // Getters and Setters
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getFolder() {
+        return folder;
+    }
+
+    public void setFolder(String folder) {
+        this.folder = folder;
+    }
+
+    public String getAudioPath() {
+        return audioPath;
+    }
+
+    public void setAudioPath(String audioPath) {
+        this.audioPath = audioPath;
+    }
+
+    public int getSecondsPerImage() {
+        return secondsPerImage;
+    }
+
+    public void setSecondsPerImage(int secondsPerImage) {
+        this.secondsPerImage = secondsPerImage;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public String getOutputDir() {
+        return outputDir;
+    }
+
+    public void setOutputDir(String outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    public boolean isCleanupImages() {
+        return cleanupImages;
+    }
+
+    public void setCleanupImages(boolean cleanupImages) {
+        this.cleanupImages = cleanupImages;
+    }
+
+    public boolean isCleanupAudio() {
+        return cleanupAudio;
+    }
+
+    public void setCleanupAudio(boolean cleanupAudio) {
+        this.cleanupAudio = cleanupAudio;
+    }
+
+    public RenderMode getMode() {
+        return mode;
+    }
+
+    public void setMode(RenderMode mode) {
+        this.mode = mode;
+    }
+
+    public EncodeProfile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(EncodeProfile profile) {
+        this.profile = profile;
+    }
+
+    public String getOutputName() {
+        return outputName;
+    }
+
+    public void setOutputName(String outputName) {
+        this.outputName = outputName;
+    }
+}
@@ -0,0 +1,245 @@
+package org.khushal.videoservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.khushal.videoservice.model.RenderProgress;
+import org.khushal.videoservice.model.RenderRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Parallel render mode for long slideshows.
+ * The ordered image list is split into time-aligned chunks (chunk boundaries fall on slide boundaries),
+ * the chunks are encoded concurrently on a fork-join pool, and the results are joined losslessly with a
+ * stream-copy concat that also muxes the audio once.
+ */
+@Service
+public class ChunkedRenderService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedRenderService.class);
+
+    private final RenderScheduler renderScheduler;
+    private final SegmentRenderService segmentRenderService;
+    private final ForkJoinPool chunkPool;
+
+    // Upper bound on chunks per render (0 = limited only by free scheduler slots)
+    @Value("${video.parallel.max-chunks:0}")
+    private int maxChunks;
+
+    // Don't split below this many slides per chunk; tiny chunks cost more in process start-up than they save
+    @Value("${video.parallel.min-images-per-chunk:10}")
+    private int minImagesPerChunk;
+
+    @Autowired
+    public ChunkedRenderService(RenderScheduler renderScheduler, SegmentRenderService segmentRenderService) {
+        this.renderScheduler = renderScheduler;
+        this.segmentRenderService = segmentRenderService;
+        // Chunk tasks block on ffmpeg, so the pool only needs as many workers as processes may run
+        this.chunkPool = new ForkJoinPool(renderScheduler.getMaxConcurrent());
+    }
+
+    /**
+     * Encode the slideshow in parallel chunks and join them
+     * @return chunk counters for the render response
+     */
+    public Map<String, Object> render(RenderRequest request, List<Path> imageFiles, Path audioFile,
+                                      Path outputVideoPath, RenderProgress progress)
+            throws IOException, InterruptedException {
+        int chunkCount = chunkCount(imageFiles.size());
+        List<List<Path>> chunks = split(imageFiles, chunkCount);
+
+        // Give each encoder its share of the cores instead of letting every libx264 claim all of them
+        int threadsPerChunk = Math.max(1, Runtime.getRuntime().availableProcessors() / chunks.size());
+
+        Path workDir = Files.createTempDirectory(outputVideoPath.toAbsolutePath().getParent(), "chunks_");
+        try {
+            List<Path> chunkFiles = new ArrayList<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                chunkFiles.add(workDir.resolve(String.format("chunk_%04d.mp4", i)));
+            }
+
+            // Chunks run concurrently, so progress counts finished chunks
+            progress.startStage("encoding chunks", 0);
+            AtomicInteger chunksDone = new AtomicInteger();
+            Runnable onChunkDone = () -> progress.setPercent(chunksDone.incrementAndGet() * 100.0 / chunks.size());
+
+            long encodeStart = System.currentTimeMillis();
+            ChunkEncodeTask task = new ChunkEncodeTask(chunks, chunkFiles, workDir, request, threadsPerChunk,
+                    onChunkDone, 0, chunks.size());
+            chunkPool.invoke(task);
+            if (task.failure instanceof IOException e) {
+                throw e;
+            } else if (task.failure instanceof RuntimeException e) {
+                throw e;
+            } else if (task.failure != null) {
+                throw new RuntimeException("Chunk encode failed: " + task.failure.getMessage(), task.failure);
+            }
+            long encodeMillis = System.currentTimeMillis() - encodeStart;
+
+            progress.startStage("joining", imageFiles.size() * request.getSecondsPerImage() * 1000L);
+            segmentRenderService.concatWithAudio(chunkFiles, audioFile, outputVideoPath, progress);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("chunkCount", chunks.size());
+            result.put("threadsPerChunk", threadsPerChunk);
+            result.put("chunkEncodeMillis", encodeMillis);
+            return result;
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Chunks = free scheduler slots right now, capped by slide count and configuration
+     */
+    private int chunkCount(int imageCount) {
+        int freeSlots = Math.max(1, renderScheduler.getMaxConcurrent() - renderScheduler.getRunningProcesses());
+        int bySize = Math.max(1, imageCount / Math.max(1, minImagesPerChunk));
+        int count = Math.min(freeSlots, bySize);
+        if (maxChunks > 0) {
+            count = Math.min(count, maxChunks);
+        }
+        return Math.max(1, count);
+    }
+
+    /**
+     * Split into contiguous chunks whose sizes differ by at most one slide
+     */
+    private List<List<Path>> split(List<Path> imageFiles, int chunkCount) {
+        List<List<Path>> chunks = new ArrayList<>(chunkCount);
+        int base = imageFiles.size() / chunkCount;
+        int remainder = imageFiles.size() % chunkCount;
+        int from = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            int to = from + base + (i < remainder ? 1 : 0);
+            chunks.add(imageFiles.subList(from, to));
+            from = to;
+        }
+        return chunks;
+    }
+
+    /**
+     * Encode one chunk with the same stream layout as incremental segments so chunks join with -c copy
+     */
+    private void encodeChunk(List<Path> chunk, Path chunkFile, Path workDir, RenderRequest request,
+                             int threads) throws IOException, InterruptedException {
+        int fps = segmentRenderService.getSegmentFps();
+        int secondsPerImage = request.getSecondsPerImage();
+        int totalFrames = fps * secondsPerImage * chunk.size();
+
+        Path listPath = Files.createTempFile(workDir, "list_", ".txt");
+        StringBuilder content = new StringBuilder();
+        for (Path imageFile : chunk) {
+            content.append("file '").append(imageFile.toAbsolutePath().toString().replace("\\", "/")).append("'\n");
+            content.append("duration ").append(secondsPerImage).append("\n");
+        }
+        // Repeat the last image without duration so the concat demuxer honours the final duration
+        Path lastImage = chunk.get(chunk.size() - 1);
+        content.append("file '").append(lastImage.toAbsolutePath().toString().replace("\\", "/")).append("'\n");
+        Files.writeString(listPath, content.toString(), StandardCharsets.UTF_8);
+
+        ProcessBuilder pb = new ProcessBuilder(
+            "ffmpeg",
+            "-hide_banner",
+            "-y",
+            "-f", "concat",
+            "-safe", "0",
+            "-i", listPath.toString(),
+            "-vf", segmentRenderService.videoFilter(request.getHeight()),
+            "-r", String.valueOf(fps),
+            "-frames:v", String.valueOf(totalFrames), // Exact length keeps chunk boundaries on the slide grid
+            "-c:v", "libx264",
+            "-preset", "veryfast",
+            "-crf", "20",
+            "-threads", String.valueOf(threads),
+            "-video_track_timescale", segmentRenderService.getSegmentTimescale(),
+            "-an",
+            chunkFile.toString()
+        );
+
+        int exitCode = renderScheduler.runProcess(pb, line -> log.debug("[FFmpeg chunk] {}", line));
+        if (exitCode != 0) {
+            throw new RuntimeException("FFmpeg failed to encode chunk " + chunkFile.getFileName());
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete " + path + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Failed to clean up chunk directory " + dir + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        chunkPool.shutdownNow();
+    }
+
+    /**
+     * Fork-join task over a range of chunk indexes: splits until one chunk remains, then encodes it
+     */
+    private class ChunkEncodeTask extends RecursiveAction {
+        private final List<List<Path>> chunks;
+        private final List<Path> chunkFiles;
+        private final Path workDir;
+        private final RenderRequest request;
+        private final int threads;
+        private final Runnable onChunkDone;
+        private final int from;
+        private final int to;
+
+        // First failure in this subtree, rethrown by the caller
+        private volatile Exception failure;
+
+        ChunkEncodeTask(List<List<Path>> chunks, List<Path> chunkFiles, Path workDir, RenderRequest request,
+                        int threads, Runnable onChunkDone, int from, int to) {
+            this.chunks = chunks;
+            this.chunkFiles = chunkFiles;
+            this.workDir = workDir;
+            this.request = request;
+            this.threads = threads;
+            this.onChunkDone = onChunkDone;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    encodeChunk(chunks.get(from), chunkFiles.get(from), workDir, request, threads);
+                    onChunkDone.run();
+                } catch (Exception e) {
+                    failure = e;
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            ChunkEncodeTask left = new ChunkEncodeTask(chunks, chunkFiles, workDir, request, threads, onChunkDone,
+                    from, mid);
+            ChunkEncodeTask right = new ChunkEncodeTask(chunks, chunkFiles, workDir, request, threads, onChunkDone,
+                    mid, to);
+            invokeAll(left, right);
+            failure = left.failure != null ? left.failure : right.failure;
+        }
+    }
+}
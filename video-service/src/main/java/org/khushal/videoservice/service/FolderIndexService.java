@@ -0,0 +1,260 @@
+package org.khushal.videoservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * In-memory index of the numbered images (001.jpg, 002.png, ...) in each render source folder, in slide order:
+ * the folder's manifest (written by catalog-service when slides are reordered) first, then unlisted images by
+ * sequence number. Uploads land through catalog-service, so a WatchService keeps the index current; a folder
+ * is rescanned when the watcher overflows or cannot watch it, and after a configurable interval.
+ */
+@Service
+public class FolderIndexService {
+
+    // Pattern to match numbered image files (001.jpg, ..., 999.jpg, 1000.jpg, etc.)
+    private static final Pattern NUMBERED_IMAGE_PATTERN = Pattern.compile("^(\\d{3,9})\\.(jpg|jpeg|png|gif|webp|bmp)$", Pattern.CASE_INSENSITIVE);
+
+    // Slide order override written by catalog-service, one image name per line
+    private static final String MANIFEST_FILE = ".manifest";
+
+    // Numeric sequence first; names only break ties (001.jpg next to 001.png)
+    private static final Comparator<String> SEQUENCE_ORDER = Comparator
+            .comparingInt((String name) -> Integer.parseInt(name.substring(0, name.indexOf('.'))))
+            .thenComparing(Comparator.naturalOrder());
+
+    private final Map<Path, FolderEntry> folders = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedFolders = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    // Full rescan interval per folder, as a fallback for events the watcher may have missed
+    @Value("${video.index.rescan-minutes:10}")
+    private long rescanMinutes;
+
+    @PostConstruct
+    public void init() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Folder watching unavailable, image index falls back to rescans: " + e.getMessage());
+            return;
+        }
+        watchThread = new Thread(this::watchLoop, "folder-index-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Numbered image file names in the folder in slide order
+     */
+    public List<String> listNumberedImages(Path folder) throws IOException {
+        Path key = folder.toAbsolutePath().normalize();
+        FolderEntry entry = folders.get(key);
+        if (entry == null || entry.needsRescan(rescanMinutes)) {
+            entry = folders.computeIfAbsent(key, k -> new FolderEntry());
+            synchronized (entry) {
+                if (entry.needsRescan(rescanMinutes)) {
+                    // Watch before scanning so nothing written during the scan is missed
+                    entry.watched = entry.watched || watch(key);
+                    scan(key, entry);
+                }
+            }
+        }
+        synchronized (entry) {
+            return new ArrayList<>(entry.orderedImages());
+        }
+    }
+
+    /**
+     * Record images deleted by this service, without waiting for the watcher
+     */
+    public void removeFiles(List<Path> files) {
+        for (Path file : files) {
+            FolderEntry entry = folders.get(file.toAbsolutePath().normalize().getParent());
+            if (entry != null) {
+                synchronized (entry) {
+                    entry.remove(file.getFileName().toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rescan the folder on its next listing, for files this service wrote that the watcher may not have
+     * reported yet
+     */
+    public void invalidate(Path folder) {
+        FolderEntry entry = folders.get(folder.toAbsolutePath().normalize());
+        if (entry != null) {
+            entry.stale = true;
+        }
+    }
+
+    /**
+     * Whether a file name is one the index lists as a slide
+     */
+    public static boolean isNumberedImage(String fileName) {
+        return NUMBERED_IMAGE_PATTERN.matcher(fileName).matches();
+    }
+
+    private boolean watch(Path folder) {
+        if (watchService == null) {
+            return false;
+        }
+        try {
+            watchedFolders.put(folder.register(watchService, ENTRY_CREATE, ENTRY_DELETE), folder);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Cannot watch " + folder + ", relying on rescans: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void scan(Path folder, FolderEntry entry) throws IOException {
+        entry.images.clear();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                if (NUMBERED_IMAGE_PATTERN.matcher(fileName).matches() && Files.isRegularFile(file)) {
+                    entry.images.add(fileName);
+                }
+            }
+            entry.setManifest(readManifest(folder));
+        } catch (IOException e) {
+            // Leave the entry stale so the next call retries
+            folders.remove(folder);
+            throw e;
+        }
+        entry.scannedAt = System.currentTimeMillis();
+        entry.stale = false;
+    }
+
+    private List<String> readManifest(Path folder) throws IOException {
+        Path manifest = folder.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest)) {
+            if (!line.isBlank()) {
+                names.add(line.trim());
+            }
+        }
+        return names;
+    }
+
+    private void watchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey watchKey;
+            try {
+                watchKey = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Path folder = watchedFolders.get(watchKey);
+            FolderEntry entry = folder == null ? null : folders.get(folder);
+            List<WatchEvent<?>> events = watchKey.pollEvents();
+            if (entry != null) {
+                synchronized (entry) {
+                    for (WatchEvent<?> event : events) {
+                        if (event.kind() == OVERFLOW) {
+                            entry.stale = true;
+                            continue;
+                        }
+                        String fileName = ((Path) event.context()).getFileName().toString();
+                        if (fileName.equals(MANIFEST_FILE)) {
+                            try {
+                                entry.setManifest(readManifest(folder));
+                            } catch (IOException e) {
+                                entry.stale = true;
+                            }
+                        } else if (!NUMBERED_IMAGE_PATTERN.matcher(fileName).matches()) {
+                            continue;
+                        } else if (event.kind() == ENTRY_DELETE) {
+                            entry.remove(fileName);
+                        } else if (Files.isRegularFile(folder.resolve(fileName)) && entry.images.add(fileName)) {
+                            entry.ordered = null;
+                        }
+                    }
+                }
+            }
+
+            if (!watchKey.reset()) {
+                // Folder deleted or unmounted; the next call rescans it
+                watchedFolders.remove(watchKey);
+                if (folder != null) {
+                    folders.remove(folder);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+
+    /**
+     * Indexed images of one folder; guarded by its own monitor
+     */
+    private static class FolderEntry {
+        private final TreeSet<String> images = new TreeSet<>(SEQUENCE_ORDER);
+        private List<String> manifest = List.of();
+        // Slide order, rebuilt on the first read after an image or manifest change
+        private List<String> ordered;
+        private volatile long scannedAt;
+        private volatile boolean stale = true;
+        private boolean watched;
+
+        boolean needsRescan(long rescanMinutes) {
+            return stale || System.currentTimeMillis() - scannedAt > TimeUnit.MINUTES.toMillis(rescanMinutes);
+        }
+
+        void remove(String fileName) {
+            if (images.remove(fileName)) {
+                ordered = null;
+            }
+        }
+
+        void setManifest(List<String> names) {
+            manifest = names;
+            ordered = null;
+        }
+
+        /**
+         * Manifest entries that still exist, then the remaining images by sequence number
+         */
+        List<String> orderedImages() {
+            if (ordered == null) {
+                LinkedHashSet<String> result = new LinkedHashSet<>(images.size());
+                for (String name : manifest) {
+                    if (NUMBERED_IMAGE_PATTERN.matcher(name).matches() && images.contains(name)) {
+                        result.add(name);
+                    }
+                }
+                result.addAll(images);
+                ordered = new ArrayList<>(result);
+            }
+            return ordered;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package org.khushal.videoservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot tier in front of storage-service: the source folders (and audio files) this node pulled for renders are
+ * kept on local disk up to a size bound and evicted least-recently-used, so a render node with a small, fast
+ * disk can work through a catalogue kept in S3. Folders are pinned while a render reads them and are
+ * prefetched when a render is queued, so the download overlaps the wait for a render slot.
+ * Only used with video.storage.enabled; a max size of 0 keeps everything that was pulled.
+ */
+@Service
+public class MediaCacheService {
+
+    private static final Path IMAGES_ROOT = Paths.get("public", "images");
+    private static final String MANIFEST_FILE = ".manifest";
+
+    private final StorageService storageService;
+
+    private final FolderIndexService folderIndexService;
+
+    @Value("${video.storage.cache.max-size-mb:0}")
+    private long maxSizeMb;
+
+    @Value("${video.storage.cache.prefetch-queue-capacity:16}")
+    private int prefetchQueueCapacity;
+
+    // folder or file -> bytes on disk, in access order (eldest = least recently used)
+    private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // folder or file -> renders and prefetches currently using it; pinned entries are never evicted
+    private final Map<Path, Integer> pins = new HashMap<>();
+
+    private ThreadPoolExecutor prefetchExecutor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong fetchedFiles = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+    private final AtomicLong prefetches = new AtomicLong();
+    private final AtomicLong prefetchesSkipped = new AtomicLong();
+    private final AtomicLong prefetchFailures = new AtomicLong();
+
+    @Autowired
+    public MediaCacheService(StorageService storageService, FolderIndexService folderIndexService) {
+        this.storageService = storageService;
+        this.folderIndexService = folderIndexService;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        prefetchExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, prefetchQueueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        if (storageService.isEnabled() && maxSizeMb > 0) {
+            adoptExistingFolders();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Bring a render's folder and audio file up to date and pin them until {@link #release(List)}.
+     * A folder that needed no download counts as a hit, anything fetched as a miss.
+     * @return the pinned paths, to pass to release (empty when storage-service is not used)
+     */
+    public List<Path> acquire(Path folder, Path audioFile) throws IOException {
+        if (!storageService.isEnabled()) {
+            return List.of();
+        }
+        List<Path> pinned = new ArrayList<>();
+        try {
+            Path folderKey = pin(folder);
+            pinned.add(folderKey);
+            int downloaded = storageService.pullFolder(folder);
+            record(downloaded);
+            touch(folderKey);
+
+            // Audio inside the folder came with it
+            Path audioKey = audioFile.normalize();
+            if (!audioKey.startsWith(folderKey)) {
+                pinned.add(pin(audioKey));
+                if (Files.isRegularFile(audioKey)) {
+                    record(0);
+                } else {
+                    record(storageService.pull(audioKey) ? 1 : 0);
+                }
+                touch(audioKey);
+            }
+            return pinned;
+        } catch (IOException | RuntimeException e) {
+            release(pinned);
+            throw e;
+        }
+    }
+
+    /**
+     * Unpin what {@link #acquire} pinned. Sizes are measured again, since a render may have cleaned up its
+     * sources, and entries over the size bound are evicted now that they may be free.
+     */
+    public void release(List<Path> pinned) {
+        if (pinned.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (Path key : pinned) {
+                pins.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+        for (Path key : pinned) {
+            touch(key);
+        }
+    }
+
+    /**
+     * Pull a queued render's folder and audio in the background, ahead of its render slot.
+     * A prefetch queue that is full skips the prefetch; the render then pulls on its own.
+     */
+    public void prefetch(Path folder, Path audioFile) {
+        if (!storageService.isEnabled()) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(() -> runPrefetch(folder, audioFile));
+        } catch (RejectedExecutionException e) {
+            prefetchesSkipped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Hit ratio, evictions and current size of the local tier
+     */
+    public synchronized Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", storageService.isEnabled());
+        stats.put("entries", entries.size());
+        stats.put("pinnedEntries", pins.size());
+        stats.put("totalBytes", totalBytes);
+        stats.put("maxBytes", maxSizeMb * 1024 * 1024);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("fetchedFiles", fetchedFiles.get());
+        stats.put("evictions", evictions.get());
+        stats.put("evictedBytes", evictedBytes.get());
+        stats.put("prefetches", prefetches.get());
+        stats.put("prefetchesSkipped", prefetchesSkipped.get());
+        stats.put("prefetchFailures", prefetchFailures.get());
+        stats.put("prefetchQueued", prefetchExecutor.getQueue().size());
+        return stats;
+    }
+
+    private void runPrefetch(Path folder, Path audioFile) {
+        List<Path> pinned = new ArrayList<>();
+        try {
+            Path folderKey = pin(folder);
+            pinned.add(folderKey);
+            fetchedFiles.addAndGet(storageService.pullFolder(folder));
+            Path audioKey = audioFile.normalize();
+            if (!audioKey.startsWith(folderKey) && !Files.isRegularFile(audioKey)) {
+                pinned.add(pin(audioKey));
+                if (storageService.pull(audioKey)) {
+                    fetchedFiles.incrementAndGet();
+                }
+            }
+            prefetches.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            prefetchFailures.incrementAndGet();
+            System.err.println("Failed to prefetch " + folder + ": " + e.getMessage());
+        } finally {
+            release(pinned);
+        }
+    }
+
+    private void record(int downloaded) {
+        if (downloaded == 0) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            fetchedFiles.addAndGet(downloaded);
+        }
+    }
+
+    private synchronized Path pin(Path path) {
+        Path key = path.normalize();
+        pins.merge(key, 1, Integer::sum);
+        return key;
+    }
+
+    /**
+     * Mark an entry most recently used with its current size (dropping it if it is gone), then evict
+     */
+    private void touch(Path key) {
+        long size;
+        try {
+            size = measure(key);
+        } catch (IOException e) {
+            System.err.println("Failed to measure cached media " + key + ": " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            Long previous = size > 0 ? entries.put(key, size) : entries.remove(key);
+            totalBytes += size - (previous == null ? 0 : previous);
+            evictOverLimit();
+        }
+    }
+
+    /**
+     * Remove least-recently-used entries that no render is using until the tier fits its bound
+     */
+    private void evictOverLimit() {
+        if (maxSizeMb <= 0) {
+            return;
+        }
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<Path, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Path, Long> eldest = iterator.next();
+            if (pins.containsKey(eldest.getKey())) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            evictions.incrementAndGet();
+            evictedBytes.addAndGet(eldest.getValue());
+            try {
+                delete(eldest.getKey());
+            } catch (IOException e) {
+                System.err.println("Failed to evict cached media " + eldest.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Delete the files a pull brings (everything but staging and temporary files) and the folder once empty;
+     * storage-service keeps the only copy that matters
+     */
+    private void delete(Path key) throws IOException {
+        if (!Files.isDirectory(key)) {
+            Files.deleteIfExists(key);
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(key, this::isPulled)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        folderIndexService.invalidate(key);
+        try {
+            Files.deleteIfExists(key);
+        } catch (DirectoryNotEmptyException e) {
+            // Other files of this node stay
+        }
+    }
+
+    /**
+     * Bytes a folder's pulled files (or a single file) take up; 0 if missing
+     */
+    private long measure(Path key) throws IOException {
+        if (!Files.isDirectory(key)) {
+            return Files.isRegularFile(key) ? Files.size(key) : 0;
+        }
+        long size = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(key, this::isPulled)) {
+            for (Path file : files) {
+                size += Files.readAttributes(file, BasicFileAttributes.class).size();
+            }
+        }
+        return size;
+    }
+
+    private boolean isPulled(Path file) {
+        String name = file.getFileName().toString();
+        return Files.isRegularFile(file) && (!name.startsWith(".") || name.equals(MANIFEST_FILE));
+    }
+
+    /**
+     * Track folders left on disk by an earlier run, least recently modified first, so the bound holds
+     * across restarts
+     */
+    private void adoptExistingFolders() throws IOException {
+        if (!Files.isDirectory(IMAGES_ROOT)) {
+            return;
+        }
+        List<Path> folders = new ArrayList<>();
+        try (DirectoryStream<Path> categories = Files.newDirectoryStream(IMAGES_ROOT, Files::isDirectory)) {
+            for (Path category : categories) {
+                try (DirectoryStream<Path> categoryFolders = Files.newDirectoryStream(category, Files::isDirectory)) {
+                    categoryFolders.forEach(folders::add);
+                }
+            }
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path folder : folders) {
+            modified.put(folder, Files.getLastModifiedTime(folder).toMillis());
+        }
+        folders.sort(Comparator.comparing(modified::get));
+
+        synchronized (this) {
+            for (Path folder : folders) {
+                long size = measure(folder.normalize());
+                if (size > 0) {
+                    entries.put(folder.normalize(), size);
+                    totalBytes += size;
+                }
+            }
+            evictOverLimit();
+        }
+        System.out.println("Media cache: " + entries.size() + " folders, " + totalBytes + " bytes on disk");
+    }
+}
@@ -0,0 +1,100 @@
+package org.khushal.videoservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lookup of the render-ready image variants written by media-worker.
+ * A variant is the slide already fitted into the 16:9 frame for one render height, stored as
+ * {dir}/{category}/{folder}/{height}/{NNN}.jpg, next to a {NNN}.jpg.source stamp naming the source it was
+ * made from. Renders use the variants only when every slide has one whose stamp matches the current source
+ * (name, size, mtime and inode), otherwise they read the original uploads as before.
+ */
+@Service
+public class NormalizedImageService {
+
+    // Sidecar of a variant naming its source; written by media-worker's ImageNormalizeService
+    private static final String STAMP_SUFFIX = ".source";
+
+    @Value("${video.normalized.enabled:true}")
+    private boolean enabled;
+
+    @Value("${video.normalized.dir:cache/normalized}")
+    private String normalizedDir;
+
+    /**
+     * Replace the ordered source images with their variants for the height, if all are available
+     * @return variants in the same order, or the source list unchanged
+     */
+    public List<Path> resolve(String category, String folder, int height, List<Path> imageFiles) throws IOException {
+        if (!enabled) {
+            return imageFiles;
+        }
+        List<Path> variants = new ArrayList<>(imageFiles.size());
+        for (Path imageFile : imageFiles) {
+            Path variant = variantPath(category, folder, height, imageFile);
+            if (!Files.isRegularFile(variant) || !matchesSource(variant, imageFile)) {
+                return imageFiles;
+            }
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    /**
+     * Delete every variant of the given source images (used when a render cleans up its sources)
+     */
+    public void deleteVariants(String category, String folder, List<Path> imageFiles) {
+        Path folderDir = Paths.get(normalizedDir, category, folder);
+        if (!Files.isDirectory(folderDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> heights = Files.newDirectoryStream(folderDir)) {
+            for (Path heightDir : heights) {
+                for (Path imageFile : imageFiles) {
+                    Path variant = heightDir.resolve(baseName(imageFile) + ".jpg");
+                    Files.deleteIfExists(stampPath(variant));
+                    Files.deleteIfExists(variant);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to delete normalised images in " + folderDir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the variant was made from the file now at the source path. A modification time comparison is
+     * not enough: a replacement hard-linked from the blob store keeps the older mtime of the stored copy.
+     */
+    private boolean matchesSource(Path variant, Path imageFile) throws IOException {
+        Path stamp = stampPath(variant);
+        if (!Files.isRegularFile(stamp)) {
+            return false;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(imageFile, BasicFileAttributes.class);
+        Object fileKey = attributes.fileKey();
+        String expected = imageFile.getFileName() + "\t" + attributes.size() + "\t"
+                + attributes.lastModifiedTime().toMillis() + "\t" + (fileKey == null ? "-" : fileKey);
+        return Files.readString(stamp, StandardCharsets.UTF_8).equals(expected);
+    }
+
+    private Path stampPath(Path variant) {
+        return variant.resolveSibling(variant.getFileName() + STAMP_SUFFIX);
+    }
+
+    private Path variantPath(String category, String folder, int height, Path imageFile) {
+        return Paths.get(normalizedDir, category, folder, String.valueOf(height), baseName(imageFile) + ".jpg");
+    }
+
+    private String baseName(Path imageFile) {
+        String name = imageFile.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+}
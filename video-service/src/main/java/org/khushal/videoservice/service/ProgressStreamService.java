@@ -0,0 +1,122 @@
+package org.khushal.videoservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.khushal.videoservice.model.RenderJob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Server-Sent Events for render job progress.
+ * One scheduler thread samples every subscribed job at a fixed interval and sends an event only when the
+ * job's progress or status changed, so a fast ffmpeg progress feed never floods slow clients.
+ */
+@Service
+public class ProgressStreamService {
+
+    private final Map<SseEmitter, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+
+    @Value("${video.progress.stream-timeout-minutes:60}")
+    private long streamTimeoutMinutes;
+
+    public ProgressStreamService(@Value("${video.progress.interval-millis:500}") long intervalMillis) {
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Open a stream for a job. Sends the current snapshot immediately, "progress" events on change
+     * and a final "complete" event once the job has finished.
+     * @param payload builds the event body from the job
+     */
+    public SseEmitter subscribe(RenderJob job, Function<RenderJob, Map<String, Object>> payload) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(streamTimeoutMinutes));
+        Subscription subscription = new Subscription(job, payload);
+
+        emitter.onCompletion(() -> subscriptions.remove(emitter));
+        emitter.onTimeout(() -> subscriptions.remove(emitter));
+        emitter.onError(e -> subscriptions.remove(emitter));
+
+        subscriptions.put(emitter, subscription);
+        // Sample once up front so the client does not wait a full interval for the first event
+        ticker.execute(() -> send(emitter, subscription));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private void tick() {
+        try {
+            subscriptions.forEach(this::send);
+        } catch (RuntimeException e) {
+            // An exception would cancel the fixed-rate schedule for every subscriber
+            System.err.println("Progress stream tick failed: " + e.getMessage());
+        }
+    }
+
+    private void send(SseEmitter emitter, Subscription subscription) {
+        if (!subscriptions.containsKey(emitter)) {
+            return;
+        }
+        RenderJob job = subscription.job;
+        long version = job.getProgress().getVersion();
+        RenderJob.JobStatus status = job.getStatus();
+        RenderJob.JobStatus previewStatus = job.getPreviewStatus();
+        if (version == subscription.lastVersion && status == subscription.lastStatus
+                && previewStatus == subscription.lastPreviewStatus) {
+            return;
+        }
+        subscription.lastVersion = version;
+        subscription.lastStatus = status;
+        subscription.lastPreviewStatus = previewStatus;
+
+        try {
+            if (job.isFinished()) {
+                subscriptions.remove(emitter);
+                emitter.send(SseEmitter.event().name("complete").data(subscription.payload.apply(job)));
+                emitter.complete();
+            } else {
+                emitter.send(SseEmitter.event().name("progress").data(subscription.payload.apply(job)));
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; drop the subscription
+            subscriptions.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        subscriptions.keySet().forEach(SseEmitter::complete);
+        subscriptions.clear();
+    }
+
+    private static class Subscription {
+        private final RenderJob job;
+        private final Function<RenderJob, Map<String, Object>> payload;
+        private long lastVersion = -1;
+        private RenderJob.JobStatus lastStatus;
+        private RenderJob.JobStatus lastPreviewStatus;
+
+        Subscription(RenderJob job, Function<RenderJob, Map<String, Object>> payload) {
+            this.job = job;
+            this.payload = payload;
+        }
+    }
+}
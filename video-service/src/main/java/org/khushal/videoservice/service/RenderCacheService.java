@@ -0,0 +1,238 @@
+package org.khushal.videoservice.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of rendered MP4s.
+ * The key is a SHA-256 over the ordered image contents, the audio content and the encode parameters,
+ * so an identical merge request can reuse an earlier output instead of running ffmpeg again.
+ * Entries are kept in an on-disk index and evicted least-recently-used once the size bound is exceeded.
+ */
+@Service
+public class RenderCacheService {
+
+    private static final String INDEX_FILE = "index.tsv";
+
+    // Upper bound for remembered file hashes before the memo is reset
+    private static final int MAX_HASH_MEMO_ENTRIES = 50_000;
+
+    @Value("${video.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${video.cache.dir:cache/renders}")
+    private String cacheDir;
+
+    @Value("${video.cache.max-size-mb:2048}")
+    private long maxSizeMb;
+
+    // key -> size in bytes, in access order (eldest = least recently used)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // "absolutePath|size|mtime" -> content hash, so unchanged files are not re-read on every request
+    private final Map<String, String> fileHashMemo = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(cacheDir);
+        Files.createDirectories(dir);
+        loadIndex(dir);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Compute the cache key for an ordered image list, an audio file and the encode parameters
+     * @param encodeParams every parameter that changes the encoded output (height, seconds per image, preset...)
+     */
+    public String computeKey(List<Path> imageFiles, Path audioFile, String encodeParams) throws IOException {
+        MessageDigest digest = newDigest();
+        for (Path imageFile : imageFiles) {
+            digest.update(hashFile(imageFile).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        digest.update(("audio:" + hashFile(audioFile) + "\n").getBytes(StandardCharsets.UTF_8));
+        digest.update(("params:" + encodeParams).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Materialise a cached render at the output path if one exists, counting the hit or miss.
+     * Lookup and link happen under the cache lock so a concurrent eviction cannot remove the file in between.
+     * @return true on a cache hit
+     */
+    public synchronized boolean restore(String key, Path outputPath) throws IOException {
+        Path cached = Paths.get(cacheDir).resolve(key + ".mp4");
+        if (entries.get(key) != null && Files.isRegularFile(cached)) {
+            linkOrCopy(cached, outputPath);
+            hits.incrementAndGet();
+            persistIndexQuietly();
+            return true;
+        }
+        // Index and disk disagree (file removed by hand); forget the entry
+        Long staleSize = entries.remove(key);
+        if (staleSize != null) {
+            totalBytes -= staleSize;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Add a freshly rendered file to the cache, then evict least-recently-used entries over the size bound
+     */
+    public synchronized void store(String key, Path renderedFile) throws IOException {
+        Path cached = Paths.get(cacheDir).resolve(key + ".mp4");
+        linkOrCopy(renderedFile, cached);
+
+        long size = Files.size(cached);
+        Long previous = entries.put(key, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+
+        evictOverLimit();
+        persistIndexQuietly();
+    }
+
+    /**
+     * Hit/miss counters and current cache size
+     */
+    public synchronized Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", entries.size());
+        stats.put("totalBytes", totalBytes);
+        stats.put("maxBytes", maxSizeMb * 1024 * 1024);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        return stats;
+    }
+
+    private void evictOverLimit() {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            evictions.incrementAndGet();
+            try {
+                Files.deleteIfExists(Paths.get(cacheDir).resolve(eldest.getKey() + ".mp4"));
+            } catch (IOException e) {
+                System.err.println("Failed to evict cached render " + eldest.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Content hash of a file, memoised by path, size and modification time
+     */
+    public String hashFile(Path file) throws IOException {
+        String memoKey = file.toAbsolutePath() + "|" + Files.size(file) + "|" + Files.getLastModifiedTime(file).toMillis();
+        String cachedHash = fileHashMemo.get(memoKey);
+        if (cachedHash != null) {
+            return cachedHash;
+        }
+
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+
+        if (fileHashMemo.size() >= MAX_HASH_MEMO_ENTRIES) {
+            fileHashMemo.clear();
+        }
+        fileHashMemo.put(memoKey, hash);
+        return hash;
+    }
+
+    /**
+     * Hard link when source and target share a filesystem, otherwise copy
+     */
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Index format: one "key<TAB>size" line per entry, least recently used first
+     */
+    private synchronized void loadIndex(Path dir) throws IOException {
+        Path indexPath = dir.resolve(INDEX_FILE);
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        for (String line : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t");
+            if (parts.length != 2) {
+                continue;
+            }
+            Path cached = dir.resolve(parts[0] + ".mp4");
+            if (Files.isRegularFile(cached)) {
+                long size = Files.size(cached);
+                entries.put(parts[0], size);
+                totalBytes += size;
+            }
+        }
+        evictOverLimit();
+    }
+
+    private void persistIndexQuietly() {
+        Path dir = Paths.get(cacheDir);
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            content.append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+        }
+        try {
+            // Write to a temp file and move it over the index so a crash never leaves it half-written
+            Path tempIndex = dir.resolve(INDEX_FILE + ".tmp");
+            Files.writeString(tempIndex, content.toString(), StandardCharsets.UTF_8);
+            Files.move(tempIndex, dir.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to persist render cache index: " + e.getMessage());
+        }
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
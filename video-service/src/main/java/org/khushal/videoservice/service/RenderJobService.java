@@ -0,0 +1,207 @@
+package org.khushal.videoservice.service;
+
+import org.khushal.videoservice.exception.RenderQueueFullException;
+import org.khushal.videoservice.model.EncodeProfile;
+import org.khushal.videoservice.model.RenderJob;
+import org.khushal.videoservice.model.RenderMode;
+import org.khushal.videoservice.model.RenderProgress;
+import org.khushal.videoservice.model.RenderRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class RenderJobService {
+
+    private final VideoRenderService videoRenderService;
+
+    // Runs jobs on its own bounded pool so ffmpeg never occupies Tomcat request threads
+    private final RenderScheduler renderScheduler;
+
+    private final MediaCacheService mediaCacheService;
+
+    private final Map<String, RenderJob> jobs = new ConcurrentHashMap<>();
+
+    // How long finished jobs stay queryable
+    @Value("${video.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    // Height of preview drafts (never above the requested height)
+    @Value("${video.preview.height:360}")
+    private int previewHeight;
+
+    @Autowired
+    public RenderJobService(VideoRenderService videoRenderService, RenderScheduler renderScheduler,
+                            MediaCacheService mediaCacheService) {
+        this.videoRenderService = videoRenderService;
+        this.renderScheduler = renderScheduler;
+        this.mediaCacheService = mediaCacheService;
+    }
+
+    /**
+     * Queue a render and return its job immediately
+     * @throws RenderQueueFullException if the render queue is full
+     */
+    public RenderJob submit(RenderRequest request) {
+        return submit(request, progress -> videoRenderService.render(request, progress));
+    }
+
+    /**
+     * Queue a render that also produces a low-resolution draft on the preview pool.
+     * The full-quality render continues under the same job; source cleanup waits until the draft is done,
+     * so the result reports cleanup "pending" and is updated to "done" or "failed" once it has run.
+     * A full preview queue only skips the draft, never the render.
+     * @throws RenderQueueFullException if the render queue is full
+     */
+    public RenderJob submitWithPreview(RenderRequest request) {
+        RenderRequest previewRequest = new RenderRequest(request.getCategory(), request.getFolder(),
+                request.getAudioPath(), request.getSecondsPerImage(), Math.min(previewHeight, request.getHeight()),
+                request.getOutputDir(), false, false, RenderMode.FULL, EncodeProfile.PREVIEW);
+        RenderRequest fullRequest = new RenderRequest(request.getCategory(), request.getFolder(),
+                request.getAudioPath(), request.getSecondsPerImage(), request.getHeight(),
+                request.getOutputDir(), false, false, request.getMode(), request.getProfile());
+
+        boolean cleanup = request.isCleanupImages() || request.isCleanupAudio();
+        CompletableFuture<Void> previewDone = new CompletableFuture<>();
+        RenderJob job = submit(request, progress -> {
+            fullRequest.setOutputName(request.getOutputName());
+            Map<String, Object> result = videoRenderService.render(fullRequest, progress);
+            if (cleanup) {
+                result.put("cleanup", "pending");
+            }
+            return result;
+        });
+        if (cleanup) {
+            // The render slot is free as soon as the encode is; cleanup runs when the draft is done with the sources
+            job.whenFinished().thenCombine(previewDone, (finishedJob, ignored) -> finishedJob)
+                    .thenAccept(finishedJob -> {
+                        if (finishedJob.getStatus() == RenderJob.JobStatus.COMPLETED) {
+                            finishedJob.updateResult(cleanupAfterPreview(request));
+                        }
+                    });
+        }
+
+        job.markPreviewQueued();
+        try {
+            renderScheduler.executePreview(() -> runPreview(job, previewRequest, previewDone));
+        } catch (RenderQueueFullException e) {
+            job.markPreviewFailed(e.getMessage());
+            previewDone.complete(null);
+        }
+        return job;
+    }
+
+    /**
+     * Queue a benchmark that renders the request once per mode and profile and reports wall-clock times
+     * @throws RenderQueueFullException if the render queue is full
+     */
+    public RenderJob submitBenchmark(RenderRequest request, List<RenderMode> modes, List<EncodeProfile> profiles) {
+        return submit(request, progress -> videoRenderService.benchmark(request, modes, profiles, progress));
+    }
+
+    private RenderJob submit(RenderRequest request, JobWork work) {
+        purgeExpiredJobs();
+
+        RenderJob job = new RenderJob(UUID.randomUUID().toString(), request);
+        assignStreamLocation(job);
+        jobs.put(job.getId(), job);
+        try {
+            renderScheduler.execute(() -> runJob(job, work));
+        } catch (RenderQueueFullException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        // Start downloading the sources while the job waits for a render slot
+        mediaCacheService.prefetch(videoRenderService.getImagesDir(request.getCategory(), request.getFolder()),
+                Paths.get(request.getAudioPath()));
+        return job;
+    }
+
+    /**
+     * HLS output is read while the job runs, so its location is the job id rather than a name
+     * picked when rendering starts
+     */
+    private void assignStreamLocation(RenderJob job) {
+        if (job.getRequest().getMode() == RenderMode.HLS && job.getRequest().getOutputName() == null) {
+            job.getRequest().setOutputName(job.getId());
+        }
+    }
+
+    /**
+     * Look up a job by id
+     */
+    public Optional<RenderJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * List known jobs, newest first
+     */
+    public List<RenderJob> listJobs() {
+        List<RenderJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(RenderJob::getCreatedAt).reversed());
+        return result;
+    }
+
+    private void runJob(RenderJob job, JobWork work) {
+        job.markRunning();
+        try {
+            job.markCompleted(work.run(job.getProgress()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            job.markFailed("Error generating video: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the sources once the render and the draft are done with them
+     * @return result entries reporting the cleanup
+     */
+    private Map<String, Object> cleanupAfterPreview(RenderRequest request) {
+        Map<String, Object> updates = new HashMap<>();
+        try {
+            videoRenderService.cleanupSources(request, updates);
+            updates.put("cleanup", "done");
+        } catch (Exception e) {
+            System.err.println("Failed to clean up sources of " + request.getCategory() + "/"
+                    + request.getFolder() + ": " + e.getMessage());
+            updates.put("cleanup", "failed");
+            updates.put("cleanupError", e.getMessage());
+        }
+        return updates;
+    }
+
+    private void runPreview(RenderJob job, RenderRequest previewRequest, CompletableFuture<Void> previewDone) {
+        job.markPreviewRunning();
+        try {
+            // Drafts report no live progress; the job's progress belongs to the full render
+            job.markPreviewCompleted(videoRenderService.render(previewRequest, new RenderProgress()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            job.markPreviewFailed("Error generating preview: " + e.getMessage());
+        } finally {
+            previewDone.complete(null);
+        }
+    }
+
+    /**
+     * Drop finished jobs older than the retention window
+     */
+    private void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    /**
+     * Work executed for a job, reporting into the job's progress
+     */
+    private interface JobWork {
+        Map<String, Object> run(RenderProgress progress) throws Exception;
+    }
+}
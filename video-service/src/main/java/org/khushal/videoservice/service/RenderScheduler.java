@@ -0,0 +1,199 @@
+package org.khushal.videoservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.khushal.ffmpeg.ProcessLane;
+import org.khushal.videoservice.exception.RenderQueueFullException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Shared scheduler for render work in video-service.
+ * Render jobs run on a bounded pool with a bounded wait queue, and every ffmpeg process
+ * must take a permit first, so the number of concurrent encoders never exceeds the limit
+ * derived from the core count.
+ * Backpressure applies only when a job is queued: the ffmpeg steps of a job that was accepted
+ * (parallel chunks, incremental segments) wait for a permit however many are queued, so they never fail halfway.
+ * Preview drafts get their own, smaller pool and permits, so they never take a slot from a full render.
+ */
+@Service
+public class RenderScheduler {
+
+    // Retry-After used before any process has finished and we have no timing history
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 30;
+
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor jobExecutor;
+    private final ProcessLane renderLane;
+
+    private final ThreadPoolExecutor previewExecutor;
+    private final ProcessLane previewLane;
+
+    // Job counters
+    private final AtomicLong startedJobs = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong previewRejected = new AtomicLong();
+    private final AtomicLong totalJobWaitMillis = new AtomicLong();
+    private final AtomicLong maxJobWaitMillis = new AtomicLong();
+
+    @Autowired
+    public RenderScheduler(@Value("${video.ffmpeg.max-concurrent:0}") int configuredMaxConcurrent,
+                           @Value("${video.ffmpeg.queue-capacity:16}") int queueCapacity,
+                           @Value("${video.preview.max-concurrent:1}") int previewMaxConcurrent,
+                           @Value("${video.preview.queue-capacity:4}") int previewQueueCapacity) {
+        // libx264 already spreads one encode over several threads, so by default allow one process per two cores
+        this.maxConcurrent = configuredMaxConcurrent > 0
+                ? configuredMaxConcurrent
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.jobExecutor = newExecutor("render-", maxConcurrent, this.queueCapacity);
+        this.renderLane = new ProcessLane(maxConcurrent);
+
+        int previewSlots = Math.max(1, previewMaxConcurrent);
+        int previewCapacity = Math.max(0, previewQueueCapacity);
+        this.previewExecutor = newExecutor("preview-", previewSlots, previewCapacity);
+        this.previewLane = new ProcessLane(previewSlots);
+    }
+
+    private static ThreadPoolExecutor newExecutor(String threadPrefix, int threads, int capacity) {
+        AtomicInteger threadCounter = new AtomicInteger(1);
+        return new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                capacity > 0 ? new ArrayBlockingQueue<>(capacity) : new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadPrefix + threadCounter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue a render job, or reject it when the wait queue is full
+     */
+    public void execute(Runnable job) {
+        long enqueuedAt = System.currentTimeMillis();
+        try {
+            jobExecutor.execute(() -> {
+                recordWait(System.currentTimeMillis() - enqueuedAt, totalJobWaitMillis, maxJobWaitMillis);
+                startedJobs.incrementAndGet();
+                job.run();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new RenderQueueFullException("Render queue is full (" + queueCapacity + " waiting jobs)",
+                    estimateRetryAfterSeconds());
+        }
+    }
+
+    /**
+     * Queue a preview draft on the preview pool, or reject it when the preview queue is full
+     */
+    public void executePreview(Runnable preview) {
+        try {
+            previewExecutor.execute(preview);
+        } catch (RejectedExecutionException e) {
+            previewRejected.incrementAndGet();
+            throw new RenderQueueFullException("Preview queue is full", DEFAULT_RETRY_AFTER_SECONDS);
+        }
+    }
+
+    /**
+     * Run an ffmpeg process once a permit is free, feeding each output line to the handler.
+     * Only called from accepted jobs, so it waits for a permit instead of rejecting.
+     * @return process exit code
+     */
+    public int runProcess(ProcessBuilder processBuilder, Consumer<String> outputHandler)
+            throws IOException, InterruptedException {
+        return renderLane.run(processBuilder, outputHandler);
+    }
+
+    /**
+     * Run a preview ffmpeg process on the preview permits
+     * @return process exit code
+     */
+    public int runPreviewProcess(ProcessBuilder processBuilder, Consumer<String> outputHandler)
+            throws IOException, InterruptedException {
+        return previewLane.run(processBuilder, outputHandler);
+    }
+
+    /**
+     * Rough time until a slot frees up, based on the average ffmpeg run time so far
+     */
+    public long estimateRetryAfterSeconds() {
+        if (renderLane.getCompleted() == 0) {
+            return DEFAULT_RETRY_AFTER_SECONDS;
+        }
+        long avgRunMillis = renderLane.getAvgRunMillis();
+        long backlog = jobExecutor.getQueue().size() + renderLane.getWaiting() + 1;
+        long estimateMillis = avgRunMillis * backlog / maxConcurrent;
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(estimateMillis));
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Number of running full-render ffmpeg processes (previews not included)
+     */
+    public int getRunningProcesses() {
+        return renderLane.getRunning();
+    }
+
+    /**
+     * Queue depth, wait times and throughput counters for sizing render nodes
+     */
+    public Map<String, Object> getStats() {
+        long jobs = startedJobs.get();
+        long processes = renderLane.getCompleted();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        stats.put("activeJobs", jobExecutor.getActiveCount());
+        stats.put("queuedJobs", jobExecutor.getQueue().size());
+        stats.put("runningProcesses", renderLane.getRunning());
+        stats.put("waitingProcesses", renderLane.getWaiting());
+        stats.put("startedJobs", jobs);
+        stats.put("completedProcesses", processes);
+        stats.put("rejected", rejected.get());
+        stats.put("avgJobWaitMillis", jobs == 0 ? 0 : totalJobWaitMillis.get() / jobs);
+        stats.put("maxJobWaitMillis", maxJobWaitMillis.get());
+        stats.put("avgProcessWaitMillis", renderLane.getAvgWaitMillis());
+        stats.put("maxProcessWaitMillis", renderLane.getMaxWaitMillis());
+        stats.put("avgProcessRunMillis", renderLane.getAvgRunMillis());
+        stats.put("retryAfterSeconds", estimateRetryAfterSeconds());
+
+        Map<String, Object> preview = new HashMap<>();
+        preview.put("maxConcurrent", previewLane.getSlots());
+        preview.put("activeJobs", previewExecutor.getActiveCount());
+        preview.put("queuedJobs", previewExecutor.getQueue().size());
+        preview.put("runningProcesses", previewLane.getRunning());
+        preview.put("completedProcesses", previewLane.getCompleted());
+        preview.put("rejected", previewRejected.get());
+        stats.put("preview", preview);
+        return stats;
+    }
+
+    private static void recordWait(long waitMillis, AtomicLong total, AtomicLong max) {
+        total.addAndGet(waitMillis);
+        max.accumulateAndGet(waitMillis, Math::max);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        previewExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,263 @@
+package org.khushal.videoservice.service;
+
+import jakarta.annotation.PostConstruct;
+import org.khushal.videoservice.model.RenderProgress;
+import org.khushal.videoservice.model.RenderRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Incremental render mode.
+ * Each slide is encoded once into its own H.264 segment (fixed frame rate, frame size and one GOP per slide)
+ * and cached by image content, so a re-render only encodes new or changed slides. The final MP4 is a
+ * stream-copy concat of the segments plus a single audio mux.
+ */
+@Service
+public class SegmentRenderService {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentRenderService.class);
+
+    // Every segment uses the same frame rate and time base so they can be joined with -c copy
+    private static final int SEGMENT_FPS = 25;
+    private static final String SEGMENT_TIMESCALE = "90000";
+
+    // Part of every segment key; bump when the segment encode settings change
+    private static final String SEGMENT_SETTINGS = "libx264:veryfast:crf20:yuv420p:fps" + SEGMENT_FPS + ":fit16x9";
+
+    // Segments used this recently are never evicted, so a concat in progress keeps its inputs
+    private static final long EVICTION_MIN_AGE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private final RenderScheduler renderScheduler;
+    private final RenderCacheService renderCacheService;
+
+    @Value("${video.segments.dir:cache/segments}")
+    private String segmentsDir;
+
+    @Value("${video.segments.max-size-mb:4096}")
+    private long maxSizeMb;
+
+    @Autowired
+    public SegmentRenderService(RenderScheduler renderScheduler, RenderCacheService renderCacheService) {
+        this.renderScheduler = renderScheduler;
+        this.renderCacheService = renderCacheService;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(Paths.get(segmentsDir));
+    }
+
+    /**
+     * Render the slideshow from cached per-slide segments, encoding only the missing ones
+     * @return segment counters for the render response
+     */
+    public Map<String, Object> render(RenderRequest request, List<Path> imageFiles, Path audioFile,
+                                      Path outputVideoPath, RenderProgress progress)
+            throws IOException, InterruptedException {
+        Path dir = Paths.get(segmentsDir);
+        int encoded = 0;
+        int reused = 0;
+
+        // Each segment is a short separate process, so progress counts slides rather than media time
+        progress.startStage("encoding segments", 0);
+
+        List<Path> segments = new ArrayList<>(imageFiles.size());
+        for (Path imageFile : imageFiles) {
+            Path segment = dir.resolve(segmentKey(imageFile, request) + ".mp4");
+            if (Files.isRegularFile(segment)) {
+                // Touch so eviction treats it as recently used
+                Files.setLastModifiedTime(segment, FileTime.fromMillis(System.currentTimeMillis()));
+                reused++;
+            } else {
+                encodeSegment(imageFile, segment, request.getSecondsPerImage(), request.getHeight());
+                encoded++;
+            }
+            segments.add(segment);
+            progress.setPercent(segments.size() * 100.0 / imageFiles.size());
+        }
+
+        progress.startStage("joining", imageFiles.size() * request.getSecondsPerImage() * 1000L);
+        concatWithAudio(segments, audioFile, outputVideoPath, progress);
+        evictOverLimit();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("segmentCount", segments.size());
+        result.put("segmentsEncoded", encoded);
+        result.put("segmentsReused", reused);
+        return result;
+    }
+
+    /**
+     * Segment key: slide content plus every setting that affects the encoded segment
+     */
+    private String segmentKey(Path imageFile, RenderRequest request) throws IOException {
+        String material = renderCacheService.hashFile(imageFile) + "|" + SEGMENT_SETTINGS
+                + "|secondsPerImage=" + request.getSecondsPerImage() + "|height=" + request.getHeight();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(material.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Encode one still image into a fixed-length segment with a single GOP
+     */
+    private void encodeSegment(Path imageFile, Path segment, int secondsPerImage, int height)
+            throws IOException, InterruptedException {
+        int framesPerSegment = SEGMENT_FPS * secondsPerImage;
+
+        // Encode to a temp file and move into place so concurrent renders never read half a segment
+        Path tempSegment = Files.createTempFile(segment.getParent(), "segment_", ".mp4.tmp");
+        try {
+            ProcessBuilder pb = new ProcessBuilder(
+                "ffmpeg",
+                "-hide_banner",
+                "-y",
+                "-loop", "1",
+                "-framerate", String.valueOf(SEGMENT_FPS),
+                "-t", String.valueOf(secondsPerImage),
+                "-i", imageFile.toString(),
+                "-vf", videoFilter(height),
+                "-r", String.valueOf(SEGMENT_FPS),
+                "-frames:v", String.valueOf(framesPerSegment),
+                "-c:v", "libx264",
+                "-preset", "veryfast",
+                "-crf", "20",
+                "-g", String.valueOf(framesPerSegment), // One GOP per slide
+                "-keyint_min", String.valueOf(framesPerSegment),
+                "-sc_threshold", "0",
+                "-video_track_timescale", SEGMENT_TIMESCALE,
+                "-an",
+                "-f", "mp4",
+                tempSegment.toString()
+            );
+
+            int exitCode = renderScheduler.runProcess(pb, line -> log.debug("[FFmpeg segment] {}", line));
+            if (exitCode != 0) {
+                throw new RuntimeException("FFmpeg failed to encode segment for " + imageFile.getFileName());
+            }
+            Files.move(tempSegment, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempSegment);
+        }
+    }
+
+    /**
+     * Scale and pad chain of every render mode, so a folder renders at the same frame size whichever mode is used.
+     * Fixed frame size also lets segments and chunks share one stream layout for joining with -c copy;
+     * images are fitted into a 16:9 box.
+     */
+    public String videoFilter(int height) {
+        int width = evenDimension(height * 16 / 9);
+        int evenHeight = evenDimension(height);
+        return "scale=" + width + ":" + evenHeight + ":force_original_aspect_ratio=decrease,"
+                + "pad=" + width + ":" + evenHeight + ":(ow-iw)/2:(oh-ih)/2,setsar=1,format=yuv420p";
+    }
+
+    public int getSegmentFps() {
+        return SEGMENT_FPS;
+    }
+
+    public String getSegmentTimescale() {
+        return SEGMENT_TIMESCALE;
+    }
+
+    /**
+     * Join segments without re-encoding and mux the audio track in one pass.
+     * The caller starts the progress stage with the expected output duration.
+     */
+    public void concatWithAudio(List<Path> segments, Path audioFile, Path outputVideoPath,
+                                RenderProgress progress) throws IOException, InterruptedException {
+        Path listPath = Files.createTempFile(Paths.get(segmentsDir), "concat_", ".txt");
+        try {
+            StringBuilder content = new StringBuilder();
+            for (Path segment : segments) {
+                content.append("file '").append(segment.toAbsolutePath().toString().replace("\\", "/")).append("'\n");
+            }
+            Files.writeString(listPath, content.toString(), StandardCharsets.UTF_8);
+
+            ProcessBuilder pb = new ProcessBuilder(
+                "ffmpeg",
+                "-hide_banner",
+                "-y",
+                "-progress", "pipe:1",
+                "-nostats",
+                "-f", "concat",
+                "-safe", "0",
+                "-i", listPath.toString(),
+                "-i", audioFile.toString(),
+                "-map", "0:v",
+                "-map", "1:a",
+                "-c:v", "copy",
+                "-c:a", "aac",
+                "-b:a", "192k",
+                "-shortest",
+                "-movflags", "+faststart",
+                outputVideoPath.toString()
+            );
+
+            int exitCode = renderScheduler.runProcess(pb, line -> {
+                if (!progress.accept(line)) {
+                    log.debug("[FFmpeg concat] {}", line);
+                }
+            });
+            if (exitCode != 0) {
+                throw new RuntimeException("FFmpeg failed to concatenate segments");
+            }
+        } finally {
+            Files.deleteIfExists(listPath);
+        }
+    }
+
+    /**
+     * Delete least recently used segments once the directory exceeds its size bound
+     */
+    private synchronized void evictOverLimit() throws IOException {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        List<Path> segments;
+        try (Stream<Path> stream = Files.list(Paths.get(segmentsDir))) {
+            segments = stream.filter(path -> path.getFileName().toString().endsWith(".mp4")).toList();
+        }
+
+        long totalBytes = 0;
+        Map<Path, long[]> attributes = new HashMap<>();
+        for (Path segment : segments) {
+            long size = Files.size(segment);
+            attributes.put(segment, new long[]{size, Files.getLastModifiedTime(segment).toMillis()});
+            totalBytes += size;
+        }
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+
+        List<Path> byAge = new ArrayList<>(segments);
+        byAge.sort(Comparator.comparingLong(segment -> attributes.get(segment)[1]));
+        long cutoff = System.currentTimeMillis() - EVICTION_MIN_AGE_MILLIS;
+        for (Path segment : byAge) {
+            if (totalBytes <= maxBytes || attributes.get(segment)[1] > cutoff) {
+                break;
+            }
+            Files.deleteIfExists(segment);
+            totalBytes -= attributes.get(segment)[0];
+        }
+    }
+
+    private int evenDimension(int value) {
+        return Math.max(2, value - (value % 2));
+    }
+}
@@ -0,0 +1,228 @@
+package org.khushal.videoservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client of storage-service, so video-service can render on a node that does not share catalog-service's
+ * disk. Keys are the relative paths used on disk (public/images/{category}/{folder}/001.jpg), so renders keep
+ * reading local files: a folder is brought up to date from storage before it is rendered, and the finished
+ * video is stored for catalog-service to stream. Off unless video.storage.enabled is set.
+ */
+@Service
+public class StorageService {
+
+    private static final int LIST_PAGE_SIZE = 1000;
+    private static final String MANIFEST_FILE = ".manifest";
+    // storage-service accepts writes only with its service token
+    private static final String TOKEN_HEADER = "X-Storage-Token";
+
+    private final ObjectMapper objectMapper;
+
+    private final FolderIndexService folderIndexService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    // One pull per folder at a time; renders of the same folder wait for the first to finish
+    private final Map<Path, Object> folderLocks = new ConcurrentHashMap<>();
+
+    @Value("${video.storage.enabled:false}")
+    private boolean enabled;
+
+    @Value("${storage.service.url:http://localhost:8082}")
+    private String storageServiceUrl;
+
+    @Value("${storage.service.token:}")
+    private String storageToken;
+
+    @Autowired
+    public StorageService(ObjectMapper objectMapper, FolderIndexService folderIndexService) {
+        this.objectMapper = objectMapper;
+        this.folderIndexService = folderIndexService;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Make the local folder match its stored copy: download files that are missing or older here, and drop
+     * slides (and the slide order) that are no longer stored. Other local files are left alone.
+     * @return number of files downloaded; 0 when the local copy was already current
+     */
+    public int pullFolder(Path folder) throws IOException {
+        Path key = folder.toAbsolutePath().normalize();
+        synchronized (folderLocks.computeIfAbsent(key, k -> new Object())) {
+            String prefix = key(folder) + "/";
+            Map<String, JsonNode> stored = new HashMap<>();
+            for (JsonNode blob : list(prefix)) {
+                String name = blob.get("key").asText().substring(prefix.length());
+                if (!name.contains("/")) {
+                    stored.put(name, blob);
+                }
+            }
+
+            Files.createDirectories(folder);
+            int downloaded = 0;
+            for (Map.Entry<String, JsonNode> blob : stored.entrySet()) {
+                Path file = folder.resolve(blob.getKey());
+                if (!isCurrent(file, blob.getValue().get("size").asLong(),
+                        blob.getValue().get("lastModified").asLong()) && pull(file)) {
+                    downloaded++;
+                }
+            }
+            int deleted = 0;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(folder)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    boolean synced = FolderIndexService.isNumberedImage(name) || name.equals(MANIFEST_FILE);
+                    if (synced && !stored.containsKey(name) && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                }
+            }
+            if (downloaded + deleted > 0) {
+                folderIndexService.invalidate(folder);
+            }
+            return downloaded;
+        }
+    }
+
+    /**
+     * Download a file stored under its path, replacing the local copy atomically; the local modification
+     * time is set to the stored one, so an unchanged file is not downloaded again
+     * @return false if nothing is stored under the path
+     */
+    public boolean pull(Path file) throws IOException {
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(blobUri(key(file))).GET(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 404) {
+                return false;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Failed to fetch " + file + ": " + response.statusCode() + " "
+                        + new String(body.readNBytes(1024), StandardCharsets.UTF_8));
+            }
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, ".fetch-", ".part");
+            try {
+                Files.copy(body, temp, StandardCopyOption.REPLACE_EXISTING);
+                Optional<String> lastModified = response.headers().firstValue("Last-Modified");
+                if (lastModified.isPresent()) {
+                    Files.setLastModifiedTime(temp, FileTime.from(ZonedDateTime.parse(lastModified.get(),
+                            DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()));
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Upload one file under its path
+     */
+    public void push(Path file) throws IOException {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(blobUri(key(file)))
+                        .header(TOKEN_HEADER, storageToken)
+                        .PUT(HttpRequest.BodyPublishers.ofFile(file)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Failed to store " + file + ": " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    /**
+     * Every stored object under the prefix, following the pages
+     */
+    private List<JsonNode> list(String prefix) throws IOException {
+        List<JsonNode> blobs = new ArrayList<>();
+        String startAfter = null;
+        do {
+            UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(storageServiceUrl)
+                    .path("/api/storage/blobs")
+                    .queryParam("prefix", prefix)
+                    .queryParam("limit", LIST_PAGE_SIZE);
+            if (startAfter != null) {
+                uri.queryParam("startAfter", startAfter);
+            }
+            HttpResponse<String> response = send(HttpRequest.newBuilder(uri.build().encode().toUri()).GET(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Failed to list " + prefix + ": " + response.statusCode() + " "
+                        + response.body());
+            }
+            JsonNode page = objectMapper.readTree(response.body());
+            page.get("blobs").forEach(blobs::add);
+            JsonNode next = page.get("nextStartAfter");
+            startAfter = next == null || next.isNull() ? null : next.asText();
+        } while (startAfter != null);
+        return blobs;
+    }
+
+    private boolean isCurrent(Path file, long size, long lastModified) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            // A pulled file carries the Last-Modified header's time, which has whole seconds only
+            return attributes.size() == size && attributes.lastModifiedTime().toMillis() >= lastModified / 1000 * 1000;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        try {
+            return httpClient.send(request.timeout(Duration.ofMinutes(10)).build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling storage-service");
+        }
+    }
+
+    private URI blobUri(String key) {
+        return UriComponentsBuilder.fromHttpUrl(storageServiceUrl)
+                .pathSegment("api", "storage", "blobs")
+                .pathSegment(key.split("/"))
+                .build()
+                .encode()
+                .toUri();
+    }
+
+    /**
+     * Storage key of a path relative to the working directory
+     */
+    private String key(Path path) {
+        Path normalized = path.normalize();
+        if (normalized.isAbsolute() || normalized.startsWith("..")) {
+            throw new IllegalArgumentException("Not a path inside the working directory: " + path);
+        }
+        return normalized.toString().replace('\\', '/');
+    }
+}
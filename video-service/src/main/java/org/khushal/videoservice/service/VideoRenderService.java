@@ -0,0 +1,531 @@
+package org.khushal.videoservice.service;
+
+import org.khushal.videoservice.model.EncodeProfile;
+import org.khushal.videoservice.model.RenderMode;
+import org.khushal.videoservice.model.RenderProgress;
+import org.khushal.videoservice.model.RenderRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Service
+public class VideoRenderService {
+
+    private static final Logger log = LoggerFactory.getLogger(VideoRenderService.class);
+
+    private final RenderScheduler renderScheduler;
+
+    private final RenderCacheService renderCacheService;
+
+    private final SegmentRenderService segmentRenderService;
+
+    private final ChunkedRenderService chunkedRenderService;
+
+    private final NormalizedImageService normalizedImageService;
+
+    private final FolderIndexService folderIndexService;
+
+    private final StorageService storageService;
+
+    private final MediaCacheService mediaCacheService;
+
+    private final AtomicInteger videoCounter = new AtomicInteger(1);
+
+    // Fixed encoder settings of executeFFmpegCommand; part of the render cache key, so bump when they change
+    private static final String ENCODE_SETTINGS = "libx264:veryfast:crf20:pad16x9:yuv420p:aac:192k:faststart";
+
+    // HLS output: playlist name, segment length and the files a stream directory may contain
+    public static final String HLS_PLAYLIST = "index.m3u8";
+    private static final String HLS_INIT_SEGMENT = "init.mp4";
+    private static final int HLS_SEGMENT_SECONDS = 4;
+
+    // Preview drafts: quality only has to show slide order and audio sync
+    private static final String PREVIEW_ENCODE_SETTINGS = "libx264:ultrafast:crf32:maxrate400k:pad16x9:yuv420p:aac:64k:t";
+
+    // Slideshow profile: long GOP; x264 scene-cut detection still starts a keyframe on every slide change
+    private static final int SLIDESHOW_GOP_FRAMES = 250;
+
+    // Output frame rate of the slideshow profile; stills need only enough frames for smooth seeking
+    @Value("${video.slideshow.fps:2}")
+    private int slideshowFps;
+
+    @Autowired
+    public VideoRenderService(RenderScheduler renderScheduler, RenderCacheService renderCacheService,
+                              SegmentRenderService segmentRenderService,
+                              ChunkedRenderService chunkedRenderService,
+                              NormalizedImageService normalizedImageService,
+                              FolderIndexService folderIndexService, StorageService storageService,
+                              MediaCacheService mediaCacheService) {
+        this.renderScheduler = renderScheduler;
+        this.renderCacheService = renderCacheService;
+        this.segmentRenderService = segmentRenderService;
+        this.chunkedRenderService = chunkedRenderService;
+        this.normalizedImageService = normalizedImageService;
+        this.folderIndexService = folderIndexService;
+        this.storageService = storageService;
+        this.mediaCacheService = mediaCacheService;
+    }
+
+    /**
+     * Resolve the images directory for a category/folder
+     */
+    public Path getImagesDir(String category, String folder) {
+        return Paths.get("public", "images", category, folder);
+    }
+
+    /**
+     * Render the video described by the request and return the result payload.
+     * Runs ffmpeg on the calling thread, so callers are expected to be render workers.
+     */
+    public Map<String, Object> render(RenderRequest request, RenderProgress progress) throws IOException {
+        return render(request, progress, true);
+    }
+
+    /**
+     * Render every mode and encode profile combination in turn with the render cache bypassed and report
+     * wall-clock time and output size, so the alternatives can be compared on real content.
+     * Benchmark outputs are deleted afterwards; source images and audio are never cleaned up.
+     */
+    public Map<String, Object> benchmark(RenderRequest request, List<RenderMode> modes,
+                                         List<EncodeProfile> profiles, RenderProgress progress) throws IOException {
+        Path benchmarkDir = Paths.get(request.getOutputDir(), "benchmarks");
+        List<Map<String, Object>> runs = new ArrayList<>();
+        long baselineMillis = 0;
+
+        long baselineBytes = 0;
+
+        for (RenderMode mode : modes) {
+            for (EncodeProfile profile : profiles) {
+                RenderRequest run = new RenderRequest(request.getCategory(), request.getFolder(),
+                        request.getAudioPath(), request.getSecondsPerImage(), request.getHeight(),
+                        benchmarkDir.toString(), false, false, mode, profile);
+                Map<String, Object> result = render(run, progress, false);
+
+                Path output = Paths.get((String) result.get("outputPath"));
+                long wallMillis = (Long) result.get("renderMillis");
+                long outputBytes = Files.size(output);
+                if (runs.isEmpty()) {
+                    baselineMillis = wallMillis;
+                    baselineBytes = outputBytes;
+                }
+
+                Map<String, Object> entry = new HashMap<>(result);
+                entry.put("wallMillis", wallMillis);
+                entry.put("outputBytes", outputBytes);
+                entry.put("speedupVsFirst", wallMillis == 0 ? 0.0 : (double) baselineMillis / wallMillis);
+                entry.put("sizeVsFirst", baselineBytes == 0 ? 0.0 : (double) outputBytes / baselineBytes);
+                entry.remove("outputPath");
+                Files.deleteIfExists(output);
+                runs.add(entry);
+            }
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Benchmark completed");
+        response.put("category", request.getCategory());
+        response.put("folder", request.getFolder());
+        response.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        response.put("runs", runs);
+        return response;
+    }
+
+    private Map<String, Object> render(RenderRequest request, RenderProgress progress,
+                                       boolean useCache) throws IOException {
+        long renderStart = System.currentTimeMillis();
+
+        Path imagesDir = getImagesDir(request.getCategory(), request.getFolder());
+        Path audioFile = Paths.get(request.getAudioPath());
+        // catalog-service may be on another node; it publishes the folder and audio before queueing.
+        // They stay pinned in the local tier until the render is done with them.
+        List<Path> pinned = mediaCacheService.acquire(imagesDir, audioFile);
+        try {
+            return render(request, progress, useCache, renderStart, imagesDir, audioFile);
+        } finally {
+            mediaCacheService.release(pinned);
+        }
+    }
+
+    private Map<String, Object> render(RenderRequest request, RenderProgress progress, boolean useCache,
+                                       long renderStart, Path imagesDir, Path audioFile) throws IOException {
+        if (!Files.isDirectory(imagesDir)) {
+            throw new IllegalArgumentException("Images directory not found: " + imagesDir);
+        }
+
+        if (!Files.isRegularFile(audioFile)) {
+            throw new IllegalArgumentException("Audio file not found: " + audioFile);
+        }
+
+        // Get ordered image files
+        List<Path> imageFiles = getOrderedImageFiles(imagesDir);
+        if (imageFiles.isEmpty()) {
+            throw new IllegalArgumentException("No numbered image files found in: " + imagesDir +
+                ". Images should be named as 001.jpg, 002.jpg, etc.");
+        }
+
+        // Prefer media-worker's pre-scaled variants; sources are still what cleanup deletes
+        List<Path> renderImages = normalizedImageService.resolve(request.getCategory(), request.getFolder(),
+                request.getHeight(), imageFiles);
+        boolean normalizedImages = renderImages != imageFiles;
+
+        // Create output directory
+        Path outputDirPath = Paths.get(request.getOutputDir());
+        Files.createDirectories(outputDirPath);
+
+        // Generate unique output filename
+        String outputName = request.getOutputName() != null ? request.getOutputName() : String.format("%s_%s_%s_%d",
+            request.getProfile() == EncodeProfile.PREVIEW ? "preview" : "video",
+            request.getCategory(), request.getFolder(), videoCounter.getAndIncrement());
+        Path outputVideoPath = request.getMode() == RenderMode.HLS
+            ? getHlsDir(request.getOutputDir(), outputName).resolve(HLS_PLAYLIST)
+            : outputDirPath.resolve(outputName + ".mp4");
+
+        // Identical images, audio and parameters produce an identical video, so reuse a cached render
+        // (HLS output is a directory that grows while it is watched, so it is never cached)
+        String cacheKey = null;
+        if (useCache && renderCacheService.isEnabled() && request.getMode() != RenderMode.HLS) {
+            String encodeParams = encodeSettings(request) + "|mode=" + request.getMode().getValue()
+                    + "|secondsPerImage=" + request.getSecondsPerImage()
+                    + "|height=" + request.getHeight();
+            cacheKey = renderCacheService.computeKey(renderImages, audioFile, encodeParams);
+            if (renderCacheService.restore(cacheKey, outputVideoPath)) {
+                progress.startStage("cached", 0);
+                progress.setPercent(100);
+                Map<String, Object> response = buildResponse(request, outputVideoPath, imageFiles.size());
+                response.put("cacheHit", true);
+                response.put("normalizedImages", normalizedImages);
+                response.put("renderMillis", System.currentTimeMillis() - renderStart);
+                publishOutput(request, outputVideoPath, useCache);
+                applyCleanup(request, imageFiles, audioFile, response);
+                return response;
+            }
+        }
+
+        // Never let ffmpeg truncate a path that may be hard-linked into the render cache
+        Files.deleteIfExists(outputVideoPath);
+
+        Map<String, Object> response = buildResponse(request, outputVideoPath, imageFiles.size());
+        try {
+            switch (request.getMode()) {
+                case INCREMENTAL:
+                    response.putAll(segmentRenderService.render(request, renderImages, audioFile, outputVideoPath, progress));
+                    break;
+                case PARALLEL:
+                    response.putAll(chunkedRenderService.render(request, renderImages, audioFile, outputVideoPath, progress));
+                    break;
+                case HLS:
+                    renderHls(request, renderImages, imagesDir, audioFile, outputVideoPath, progress);
+                    response.put("hlsSegmentSeconds", HLS_SEGMENT_SECONDS);
+                    break;
+                default:
+                    renderFull(request, renderImages, imagesDir, audioFile, outputVideoPath, progress);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Render interrupted");
+        }
+
+        if (cacheKey != null) {
+            renderCacheService.store(cacheKey, outputVideoPath);
+        }
+
+        response.put("cacheHit", false);
+        response.put("normalizedImages", normalizedImages);
+        response.put("renderMillis", System.currentTimeMillis() - renderStart);
+        publishOutput(request, outputVideoPath, useCache);
+        applyCleanup(request, imageFiles, audioFile, response);
+        return response;
+    }
+
+    /**
+     * Store a finished MP4 in storage-service, where catalog-service streams it from when it runs elsewhere.
+     * HLS output is served by this service while it grows; benchmark runs (no cache) are deleted right away.
+     */
+    private void publishOutput(RenderRequest request, Path outputVideoPath, boolean useCache) throws IOException {
+        if (storageService.isEnabled() && useCache && request.getMode() != RenderMode.HLS) {
+            storageService.push(outputVideoPath);
+        }
+    }
+
+    /**
+     * Encode the whole slideshow in one ffmpeg pass over a concat demuxer list
+     */
+    private void renderFull(RenderRequest request, List<Path> imageFiles, Path imagesDir,
+                            Path audioFile, Path outputVideoPath, RenderProgress progress)
+            throws IOException, InterruptedException {
+        // Create temporary file list for ffmpeg (unique per render so jobs on one folder don't collide)
+        Path fileListPath = Files.createTempFile(imagesDir, "temp_filelist_", ".txt");
+
+        try {
+            // Create file list with duration for each image
+            createImageFileList(fileListPath, imageFiles, request.getSecondsPerImage());
+
+            // Execute ffmpeg command
+            progress.startStage("encoding", imageFiles.size() * request.getSecondsPerImage() * 1000L);
+            List<String> outputArgs = List.of(
+                "-movflags", "+faststart", // Optimize for web streaming
+                outputVideoPath.toString()
+            );
+            boolean success = executeFFmpegCommand(fileListPath, audioFile, imageFiles.size(), outputArgs,
+                    request, progress);
+            if (!success) {
+                throw new RuntimeException("FFmpeg failed to generate video");
+            }
+        } finally {
+            // Always clean up temporary file list
+            Files.deleteIfExists(fileListPath);
+        }
+    }
+
+    /**
+     * Encode in one pass into an fMP4 HLS stream. Segments and the playlist are published as each
+     * segment closes, so playback can start after the first few seconds of output instead of after
+     * the whole encode and the faststart rewrite.
+     */
+    private void renderHls(RenderRequest request, List<Path> imageFiles, Path imagesDir,
+                           Path audioFile, Path playlistPath, RenderProgress progress)
+            throws IOException, InterruptedException {
+        Path hlsDir = playlistPath.getParent();
+        Files.createDirectories(hlsDir);
+        Path fileListPath = Files.createTempFile(imagesDir, "temp_filelist_", ".txt");
+
+        try {
+            createImageFileList(fileListPath, imageFiles, request.getSecondsPerImage());
+
+            progress.startStage("encoding", imageFiles.size() * request.getSecondsPerImage() * 1000L);
+            List<String> outputArgs = List.of(
+                // Keyframe at every segment boundary so each segment starts cleanly
+                "-force_key_frames", "expr:gte(t,n_forced*" + HLS_SEGMENT_SECONDS + ")",
+                "-f", "hls",
+                "-hls_time", String.valueOf(HLS_SEGMENT_SECONDS),
+                "-hls_playlist_type", "event", // Playlist grows as segments land; ENDLIST is added at the end
+                "-hls_segment_type", "fmp4",
+                "-hls_fmp4_init_filename", HLS_INIT_SEGMENT,
+                "-hls_flags", "independent_segments+temp_file", // Never expose half-written files
+                "-hls_segment_filename", hlsDir.resolve("seg_%05d.m4s").toString(),
+                playlistPath.toString()
+            );
+            boolean success = executeFFmpegCommand(fileListPath, audioFile, imageFiles.size(), outputArgs,
+                    request, progress);
+            if (!success) {
+                throw new RuntimeException("FFmpeg failed to generate HLS stream");
+            }
+        } finally {
+            Files.deleteIfExists(fileListPath);
+        }
+    }
+
+    /**
+     * Directory of an HLS render
+     */
+    public Path getHlsDir(String outputDir, String outputName) {
+        return Paths.get(outputDir, "hls", outputName);
+    }
+
+    /**
+     * Whether a file name is one an HLS render writes (playlist, init segment or media segment)
+     */
+    public boolean isHlsFileName(String fileName) {
+        return HLS_PLAYLIST.equals(fileName) || HLS_INIT_SEGMENT.equals(fileName)
+                || fileName.matches("seg_\\d{5,}\\.m4s");
+    }
+
+    /**
+     * Build the result payload of a finished render
+     */
+    private Map<String, Object> buildResponse(RenderRequest request, Path outputVideoPath, int imageCount) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Video generated successfully");
+        response.put("outputPath", outputVideoPath.toString());
+        response.put("category", request.getCategory());
+        response.put("folder", request.getFolder());
+        response.put("imageCount", imageCount);
+        response.put("secondsPerImage", request.getSecondsPerImage());
+        response.put("height", request.getHeight());
+        response.put("audioFile", request.getAudioPath());
+        response.put("mode", request.getMode().getValue());
+        response.put("profile", request.getProfile().getValue());
+        return response;
+    }
+
+    /**
+     * Delete source images and audio if the request asked for it, once the caller is done with them
+     */
+    public void cleanupSources(RenderRequest request, Map<String, Object> response) throws IOException {
+        Path imagesDir = getImagesDir(request.getCategory(), request.getFolder());
+        List<Path> imageFiles = Files.isDirectory(imagesDir) ? getOrderedImageFiles(imagesDir) : List.of();
+        applyCleanup(request, imageFiles, Paths.get(request.getAudioPath()), response);
+    }
+
+    /**
+     * Encoder settings that identify the output for the render cache
+     */
+    private String encodeSettings(RenderRequest request) {
+        if (request.getProfile() == EncodeProfile.SLIDESHOW) {
+            return ENCODE_SETTINGS + ":slideshow:fps" + slideshowFps + ":g" + SLIDESHOW_GOP_FRAMES
+                    + ":mpdecimate-max" + slideshowFps + ":t";
+        }
+        if (request.getProfile() == EncodeProfile.PREVIEW) {
+            return PREVIEW_ENCODE_SETTINGS + ":fps" + slideshowFps + ":mpdecimate-max" + slideshowFps;
+        }
+        return ENCODE_SETTINGS;
+    }
+
+    /**
+     * Delete source images and audio if the request asked for it
+     */
+    private void applyCleanup(RenderRequest request, List<Path> imageFiles, Path audioFile,
+                              Map<String, Object> response) throws IOException {
+        if (request.isCleanupImages()) {
+            cleanupImageFiles(imageFiles);
+            folderIndexService.removeFiles(imageFiles);
+            normalizedImageService.deleteVariants(request.getCategory(), request.getFolder(), imageFiles);
+            response.put("cleanupImages", true);
+        }
+        if (request.isCleanupAudio()) {
+            Files.deleteIfExists(audioFile);
+            response.put("cleanupAudio", true);
+        }
+    }
+
+    /**
+     * Get ordered image files from directory
+     */
+    public List<Path> getOrderedImageFiles(Path imagesDir) throws IOException {
+        List<Path> imageFiles = new ArrayList<>();
+        for (String fileName : folderIndexService.listNumberedImages(imagesDir)) {
+            imageFiles.add(imagesDir.resolve(fileName));
+        }
+        return imageFiles;
+    }
+
+    /**
+     * Create file list for ffmpeg with duration for each image
+     */
+    private void createImageFileList(Path fileListPath, List<Path> imageFiles, int secondsPerImage) throws IOException {
+        StringBuilder content = new StringBuilder();
+
+        for (Path imageFile : imageFiles) {
+            content.append("file '").append(imageFile.toAbsolutePath().toString().replace("\\", "/")).append("'\n");
+            content.append("duration ").append(secondsPerImage).append("\n");
+        }
+
+        // Add the last image again without duration to make concat demuxer work properly
+        if (!imageFiles.isEmpty()) {
+            Path lastImage = imageFiles.get(imageFiles.size() - 1);
+            content.append("file '").append(lastImage.toAbsolutePath().toString().replace("\\", "/")).append("'\n");
+        }
+
+        Files.writeString(fileListPath, content.toString(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Execute ffmpeg command to merge images with audio
+     * @throws InterruptedException if the render thread is interrupted while waiting for or running ffmpeg
+     */
+    private boolean executeFFmpegCommand(Path fileListPath, Path audioFile, int imageCount, List<String> outputArgs,
+                                         RenderRequest request, RenderProgress progress)
+            throws InterruptedException {
+        try {
+            List<String> command = new ArrayList<>(List.of(
+                "ffmpeg",
+                "-hide_banner",
+                "-y", // Overwrite output file
+                "-progress", "pipe:1", // Machine-readable progress on stdout
+                "-nostats",
+                "-f", "concat",
+                "-safe", "0",
+                "-i", fileListPath.toString(),
+                "-i", audioFile.toString()
+            ));
+
+            String scale = segmentRenderService.videoFilter(request.getHeight());
+            // At most slideshowFps repeats in a row are dropped, so the video track still has frames up to the end
+            String decimate = ",fps=" + slideshowFps + ",mpdecimate=max=" + slideshowFps;
+            String audioBitrate = "192k";
+            if (request.getProfile() == EncodeProfile.PREVIEW) {
+                command.addAll(List.of(
+                    "-vf", scale + decimate,
+                    "-fps_mode", "vfr",
+                    "-c:v", "libx264",
+                    "-preset", "ultrafast",
+                    "-crf", "32",
+                    "-maxrate", "400k",
+                    "-bufsize", "800k"
+                ));
+                audioBitrate = "64k";
+            } else if (request.getProfile() == EncodeProfile.SLIDESHOW) {
+                // A still slide needs a handful of frames per second at most, and the repeats of a slide
+                // are dropped (mpdecimate + variable frame rate) so each slide costs only a few coded frames
+                command.addAll(List.of(
+                    "-vf", scale + decimate,
+                    "-fps_mode", "vfr",
+                    "-c:v", "libx264",
+                    "-preset", "veryfast",
+                    "-tune", "stillimage",
+                    "-crf", "20",
+                    "-g", String.valueOf(SLIDESHOW_GOP_FRAMES)
+                ));
+            } else {
+                command.addAll(List.of(
+                    "-vf", scale,
+                    "-c:v", "libx264",
+                    "-preset", "veryfast",
+                    "-crf", "20"
+                ));
+            }
+
+            command.addAll(List.of(
+                "-c:a", "aac",
+                "-b:a", audioBitrate
+            ));
+            if (request.getProfile() == EncodeProfile.SLIDESHOW || request.getProfile() == EncodeProfile.PREVIEW) {
+                // Stop at the slides' total length: -shortest would end at the last kept frame and cut the last slide
+                command.addAll(List.of("-t", String.valueOf((long) imageCount * request.getSecondsPerImage())));
+            } else {
+                command.add("-shortest"); // End when shortest input ends
+            }
+            command.addAll(outputArgs);
+            ProcessBuilder pb = new ProcessBuilder(command);
+
+            // Feed progress lines to the job, log everything else
+            Consumer<String> outputHandler = line -> {
+                if (!progress.accept(line)) {
+                    log.debug("[FFmpeg] {}", line);
+                }
+            };
+            // Previews take preview permits so they never hold up a full-quality render
+            int exitCode = request.getProfile() == EncodeProfile.PREVIEW
+                    ? renderScheduler.runPreviewProcess(pb, outputHandler)
+                    : renderScheduler.runProcess(pb, outputHandler);
+            return exitCode == 0;
+
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("FFmpeg execution failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Clean up image files after video generation
+     */
+    private void cleanupImageFiles(List<Path> imageFiles) {
+        for (Path imageFile : imageFiles) {
+            try {
+                Files.deleteIfExists(imageFile);
+                System.out.println("Deleted image: " + imageFile.getFileName());
+            } catch (IOException e) {
+                System.err.println("Failed to delete image " + imageFile.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+}